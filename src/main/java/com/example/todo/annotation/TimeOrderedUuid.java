@@ -0,0 +1,16 @@
+package com.example.todo.annotation;
+
+import com.example.todo.annotation.implementation.TimeOrderedUuidGenerator;
+import org.hibernate.annotations.IdGeneratorType;
+import java.lang.annotation.*;
+
+/**
+ * It's used for generating the value of a {@link java.util.UUID} id with {@link TimeOrderedUuidGenerator}, i.e. a
+ * time ordered (version 7) UUID, on insert. Can be applied to fields only.
+ */
+@Documented
+@IdGeneratorType(TimeOrderedUuidGenerator.class)
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TimeOrderedUuid {
+}
@@ -0,0 +1,74 @@
+package com.example.todo.annotation.implementation;
+
+import com.example.todo.annotation.TimeOrderedUuid;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+
+/**
+ * An id generator for {@link TimeOrderedUuid} annotation. It generates version 7 UUIDs, i.e. a 48 bit unix timestamp in
+ * milliseconds, followed by a 12 bit sequence and 62 random bits. Unlike the random (version 4) UUIDs, consecutive ids are
+ * close to each other in an index, so the inserts append to the end of it instead of being scattered across it.
+ * <br>
+ * <br>
+ * The ids are monotonic within the JVM. The sequence starts at a random value in the lower half of its range at every
+ * millisecond and is incremented for every id within it. If it overflows, the timestamp is moved to the next millisecond.
+ */
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom random = new SecureRandom();
+    private static final int SEQUENCE_MAX = 0xFFF;
+    private static long lastTimestamp = -1;
+    private static int sequence;
+    private final Logger logger = LoggerFactory.getLogger(TimeOrderedUuidGenerator.class);
+
+    /**
+     * @return The timestamp and sequence of the next id, as the 64 most significant bits of the UUID.
+     */
+    private static synchronized long nextMostSignificantBits() {
+
+        long timestamp = System.currentTimeMillis();
+
+        if (timestamp > lastTimestamp) {
+            lastTimestamp = timestamp;
+            sequence = random.nextInt(SEQUENCE_MAX / 2);
+        }
+        else if (++sequence > SEQUENCE_MAX) { // Also covers the clock going backwards
+            lastTimestamp++;
+            sequence = 0;
+        }
+
+        return (lastTimestamp << 16) | (0x7L << 12) | sequence;
+    }
+
+    /**
+     * @return A new version 7 UUID.
+     */
+    public static UUID generate() {
+
+        long mostSignificantBits = nextMostSignificantBits();
+        long leastSignificantBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L; // IETF variant
+
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+
+        UUID id = generate();
+        logger.debug("Generated id: {} for: {}", id, owner.getClass().getSimpleName());
+
+        return id;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
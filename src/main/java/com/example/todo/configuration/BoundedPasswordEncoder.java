@@ -0,0 +1,207 @@
+package com.example.todo.configuration;
+
+import com.example.todo.exception.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import javax.management.MBeanServer;
+import javax.management.MXBean;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link PasswordEncoder} that runs the hashing of another one on a fixed number of threads with a bounded queue, as
+ * it's deliberately slow and CPU bound. A burst of logins or sign ups then uses at most as many CPUs as there are threads,
+ * and occupies at most as many request threads as there are threads and queued hashes, which leaves the rest of the request
+ * threads to the other requests. The hashing that doesn't fit in the queue is rejected with {@link ServiceUnavailableException}
+ * rather than waited for. The {@link Statistics} of the executor, like the depth of its queue, are registered with the
+ * platform MBean server.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private final Statistics statistics = new Statistics() {
+
+        @Override
+        public int getActiveCount() {
+            return executor.getActiveCount();
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return executor.getQueue().size();
+        }
+
+        @Override
+        public int getQueueCapacity() {
+            return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+        }
+
+        @Override
+        public long getCompletedCount() {
+            return executor.getCompletedTaskCount();
+        }
+
+        @Override
+        public long getRejectedCount() {
+            return rejected.sum();
+        }
+    };
+
+    /**
+     * @param delegate The encoder that does the hashing
+     * @param threads The number of threads hashing at once
+     * @param queueSize The number of hashes waiting for a thread at most
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize) {
+
+        AtomicInteger count = new AtomicInteger();
+
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+    }
+
+    @PostConstruct
+    public void registerStatistics() {
+
+        try {
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ConstantValues.User.PASSWORD_HASHING_OBJECT_NAME);
+
+            // Another application context in the same JVM may have registered it already
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(new StandardMBean(statistics, Statistics.class, true), name);
+
+            logger.info("Registered password hashing statistics as: {}", name);
+        }
+        catch (Exception e) {
+            logger.warn("Could not register password hashing statistics", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        executor.shutdown();
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ConstantValues.User.PASSWORD_HASHING_OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+        }
+        catch (Exception e) {
+            logger.warn("Could not unregister password hashing statistics", e);
+        }
+    }
+
+    /**
+     * Runs the hashing on the executor and waits for it.
+     */
+    private <T> T hash(Callable<T> work) {
+
+        Future<T> future;
+
+        try {
+            future = executor.submit(work);
+        }
+        catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warn("Rejected password hashing. Active: {}, queued: {}", executor.getActiveCount(), executor.getQueue().size());
+            throw new ServiceUnavailableException(ConstantValues.User.Error.PASSWORD_HASHING_IS_BUSY, ConstantValues.User.PASSWORD_HASHING_RETRY_AFTER_IN_SECONDS, e);
+        }
+
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * @return The {@link Statistics} of the executor.
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * The statistics of the executor of a {@link BoundedPasswordEncoder}, exposed over JMX.
+     */
+    @MXBean
+    public interface Statistics {
+
+        /**
+         * @return The number of threads hashing at the moment.
+         */
+        int getActiveCount();
+
+        /**
+         * @return The number of hashes waiting for a thread at the moment.
+         */
+        int getQueueDepth();
+
+        /**
+         * @return The number of hashes that can wait for a thread at most.
+         */
+        int getQueueCapacity();
+
+        /**
+         * @return The number of hashes done since the start.
+         */
+        long getCompletedCount();
+
+        /**
+         * @return The number of hashes rejected since the start, as the queue was full.
+         */
+        long getRejectedCount();
+    }
+}
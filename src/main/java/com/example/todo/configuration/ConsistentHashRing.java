@@ -0,0 +1,68 @@
+package com.example.todo.configuration;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A consistent hash ring of a number of shards, each of which is placed on the ring at a number of virtual nodes.
+ * A key belongs to the shard of the first virtual node at or after its hash. When a shard is added to the ring, only
+ * the keys that fall on its virtual nodes, i.e. about 1/n of the keys, move to it, and no key moves between the other shards.
+ */
+public class ConsistentHashRing {
+
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+    private final int size;
+
+    /**
+     * Creates a ring of the shards 0 to size - 1.
+     * @param size The number of shards
+     * @param virtualNodes The number of virtual nodes of each shard
+     */
+    public ConsistentHashRing(int size, int virtualNodes) {
+
+        if (size < 1) throw new IllegalArgumentException(ConstantValues.DataSource.Error.SHARD_IS_INVALID);
+
+        this.size = size;
+
+        for (int shard = 0; shard < size; shard++)
+            for (int node = 0; node < virtualNodes; node++)
+                ring.put(hash(ConstantValues.DataSource.SHARD_PREFIX + shard + "#" + node), shard);
+    }
+
+    /**
+     * @return The first 8 bytes of the MD5 digest of the key, which are evenly distributed irrespective of the key.
+     */
+    private static long hash(String key) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param key The key, i.e. the username
+     * @return The index of the shard the key belongs to
+     */
+    public int shardOf(String key) {
+
+        if (size == 1) return 0;
+
+        Map.Entry<Long, Integer> node = ring.ceilingEntry(hash(key));
+        return node == null ? ring.firstEntry().getValue() : node.getValue();
+    }
+
+    /**
+     * @return The number of shards
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.todo.configuration;
 
 import org.springframework.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A set of constants used throughout the application, like JWT keys, user roles, error messages, etc.
@@ -11,11 +13,41 @@ public final class ConstantValues {
     public static final class RestApi {
         public static final String REST_API_ROUTE_PREFIX = "/v1";
         public static final String PAGINATION_TOTAL_COUNT_HEADER = "X-Total-Count";
+        public static final String PAGINATION_NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
         public static final class Error {
             public static final String REQUEST_BODY_NEEDED = "Request body is needed";
             public static final String AUTHORIZATION_HEADER_NOT_FOUND = HttpHeaders.AUTHORIZATION + " header is not found";
             public static final String AUTHORIZATION_HEADER_INVALID = "Invalid " + HttpHeaders.AUTHORIZATION + " header";
+            public static final String INVALID_CURSOR = "Invalid cursor";
+        }
+    }
+
+    public static final class DataSource {
+        public static final long READ_YOUR_WRITES_WINDOW_IN_SECONDS = 5;
+        public static final String PRIMARY = "primary";
+        public static final String REPLICA_PREFIX = "replica-";
+        public static final String SHARD_PREFIX = "shard-";
+        public static final int SHARD_VIRTUAL_NODES = 128;
+        public static final long SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS = 5000;
+        public static final int SHARD_MIGRATION_BATCH_SIZE = 100;
+        public static final int SHARD_MIGRATION_CHUNK_SIZE = 1000;
+        public static final long SHARD_MIGRATION_RETRY_AFTER_IN_SECONDS = 5;
+        public static final String SHARD_DIRECTORY_TABLE = "user_shards";
+        public static final String SHARD_MIGRATION_LOCK_TABLE = "shard_migration_locks";
+        public static final String RESHARD_LOCK = "reshard";
+        public static final long SHARD_MIGRATION_LOCK_LEASE_IN_MILLIS = 10 * 60 * 1000; // Renewed after every batch of users
+        public static final List<String> SHARD_MIGRATION_TABLES = List.of("users", "users_roles", "todos", "todo_counters", "todos_archive"); // In the order of the foreign keys
+        public static final Map<String, String> SHARD_MIGRATION_KEYS = Map.of( // The column that the rows of a user are copied in the order of
+                "users", "username",
+                "users_roles", "role",
+                "todos", "id",
+                "todo_counters", "username",
+                "todos_archive", "id"
+        );
+        public static final class Error {
+            public static final String USER_IS_BEING_MIGRATED = "User data is being migrated, try again later";
+            public static final String SHARD_IS_INVALID = "Shard is invalid";
         }
     }
 
@@ -23,11 +55,45 @@ public final class ConstantValues {
         public static final String BEARER_TOKEN_PREFIX = "Bearer";
         public static final String RESPONSE_HEADER_TOKEN = "Auth-Token";
         public static final String REQUEST_ATTRIBUTE_TOKEN_KEY = "TOKEN";
+        public static final int REVOCATION_STORE_MAX_SIZE = 100_000;
+        public static final String REVOCATION_STORE_OBJECT_NAME = "com.example.todo:type=TokenRevocationStore";
+        public static final int REVOCATION_FILTER_MIN_EXPECTED_INSERTIONS = 10_000;
+        public static final double REVOCATION_FILTER_FALSE_POSITIVE_RATE = 0.01;
+        public static final int VERIFIED_TOKEN_CACHE_MAX_SIZE = 10_000;
+        public static final int GENERATION_CACHE_MAX_SIZE = 100_000;
+        public static final long GENERATION_CACHE_TTL_IN_MILLIS = 5000;
+        public static final long REFRESH_EXPIRATION_TIME_IN_SECONDS = 7 * 24 * 60 * 60;
+        public static final String RESPONSE_HEADER_REFRESH_TOKEN = "Refresh-Token";
+        public static final String REQUEST_HEADER_REFRESH_TOKEN = "Refresh-Token";
+        public static final String CLAIM_ROLES = "roles";
+        public static final String CLAIM_GENERATION = "gen";
+        public static final String CLAIM_TOKEN_USE = "token_use";
+        public static final String TOKEN_USE_ACCESS = "access";
+        public static final String TOKEN_USE_REFRESH = "refresh";
         public static final class Error {
             public static final String INVALID_TOKEN = "Token is invalid";
+            public static final String REFRESH_TOKEN_NEEDED = "Refresh token is needed";
         }
     }
 
+    public static final class RateLimit {
+        public static final int AUTH_USERNAME_PER_MINUTE = 10;
+        public static final int AUTH_ADDRESS_PER_MINUTE = 60;
+        public static final int WRITE_USERNAME_PER_MINUTE = 600;
+        public static final int WRITE_ADDRESS_PER_MINUTE = 1200;
+        public static final int MAX_BUCKETS = 100_000;
+        public static final int STRIPES = 256; // A power of two
+        public static final String OBJECT_NAME = "com.example.todo:type=RateLimiter";
+        public static final String USERNAME_KEY_PREFIX = "username:";
+        public static final String ADDRESS_KEY_PREFIX = "address:";
+    }
+
+    public static final class Logging {
+        public static final double INFO_SAMPLE_RATE = 0.1;
+        public static final String SAMPLED_LOGGER_PREFIX = "com.example.todo";
+        public static final String MDC_INFO_SAMPLED = "info_sampled";
+    }
+
     public static final class User {
         public static final int USERNAME_MIN_LENGTH = 5;
         public static final int USERNAME_MAX_LENGTH = 60;
@@ -38,6 +104,10 @@ public final class ConstantValues {
         public static final int FORENAME_MAX_LENGTH = 50;
         public static final int SURNAME_MIN_LENGTH = 2;
         public static final int SURNAME_MAX_LENGTH = 50;
+        public static final int PASSWORD_ENCODER_STRENGTH = 10;
+        public static final int PASSWORD_HASHING_QUEUE_SIZE = 64;
+        public static final int PASSWORD_HASHING_RETRY_AFTER_IN_SECONDS = 1;
+        public static final String PASSWORD_HASHING_OBJECT_NAME = "com.example.todo:type=PasswordHashing";
         public static final class Json {
             public static final String USERNAME = "username";
             public static final String PASSWORD = "password";
@@ -62,6 +132,7 @@ public final class ConstantValues {
             public static final String SURNAME_IS_INVALID = "Surname must be between " + SURNAME_MIN_LENGTH + " and " + SURNAME_MAX_LENGTH + " characters (inclusive)";
             public static final String USER_NOT_FOUND = "User not found";
             public static final String USER_EXISTS = "User already exists";
+            public static final String PASSWORD_HASHING_IS_BUSY = "Too many password checks are in progress, please try again later";
         }
     }
 
@@ -79,6 +150,43 @@ public final class ConstantValues {
     public static final class Todo {
         public static final int TITLE_MAX_LENGTH = 300;
         public static final int DESCRIPTION_MAX_LENGTH = 500;
+        public static final int BATCH_MAX_SIZE = 100;
+        /**
+         * The sort properties (java variable field names) that can be served by the indexes of the todos table, after
+         * the equality match on the username. The id is the trailing key, as the secondary indexes implicitly end with
+         * the primary key. A sort is allowed only if it's one of these, with or without the trailing id.
+         */
+        public static final List<List<String>> INDEXED_SORTS = List.of(
+                List.of("scheduledAt", "id"),
+                List.of("completed", "scheduledAt", "id"),
+                List.of("createdAt", "id")
+        );
+        /**
+         * The filter properties (java variable field names) that can be served by the indexes of the todos table, after the
+         * equality match on the username. An index serves the equality conditions on its leading columns and a range condition
+         * on the next one, so a filter is allowed only if its properties, as listed by TodoFilter, are a prefix of one of these.
+         * A filter along with a sort needs a single index in INDEXED_SORTS, which the filter is a prefix of and which has the
+         * sort after the equality conditions of the filter.
+         */
+        public static final List<List<String>> INDEXED_FILTERS = List.of(
+                List.of("scheduledAt"),
+                List.of("completed", "scheduledAt"),
+                List.of("createdAt"),
+                List.of("updatedAt")
+        );
+        public static final class Archive {
+            public static final long AGE_IN_DAYS = 30;
+            public static final int CHUNK_SIZE = 500;
+            public static final long THROTTLE_IN_MILLIS = 100;
+        }
+        public static final class Export {
+            public static final String NDJSON = "ndjson";
+            public static final String CSV = "csv";
+            public static final String FILENAME = "todos";
+            public static final int BUFFER_SIZE = 8192;
+            // Integer.MIN_VALUE, with which the MySQL driver streams the rows one at a time instead of reading them all into memory
+            public static final String FETCH_SIZE = "-2147483648";
+        }
         public static final class Json {
             public static final String ID = "id";
             public static final String TITLE = "title";
@@ -87,12 +195,13 @@ public final class ConstantValues {
             public static final String SCHEDULED_AT = "scheduled_at";
             public static final String COMPLETED = "completed";
             public static final String DESCRIPTION = "description";
-            public static final String USER = "user";
         }
         public static final class Error {
             public static final String INVALID_PAGE_NO = "Page number must be greater than 0";
             public static final String INVALID_PAGE_LIMIT = "Limit must be greater than 0";
             public static final String INVALID_SORT_ORDER_PARAMETER = "Invalid sort or order parameters";
+            public static final String UNSUPPORTED_SORT_ORDER_PARAMETER = "Sorting is supported only by " + Json.SCHEDULED_AT + ", " + Json.CREATED_AT +
+                    " or " + Json.COMPLETED + " followed by " + Json.SCHEDULED_AT + " (optionally followed by " + Json.ID + "), all in the same order";
             public static final String TITLE_NEEDED = "Title is needed";
             public static final String SCHEDULED_AT_NEEDED = "Scheduled at time is needed";
             public static final String DESCRIPTION_NEEDED = "Description is needed";
@@ -104,6 +213,16 @@ public final class ConstantValues {
             public static final String DESCRIPTION_IS_INVALID = "Description must be between 1 and " + DESCRIPTION_MAX_LENGTH + " characters (inclusive)";
             public static final String TODO_NOT_FOUND = "Todo not found";
             public static final String TODO_EXISTS = "Todo already exists";
+            public static final String TODO_VERSION_MISMATCH = "Todo has been modified";
+            public static final String FILTER_NEEDED = "At least one filter is needed";
+            public static final String BATCH_SIZE_IS_INVALID = "Batch must contain between 1 and " + BATCH_MAX_SIZE + " todos (inclusive)";
+            public static final String UNSUPPORTED_FILTER = "Filtering is supported only by completed, scheduled at time, created at time or " +
+                    "updated at time alone, or by completed along with scheduled at time";
+            public static final String UNSUPPORTED_FILTER_WITH_SORT = "Filtering along with sorting is supported only if the sort is on the " +
+                    "filtered time, or on " + Json.SCHEDULED_AT + " when filtering by completed alone or along with scheduled at time";
+            public static final String ARCHIVED_FILTER_NOT_SUPPORTED = "Filtering is not supported for archived todos";
+            public static final String ARCHIVED_CURSOR_NOT_SUPPORTED = "Cursor based pagination is not supported for archived todos";
+            public static final String UNSUPPORTED_EXPORT_FORMAT = "Exporting is supported only as " + Export.NDJSON + " or " + Export.CSV;
         }
     }
 }
@@ -0,0 +1,112 @@
+package com.example.todo.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The primary {@link DataSource} of the first shard is configured by the spring.datasource properties, the same as spring boot
+ * would, and its replicas by the TODO_DATASOURCE_REPLICA_URLS environment variable. The other shards, with their replicas,
+ * are configured by the TODO_DATASOURCE_SHARD_URLS environment variable. They all have the same credentials and pool settings.
+ * The {@link DataSource} used by the application routes between the shards with {@link ShardRoutingDataSource}, and between
+ * the primary and the replicas of a shard with {@link ReplicaRoutingDataSource}.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+    private EnvironmentValues environmentValues;
+
+    @Autowired
+    public void setEnvironmentValues(EnvironmentValues environmentValues) {
+        this.environmentValues = environmentValues;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Creates a data source with the same settings as the primary data source of the first shard, but the given url.
+     */
+    private HikariDataSource copyOf(HikariDataSource primaryDataSource, String url, String poolName) {
+
+        HikariDataSource copy = new HikariDataSource();
+        primaryDataSource.copyStateTo(copy);
+        copy.setJdbcUrl(url.trim());
+        copy.setPoolName(poolName);
+
+        return copy;
+    }
+
+    /**
+     * Creates the {@link ReplicaRoutingDataSource} of a shard.
+     */
+    private DataSource shardOf(HikariDataSource primary, List<String> replicaUrls, int shard) {
+
+        List<DataSource> replicas = new ArrayList<>();
+
+        for (String url : replicaUrls) {
+
+            HikariDataSource replica = copyOf(primary, url, ConstantValues.DataSource.SHARD_PREFIX + shard + "-" + ConstantValues.DataSource.REPLICA_PREFIX + replicas.size());
+            replica.setReadOnly(true);
+
+            replicas.add(replica);
+        }
+        logger.info("Configured shard: {} with {} replica data sources", shard, replicas.size());
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primary,
+                replicas,
+                environmentValues.TODO_DATASOURCE_READ_YOUR_WRITES_WINDOW_IN_SECONDS
+        );
+        routing.afterPropertiesSet();
+
+        return routing;
+    }
+
+    @Bean
+    public ShardDirectory shardDirectory(HikariDataSource primaryDataSource) {
+
+        List<DataSource> primaries = new ArrayList<>(List.of(primaryDataSource));
+
+        for (String shard : environmentValues.TODO_DATASOURCE_SHARD_URLS)
+            primaries.add(copyOf(primaryDataSource, shard.split("\\|")[0], ConstantValues.DataSource.SHARD_PREFIX + primaries.size()));
+
+        ConsistentHashRing ring = new ConsistentHashRing(environmentValues.TODO_DATASOURCE_SHARD_RING_SIZE, ConstantValues.DataSource.SHARD_VIRTUAL_NODES);
+        logger.info("Configured {} shards, of which {} are on the hash ring", primaries.size(), ring.size());
+
+        return new ShardDirectory(primaries, ring, environmentValues.TODO_DATASOURCE_SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDirectory shardDirectory) {
+
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(shardOf((HikariDataSource) shardDirectory.getPrimary(0), environmentValues.TODO_DATASOURCE_REPLICA_URLS, 0));
+
+        for (int i = 1; i < shardDirectory.getShardCount(); i++) {
+            List<String> urls = Arrays.asList(environmentValues.TODO_DATASOURCE_SHARD_URLS.get(i - 1).split("\\|"));
+            shards.add(shardOf((HikariDataSource) shardDirectory.getPrimary(i), urls.subList(1, urls.size()), i));
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shards, shardDirectory);
+        routing.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
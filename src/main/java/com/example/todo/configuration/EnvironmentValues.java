@@ -20,6 +20,27 @@ public class EnvironmentValues {
     public final long TODO_JWT_EXPIRATION_TIME_IN_SECONDS;
     public final List<String> TODO_USER_ROLES;
     public final Key TODO_JWT_SIGNING_KEY;
+    public final List<String> TODO_DATASOURCE_REPLICA_URLS;
+    public final long TODO_DATASOURCE_READ_YOUR_WRITES_WINDOW_IN_SECONDS;
+    public final List<String> TODO_DATASOURCE_SHARD_URLS;
+    public final int TODO_DATASOURCE_SHARD_RING_SIZE;
+    public final Integer TODO_DATASOURCE_RESHARD_TO_RING_SIZE;
+    public final long TODO_DATASOURCE_SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS;
+    public final int TODO_JWT_REVOCATION_STORE_MAX_SIZE;
+    public final long TODO_JWT_REFRESH_EXPIRATION_TIME_IN_SECONDS;
+    public final long TODO_JWT_GENERATION_CACHE_TTL_IN_MILLIS;
+    public final int TODO_PASSWORD_ENCODER_STRENGTH;
+    public final int TODO_PASSWORD_HASHING_THREADS;
+    public final int TODO_PASSWORD_HASHING_QUEUE_SIZE;
+    public final int TODO_RATE_LIMIT_AUTH_USERNAME_PER_MINUTE;
+    public final int TODO_RATE_LIMIT_AUTH_ADDRESS_PER_MINUTE;
+    public final int TODO_RATE_LIMIT_WRITE_USERNAME_PER_MINUTE;
+    public final int TODO_RATE_LIMIT_WRITE_ADDRESS_PER_MINUTE;
+    public final int TODO_RATE_LIMIT_MAX_BUCKETS;
+    public final double TODO_LOG_INFO_SAMPLE_RATE;
+    public final long TODO_ARCHIVE_AGE_IN_DAYS;
+    public final int TODO_ARCHIVE_CHUNK_SIZE;
+    public final long TODO_ARCHIVE_THROTTLE_IN_MILLIS;
 
     @Autowired
     public EnvironmentValues(Environment environment) {
@@ -29,5 +50,95 @@ public class EnvironmentValues {
         TODO_JWT_EXPIRATION_TIME_IN_SECONDS = Long.parseLong(environment.getProperty("TODO_JWT_EXPIRATION_TIME_IN_SECONDS"));
         TODO_USER_ROLES = Arrays.asList(environment.getProperty("TODO_USER_ROLES").split(":"));
         TODO_JWT_SIGNING_KEY = Keys.hmacShaKeyFor(environment.getProperty("TODO_JWT_SIGNING_KEY").getBytes());
+
+        // Optional. The maximum number of revoked tokens remembered until they expire
+        String revocationStoreMaxSize = environment.getProperty("TODO_JWT_REVOCATION_STORE_MAX_SIZE", "");
+        TODO_JWT_REVOCATION_STORE_MAX_SIZE = revocationStoreMaxSize.isBlank()
+                ? ConstantValues.Jwt.REVOCATION_STORE_MAX_SIZE
+                : Integer.parseInt(revocationStoreMaxSize);
+
+        // Optional. The refresh tokens live longer than the access ones, whose lifetime should be short, as they are
+        // revoked in bulk by the token generation of their user rather than one by one
+        String refreshExpirationTime = environment.getProperty("TODO_JWT_REFRESH_EXPIRATION_TIME_IN_SECONDS", "");
+        TODO_JWT_REFRESH_EXPIRATION_TIME_IN_SECONDS = refreshExpirationTime.isBlank()
+                ? ConstantValues.Jwt.REFRESH_EXPIRATION_TIME_IN_SECONDS
+                : Long.parseLong(refreshExpirationTime);
+        String generationCacheTtl = environment.getProperty("TODO_JWT_GENERATION_CACHE_TTL_IN_MILLIS", "");
+        TODO_JWT_GENERATION_CACHE_TTL_IN_MILLIS = generationCacheTtl.isBlank()
+                ? ConstantValues.Jwt.GENERATION_CACHE_TTL_IN_MILLIS
+                : Long.parseLong(generationCacheTtl);
+
+        // Optional. The log rounds of bcrypt, and the threads and the queue the hashing is bounded to
+        String passwordEncoderStrength = environment.getProperty("TODO_PASSWORD_ENCODER_STRENGTH", "");
+        TODO_PASSWORD_ENCODER_STRENGTH = passwordEncoderStrength.isBlank()
+                ? ConstantValues.User.PASSWORD_ENCODER_STRENGTH
+                : Integer.parseInt(passwordEncoderStrength);
+        String passwordHashingThreads = environment.getProperty("TODO_PASSWORD_HASHING_THREADS", "");
+        TODO_PASSWORD_HASHING_THREADS = passwordHashingThreads.isBlank()
+                ? Runtime.getRuntime().availableProcessors()
+                : Integer.parseInt(passwordHashingThreads);
+        String passwordHashingQueueSize = environment.getProperty("TODO_PASSWORD_HASHING_QUEUE_SIZE", "");
+        TODO_PASSWORD_HASHING_QUEUE_SIZE = passwordHashingQueueSize.isBlank()
+                ? ConstantValues.User.PASSWORD_HASHING_QUEUE_SIZE
+                : Integer.parseInt(passwordHashingQueueSize);
+
+        // Optional. The requests per minute of a username and of a client address to the authentication and to the write
+        // endpoints, where 0 disables the limit, and the number of buckets kept for them
+        String authUsernameRate = environment.getProperty("TODO_RATE_LIMIT_AUTH_USERNAME_PER_MINUTE", "");
+        TODO_RATE_LIMIT_AUTH_USERNAME_PER_MINUTE = authUsernameRate.isBlank()
+                ? ConstantValues.RateLimit.AUTH_USERNAME_PER_MINUTE
+                : Integer.parseInt(authUsernameRate);
+        String authAddressRate = environment.getProperty("TODO_RATE_LIMIT_AUTH_ADDRESS_PER_MINUTE", "");
+        TODO_RATE_LIMIT_AUTH_ADDRESS_PER_MINUTE = authAddressRate.isBlank()
+                ? ConstantValues.RateLimit.AUTH_ADDRESS_PER_MINUTE
+                : Integer.parseInt(authAddressRate);
+        String writeUsernameRate = environment.getProperty("TODO_RATE_LIMIT_WRITE_USERNAME_PER_MINUTE", "");
+        TODO_RATE_LIMIT_WRITE_USERNAME_PER_MINUTE = writeUsernameRate.isBlank()
+                ? ConstantValues.RateLimit.WRITE_USERNAME_PER_MINUTE
+                : Integer.parseInt(writeUsernameRate);
+        String writeAddressRate = environment.getProperty("TODO_RATE_LIMIT_WRITE_ADDRESS_PER_MINUTE", "");
+        TODO_RATE_LIMIT_WRITE_ADDRESS_PER_MINUTE = writeAddressRate.isBlank()
+                ? ConstantValues.RateLimit.WRITE_ADDRESS_PER_MINUTE
+                : Integer.parseInt(writeAddressRate);
+        String rateLimitMaxBuckets = environment.getProperty("TODO_RATE_LIMIT_MAX_BUCKETS", "");
+        TODO_RATE_LIMIT_MAX_BUCKETS = rateLimitMaxBuckets.isBlank()
+                ? ConstantValues.RateLimit.MAX_BUCKETS
+                : Integer.parseInt(rateLimitMaxBuckets);
+
+        // Optional. The fraction of the requests whose info logs of the application are kept, where 1 keeps all of them
+        String logInfoSampleRate = environment.getProperty("TODO_LOG_INFO_SAMPLE_RATE", "");
+        TODO_LOG_INFO_SAMPLE_RATE = logInfoSampleRate.isBlank()
+                ? ConstantValues.Logging.INFO_SAMPLE_RATE
+                : Double.parseDouble(logInfoSampleRate);
+
+        // Optional. The urls are separated by ',' as jdbc urls contain ':'
+        String replicaUrls = environment.getProperty("TODO_DATASOURCE_REPLICA_URLS", "");
+        TODO_DATASOURCE_REPLICA_URLS = replicaUrls.isBlank() ? List.of() : Arrays.asList(replicaUrls.split(","));
+        String readYourWritesWindow = environment.getProperty("TODO_DATASOURCE_READ_YOUR_WRITES_WINDOW_IN_SECONDS", "");
+        TODO_DATASOURCE_READ_YOUR_WRITES_WINDOW_IN_SECONDS = readYourWritesWindow.isBlank()
+                ? ConstantValues.DataSource.READ_YOUR_WRITES_WINDOW_IN_SECONDS
+                : Long.parseLong(readYourWritesWindow);
+
+        // Optional. The shards after the first one, which is spring.datasource.url. A shard is its primary url optionally
+        // followed by its replica urls, separated by '|'
+        String shardUrls = environment.getProperty("TODO_DATASOURCE_SHARD_URLS", "");
+        TODO_DATASOURCE_SHARD_URLS = shardUrls.isBlank() ? List.of() : Arrays.asList(shardUrls.split(","));
+        String ringSize = environment.getProperty("TODO_DATASOURCE_SHARD_RING_SIZE", "");
+        TODO_DATASOURCE_SHARD_RING_SIZE = ringSize.isBlank() ? TODO_DATASOURCE_SHARD_URLS.size() + 1 : Integer.parseInt(ringSize);
+        String reshardToRingSize = environment.getProperty("TODO_DATASOURCE_RESHARD_TO_RING_SIZE", "");
+        TODO_DATASOURCE_RESHARD_TO_RING_SIZE = reshardToRingSize.isBlank() ? null : Integer.parseInt(reshardToRingSize);
+        String shardDirectoryRefreshInterval = environment.getProperty("TODO_DATASOURCE_SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS", "");
+        TODO_DATASOURCE_SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS = shardDirectoryRefreshInterval.isBlank()
+                ? ConstantValues.DataSource.SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS
+                : Long.parseLong(shardDirectoryRefreshInterval);
+
+        // Optional. The completed todos that haven't been updated for the age are archived, a chunk per transaction,
+        // pausing for the throttle between the chunks
+        String archiveAge = environment.getProperty("TODO_ARCHIVE_AGE_IN_DAYS", "");
+        TODO_ARCHIVE_AGE_IN_DAYS = archiveAge.isBlank() ? ConstantValues.Todo.Archive.AGE_IN_DAYS : Long.parseLong(archiveAge);
+        String archiveChunkSize = environment.getProperty("TODO_ARCHIVE_CHUNK_SIZE", "");
+        TODO_ARCHIVE_CHUNK_SIZE = archiveChunkSize.isBlank() ? ConstantValues.Todo.Archive.CHUNK_SIZE : Integer.parseInt(archiveChunkSize);
+        String archiveThrottle = environment.getProperty("TODO_ARCHIVE_THROTTLE_IN_MILLIS", "");
+        TODO_ARCHIVE_THROTTLE_IN_MILLIS = archiveThrottle.isBlank() ? ConstantValues.Todo.Archive.THROTTLE_IN_MILLIS : Long.parseLong(archiveThrottle);
     }
 }
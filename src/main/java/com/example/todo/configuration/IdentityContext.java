@@ -0,0 +1,42 @@
+package com.example.todo.configuration;
+
+import com.example.todo.web.filter.JwtFilter;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The identity of the authenticated user of the current request, populated by {@link JwtFilter} from the verified
+ * token, so that the user doesn't need to be loaded from the database to know who it is. It also remembers if the user
+ * has been verified to exist in the database during the request, so that it's checked at most once per request.
+ * <br>
+ * <br>
+ * It's request scoped, so it can only be used while serving a request.
+ */
+@Component
+@RequestScope
+@Getter
+@Setter
+@Accessors(chain = true)
+@ToString(exclude = "token")
+public class IdentityContext {
+
+    private String username;
+    private Collection<? extends GrantedAuthority> authorities = List.of();
+    private String token;
+    private boolean userVerified;
+
+    /**
+     * @return True if the user with the given username is the user of the request and has been verified to exist in
+     * the database during the request, false otherwise.
+     */
+    public boolean isUserVerified(String username) {
+        return userVerified && username != null && username.equals(this.username);
+    }
+}
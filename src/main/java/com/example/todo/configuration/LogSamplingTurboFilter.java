@@ -0,0 +1,28 @@
+package com.example.todo.configuration;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.example.todo.web.filter.LogSamplingFilter;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * A logback {@link TurboFilter} that drops the info logs of the application made by the requests that were not sampled
+ * by {@link LogSamplingFilter}. It's consulted before a log is formatted, and by the level checks like isInfoEnabled,
+ * so a dropped log costs neither its formatting nor its writing. The warnings and the errors are always kept, and so are
+ * the logs made outside the requests, like at the startup or by the scheduled tasks. It's configured in logback-spring.xml.
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+
+        // Called for every log, so the level is checked first, which rules out most of them
+        if (level != Level.INFO) return FilterReply.NEUTRAL;
+        if (!"false".equals(MDC.get(ConstantValues.Logging.MDC_INFO_SAMPLED))) return FilterReply.NEUTRAL;
+
+        return logger.getName().startsWith(ConstantValues.Logging.SAMPLED_LOGGER_PREFIX) ? FilterReply.DENY : FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.todo.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link DataSource} that routes the read-only transactions to the replicas, in a round-robin manner, and everything
+ * else to the primary. The read-only transactions of a user are routed to the primary as well for a window of time after
+ * a read-write transaction of the same user, so that the user always reads their own writes, irrespective of the replication lag.
+ * The user is the one of the {@link ShardContext}. The times of the last writes are swept once per window, so only the users
+ * that have written within about two windows are kept.
+ * <br>
+ * <br>
+ * The lookup key is determined when a connection is acquired, so it needs to be wrapped in a {@link LazyConnectionDataSourceProxy},
+ * which defers that until the first statement of a transaction, after the transaction's read-only flag has been set.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private final List<String> replicas;
+    private final long readYourWritesWindowInMillis;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long readYourWritesWindowInSeconds) {
+
+        Map<Object, Object> targets = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        targets.put(ConstantValues.DataSource.PRIMARY, primary);
+
+        for (int i = 0; i < replicas.size(); i++) {
+            keys.add(ConstantValues.DataSource.REPLICA_PREFIX + i);
+            targets.put(keys.get(i), replicas.get(i));
+        }
+
+        this.replicas = List.copyOf(keys);
+        this.readYourWritesWindowInMillis = readYourWritesWindowInSeconds * 1000;
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * @return True if the user has had a read-write transaction within the read-your-writes window, false otherwise.
+     */
+    private boolean hasRecentlyWritten(String username) {
+
+        Long lastWrite = lastWrites.get(username);
+
+        if (lastWrite == null) return false;
+        if (System.currentTimeMillis() - lastWrite < readYourWritesWindowInMillis) return true;
+
+        lastWrites.remove(username, lastWrite);
+        return false;
+    }
+
+    /**
+     * Keeps the time of the last write of a user, and removes the ones out of the window, if they haven't been swept within it.
+     */
+    private void recordWrite(String username) {
+
+        long now = System.currentTimeMillis();
+        lastWrites.put(username, now);
+
+        long sweepAt = nextSweepAt.get();
+
+        // By one transaction at a time, as the users that don't read again are never removed by hasRecentlyWritten
+        if (now >= sweepAt && nextSweepAt.compareAndSet(sweepAt, now + readYourWritesWindowInMillis)) {
+            lastWrites.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesWindowInMillis);
+            logger.debug("Swept the last writes. Remaining users: {}", lastWrites.size());
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+
+        String username = ShardContext.currentUsername();
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+
+        if (!readOnly && username != null && !replicas.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+
+            // The window starts when the transaction completes, as that's when the write becomes visible to the replicas
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    recordWrite(username);
+                }
+            });
+        }
+
+        if (!readOnly || replicas.isEmpty() || (username != null && hasRecentlyWritten(username))) {
+            logger.debug("Routing to the primary data source. Read only: {}, username: {}", readOnly, username);
+            return ConstantValues.DataSource.PRIMARY;
+        }
+
+        String replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+        logger.debug("Routing to the replica data source: {}, username: {}", replica, username);
+
+        return replica;
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.todo.configuration;
 
 import com.example.todo.exception.NotFoundException;
-import com.example.todo.model.Role;
+import com.example.todo.exception.ServiceUnavailableException;
+import com.example.todo.model.UserPrincipal;
 import com.example.todo.web.filter.JwtFilter;
+import com.example.todo.web.filter.RateLimitFilter;
+import com.example.todo.web.filter.ShardMigrationFilter;
 import com.example.todo.model.User;
 import com.example.todo.service.UserService;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -13,17 +17,22 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.logout.LogoutFilter;
@@ -51,9 +60,45 @@ public class SecurityConfig {
         this.environmentValues = environmentValues;
     }
 
+    /**
+     * A bcrypt encoder of the configured strength, which runs on a bounded executor, see {@link BoundedPasswordEncoder}.
+     * A bcrypt hash records the strength it was made with, and the encoder reports the hashes of a lower strength as
+     * needing an upgrade, which {@link #daoAuthenticationProvider} does on a successful login.
+     */
     @Bean
-    public static PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public static BoundedPasswordEncoder passwordEncoder(EnvironmentValues environmentValues) {
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(environmentValues.TODO_PASSWORD_ENCODER_STRENGTH),
+                environmentValues.TODO_PASSWORD_HASHING_THREADS,
+                environmentValues.TODO_PASSWORD_HASHING_QUEUE_SIZE
+        );
+    }
+
+    /**
+     * The provider that authenticates the logins, with {@link #userDetailsService()} and {@link #userDetailsPasswordService()}.
+     * A login that can't be served as the password hashing is busy is failed with an {@link InternalAuthenticationServiceException}
+     * caused by the {@link ServiceUnavailableException}, which {@link #loginEntryPoint()} responds to.
+     */
+    @Bean
+    public DaoAuthenticationProvider daoAuthenticationProvider(PasswordEncoder passwordEncoder) {
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                try {
+                    return super.authenticate(authentication);
+                }
+                catch (ServiceUnavailableException e) {
+                    throw new InternalAuthenticationServiceException(e.getMessage(), e);
+                }
+            }
+        };
+
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsService(userDetailsService());
+        provider.setUserDetailsPasswordService(userDetailsPasswordService());
+
+        return provider;
     }
 
     @Bean
@@ -73,7 +118,7 @@ public class SecurityConfig {
             public void onLogoutSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException, ServletException {
 
                 jwtFilter.blacklistJwtInRequestAttribute(request);
-                logger.info("JWT token blacklisted at request url: {}", request.getRequestURL());
+                logger.info("JWT token blacklisted at request uri: {}", request.getRequestURI());
             }
         };
     }
@@ -98,22 +143,46 @@ public class SecurityConfig {
         return new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED);
     }
 
+    /**
+     * Responds to a failed login with {@link HttpStatus#SERVICE_UNAVAILABLE} if the password hashing was busy, or else
+     * with {@link #unauthorizedEntryPoint()}.
+     */
+    private AuthenticationEntryPoint loginEntryPoint() {
+
+        return (request, response, exception) -> {
+
+            if (exception.getCause() instanceof ServiceUnavailableException cause) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(cause.getRetryAfterInSeconds()));
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                return;
+            }
+
+            unauthorizedEntryPoint().commence(request, response, exception);
+        };
+    }
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, JwtFilter jwtFilter) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtFilter jwtFilter, RateLimitFilter rateLimitFilter, ShardMigrationFilter shardMigrationFilter) throws Exception {
 
         return http
                 .authorizeHttpRequests(req -> req
+                        // Completes a streamed response, like an export, whose request has been authorized already
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC)
+                        .permitAll()
                         .requestMatchers(
                                 ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/users",
-                                ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/auth/login"
+                                ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/auth/login",
+                                ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/auth/refresh"
                         )
                         .permitAll()
                         .anyRequest()
                         .authenticated()
                 )
                 .addFilterBefore(jwtFilter, LogoutFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtFilter.class)
+                .addFilterAfter(shardMigrationFilter, RateLimitFilter.class)
                 .formLogin(AbstractHttpConfigurer::disable)
-                .httpBasic(basic -> basic.authenticationEntryPoint(unauthorizedEntryPoint()))
+                .httpBasic(basic -> basic.authenticationEntryPoint(loginEntryPoint()))
                 .logout(logout -> logout
                         .logoutSuccessHandler(logoutSuccessHandler())
                         .logoutUrl(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/auth/logout")
@@ -138,14 +207,11 @@ public class SecurityConfig {
 
                 try {
 
-                    User user = userService.findUser(username);
+                    // The user is not authenticated yet, so the shard of the user is set explicitly
+                    User user = ShardContext.callAs(username, () -> userService.findUser(username));
                     logger.debug("Found user with username: {}", user.getUsername());
 
-                    UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
-                            .username(user.getUsername())
-                            .password(user.getPassword())
-                            .roles(user.getRoles().stream().map(Role::getName).toArray(String[]::new))
-                            .build();
+                    UserDetails userDetails = new UserPrincipal(user);
                     logger.info("Created UserDetails: {}", userDetails);
 
                     return userDetails;
@@ -156,4 +222,28 @@ public class SecurityConfig {
             }
         };
     }
+
+    /**
+     * Stores the new hash of the password of a user, made on a successful login as the stored one needed an upgrade.
+     */
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+
+        return new UserDetailsPasswordService() {
+
+            private final Logger logger = LoggerFactory.getLogger(UserDetailsPasswordService.class);
+
+            @Override
+            public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+
+                logger.debug("Parameter:: userDetails: {}", userDetails);
+
+                // The user is not authenticated yet, so the shard of the user is set explicitly
+                User user = ShardContext.callAs(userDetails.getUsername(), () -> userService.rehashPassword(userDetails.getUsername(), newPassword));
+                logger.info("Upgraded the password hash of user with username: {}", user.getUsername());
+
+                return new UserPrincipal(user);
+            }
+        };
+    }
 }
@@ -0,0 +1,86 @@
+package com.example.todo.configuration;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.util.function.Supplier;
+
+/**
+ * Holds the user, or the shard, that the database work of the current thread belongs to, which is used by
+ * {@link ShardRoutingDataSource} and {@link ReplicaRoutingDataSource} to route the connections. By default it's the
+ * authenticated user of the current thread. The work that happens before a user is authenticated, like signing up or
+ * logging in, and the work that is not done for a user, like the maintenance tasks, needs to set it explicitly.
+ * <br>
+ * <br>
+ * The connections are routed when they are acquired, i.e. at the first statement of a transaction, so it needs to
+ * be set before that and must not change until the transaction ends.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> username = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> shard = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Runs the supplier with the given username as the user of the current thread.
+     * @param username The username
+     * @param supplier The work to be done for the user
+     * @return The result of the supplier
+     */
+    public static <T> T callAs(String username, Supplier<T> supplier) {
+
+        String previous = ShardContext.username.get();
+        ShardContext.username.set(username);
+
+        try {
+            return supplier.get();
+        }
+        finally {
+            ShardContext.username.set(previous);
+        }
+    }
+
+    /**
+     * Runs the supplier on the given shard, irrespective of the user of the current thread.
+     * @param shard The index of the shard
+     * @param supplier The work to be done on the shard
+     * @return The result of the supplier
+     */
+    public static <T> T callOnShard(int shard, Supplier<T> supplier) {
+
+        Integer previous = ShardContext.shard.get();
+        ShardContext.shard.set(shard);
+
+        try {
+            return supplier.get();
+        }
+        finally {
+            ShardContext.shard.set(previous);
+        }
+    }
+
+    /**
+     * @return The username set by {@link #callAs(String, Supplier)}, or else the username of the authenticated user
+     * of the current thread, or null if there is none.
+     */
+    public static String currentUsername() {
+
+        if (username.get() != null) return username.get();
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken || !authentication.isAuthenticated())
+            return null;
+
+        return authentication.getName();
+    }
+
+    /**
+     * @return The shard set by {@link #callOnShard(int, Supplier)}, or null if there is none.
+     */
+    public static Integer currentShard() {
+        return shard.get();
+    }
+}
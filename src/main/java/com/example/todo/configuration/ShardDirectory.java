@@ -0,0 +1,213 @@
+package com.example.todo.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Knows which shard the data of a user is in. It's the shard that the username is placed at on the {@link ConsistentHashRing},
+ * unless the user has been migrated to another shard, in which case it's recorded in the user_shards table of the first shard.
+ * That table also marks the users that are being migrated, whose data must not be written to meanwhile by any instance.
+ * <br>
+ * <br>
+ * Every instance keeps the whole table in memory, reloaded every TODO_DATASOURCE_SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS,
+ * so routing a connection never needs a query. A change made by another instance is noticed within {@link #getPropagationDelayInMillis()},
+ * and a change made by this instance immediately. The users that are back in the shard of the ring are not kept.
+ */
+public class ShardDirectory {
+
+    private final Logger logger = LoggerFactory.getLogger(ShardDirectory.class);
+    private final List<DataSource> primaries;
+    private final ConsistentHashRing ring;
+    private final JdbcTemplate directory;
+    private final long refreshIntervalInMillis;
+    private volatile Map<String, Assignment> assignments;
+
+    private record Assignment(int shard, boolean migrating) {
+    }
+
+    /**
+     * @param primaries The primary data sources of the shards
+     * @param ring The ring, the size of which can be less than the number of shards, in which case the shards
+     *             after it only have the users that have been migrated to them
+     * @param refreshIntervalInMillis The interval the user_shards table is reloaded at
+     */
+    public ShardDirectory(List<DataSource> primaries, ConsistentHashRing ring, long refreshIntervalInMillis) {
+
+        if (ring.size() > primaries.size()) throw new IllegalArgumentException(ConstantValues.DataSource.Error.SHARD_IS_INVALID);
+
+        this.primaries = List.copyOf(primaries);
+        this.ring = ring;
+        this.directory = new JdbcTemplate(primaries.get(0));
+        this.refreshIntervalInMillis = refreshIntervalInMillis;
+    }
+
+    /**
+     * @return The assignments of the user_shards table, loaded the first time they are needed, after which they are
+     * only reloaded in the background.
+     */
+    private Map<String, Assignment> assignments() {
+
+        Map<String, Assignment> current = assignments;
+        if (current != null) return current;
+
+        refresh();
+        return assignments;
+    }
+
+    /**
+     * Reloads the user_shards table. It's synchronized with the changes of this instance, so a change is either in the
+     * table when it's read, or applied to the reloaded assignments afterwards.
+     */
+    @Scheduled(
+            fixedDelayString = "${TODO_DATASOURCE_SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS:5000}",
+            initialDelayString = "${TODO_DATASOURCE_SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS:5000}"
+    )
+    public synchronized void refresh() {
+
+        if (primaries.size() == 1) return;
+
+        Map<String, Assignment> loaded = new ConcurrentHashMap<>();
+
+        directory.query("SELECT username, shard, migrating FROM " + ConstantValues.DataSource.SHARD_DIRECTORY_TABLE, row -> {
+
+            String username = row.getString("username");
+            Assignment assignment = new Assignment(row.getInt("shard"), row.getBoolean("migrating"));
+
+            if (assignment.migrating() || assignment.shard() != ring.shardOf(username)) loaded.put(username, assignment);
+        });
+
+        assignments = loaded;
+        logger.debug("Reloaded the shard directory with {} users", loaded.size());
+    }
+
+    /**
+     * @param username The username
+     * @return The index of the shard that the data of the user is in
+     */
+    public int shardOf(String username) {
+
+        if (primaries.size() == 1) return 0;
+
+        Assignment assignment = assignments().get(username);
+        return assignment == null ? ring.shardOf(username) : assignment.shard();
+    }
+
+    /**
+     * @param username The username
+     * @return True if the user is being migrated, by any instance, false otherwise
+     */
+    public boolean isMigrating(String username) {
+
+        if (primaries.size() == 1) return false;
+
+        Assignment assignment = assignments().get(username);
+        return assignment != null && assignment.migrating();
+    }
+
+    /**
+     * Records the assignment of a user, in the table and in the assignments of this instance.
+     */
+    private synchronized void record(String username, Assignment assignment) {
+
+        String table = ConstantValues.DataSource.SHARD_DIRECTORY_TABLE;
+        Map<String, Assignment> current = assignments();
+
+        if (!assignment.migrating() && assignment.shard() == ring.shardOf(username)) {
+            directory.update("DELETE FROM " + table + " WHERE username = ?", username);
+            current.remove(username);
+            return;
+        }
+
+        if (directory.update("UPDATE " + table + " SET shard = ?, migrating = ? WHERE username = ?", assignment.shard(), assignment.migrating(), username) == 0)
+            directory.update("INSERT INTO " + table + " (username, shard, migrating) VALUES (?, ?, ?)", username, assignment.shard(), assignment.migrating());
+
+        current.put(username, assignment);
+    }
+
+    /**
+     * Records that the data of a user is in the given shard, and that it's not being migrated anymore. Should be called
+     * only after the data has been copied to it.
+     * @param username The username
+     * @param shard The index of the shard
+     */
+    public void assign(String username, int shard) {
+
+        if (shard < 0 || shard >= primaries.size()) throw new IllegalArgumentException(ConstantValues.DataSource.Error.SHARD_IS_INVALID);
+
+        record(username, new Assignment(shard, false));
+        logger.info("User with username: {} has been assigned to shard: {}", username, shard);
+    }
+
+    /**
+     * Marks a user as being migrated, or not, in its current shard. The writes of the user are rejected by every instance
+     * once they have noticed it, i.e. after {@link #getPropagationDelayInMillis()}.
+     * @param username The username
+     * @param migrating True while the user is being migrated, false afterwards
+     */
+    public void setMigrating(String username, boolean migrating) {
+
+        record(username, new Assignment(shardOf(username), migrating));
+        logger.info("User with username: {} has been marked as migrating: {}", username, migrating);
+    }
+
+    /**
+     * Marks a user as being migrated in its current shard, as recorded in the table, unless it's already being migrated
+     * by this or any other instance. The mark is taken with a single conditional write, so only one of the instances that
+     * try to mark a user at the same time succeeds. Like {@link #setMigrating(String, boolean)}, the writes of the user
+     * are rejected by every instance once they have noticed it.
+     * @param username The username
+     * @return True if the user has been marked, false if it's already being migrated
+     */
+    public synchronized boolean tryMarkMigrating(String username) {
+
+        String table = ConstantValues.DataSource.SHARD_DIRECTORY_TABLE;
+        Map<String, Assignment> current = assignments();
+
+        if (directory.update("UPDATE " + table + " SET migrating = ? WHERE username = ? AND migrating = ?", true, username, false) == 0) {
+            try {
+                // The users without a row are in the shard of the ring
+                directory.update("INSERT INTO " + table + " (username, shard, migrating) VALUES (?, ?, ?)", username, ring.shardOf(username), true);
+            }
+            catch (DuplicateKeyException e) {
+                logger.info("User with username: {} is already being migrated", username);
+                return false;
+            }
+        }
+
+        // The shard is read back, as the assignments of this instance may not have noticed a migration of another one yet
+        current.put(username, new Assignment(directory.queryForObject("SELECT shard FROM " + table + " WHERE username = ?", Integer.class, username), true));
+        logger.info("User with username: {} has been marked as migrating: {}", username, true);
+
+        return true;
+    }
+
+    /**
+     * @param shard The index of the shard
+     * @return The primary data source of the shard
+     */
+    public DataSource getPrimary(int shard) {
+        return primaries.get(shard);
+    }
+
+    /**
+     * @return The number of shards
+     */
+    public int getShardCount() {
+        return primaries.size();
+    }
+
+    /**
+     * @return The time it takes for a change of the user_shards table to be noticed by every instance, which is twice
+     * the refresh interval, so a reload that started before the change has finished as well
+     */
+    public long getPropagationDelayInMillis() {
+        return 2 * refreshIntervalInMillis;
+    }
+}
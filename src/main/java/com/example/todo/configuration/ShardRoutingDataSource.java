@@ -0,0 +1,67 @@
+package com.example.todo.configuration;
+
+import com.example.todo.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DataSource} that routes to the shard that the data of the user of the {@link ShardContext} is in, as known by
+ * the {@link ShardDirectory}, or to the shard set in the {@link ShardContext}. The work without a user goes to the first shard.
+ * The writes of a user that is being migrated are rejected before their transactions by the ShardMigrationFilter, and
+ * the ones that have passed it before the migration started are rejected here with {@link ServiceUnavailableException}.
+ * <br>
+ * <br>
+ * Like {@link ReplicaRoutingDataSource}, it needs to be wrapped in a {@link LazyConnectionDataSourceProxy}.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Logger logger = LoggerFactory.getLogger(ShardRoutingDataSource.class);
+    private final ShardDirectory shardDirectory;
+
+    /**
+     * @param shards The data sources of the shards, in the order of their indexes
+     * @param shardDirectory The directory of the shards
+     */
+    public ShardRoutingDataSource(List<DataSource> shards, ShardDirectory shardDirectory) {
+
+        Map<Object, Object> targets = new HashMap<>();
+
+        for (int i = 0; i < shards.size(); i++)
+            targets.put(i, shards.get(i));
+
+        this.shardDirectory = shardDirectory;
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+
+        Integer shard = ShardContext.currentShard();
+
+        if (shard != null) {
+            logger.debug("Routing to the shard: {} of the shard context", shard);
+            return shard;
+        }
+
+        String username = ShardContext.currentUsername();
+
+        if (username == null) return 0;
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() && shardDirectory.isMigrating(username))
+            throw new ServiceUnavailableException(ConstantValues.DataSource.Error.USER_IS_BEING_MIGRATED, ConstantValues.DataSource.SHARD_MIGRATION_RETRY_AFTER_IN_SECONDS);
+
+        shard = shardDirectory.shardOf(username);
+        logger.debug("Routing to the shard: {} of username: {}", shard, username);
+
+        return shard;
+    }
+}
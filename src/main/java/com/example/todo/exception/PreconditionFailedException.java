@@ -0,0 +1,27 @@
+package com.example.todo.exception;
+
+/**
+ * An exception that is thrown when a precondition of a conditional request, like the version of an object, does not hold
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException() {
+        super();
+    }
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+    public PreconditionFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public PreconditionFailedException(Throwable cause) {
+        super(cause);
+    }
+
+    protected PreconditionFailedException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
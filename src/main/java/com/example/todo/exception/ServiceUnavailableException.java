@@ -0,0 +1,38 @@
+package com.example.todo.exception;
+
+import lombok.Getter;
+
+/**
+ * An exception that is thrown when a request can not be served temporarily, like when the data of a user is being migrated, and can be retried later,
+ * after the number of seconds that it carries
+ */
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterInSeconds;
+
+    public ServiceUnavailableException(long retryAfterInSeconds) {
+        super();
+        this.retryAfterInSeconds = retryAfterInSeconds;
+    }
+
+    public ServiceUnavailableException(String message, long retryAfterInSeconds) {
+        super(message);
+        this.retryAfterInSeconds = retryAfterInSeconds;
+    }
+
+    public ServiceUnavailableException(String message, long retryAfterInSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterInSeconds = retryAfterInSeconds;
+    }
+
+    public ServiceUnavailableException(long retryAfterInSeconds, Throwable cause) {
+        super(cause);
+        this.retryAfterInSeconds = retryAfterInSeconds;
+    }
+
+    protected ServiceUnavailableException(String message, long retryAfterInSeconds, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+        this.retryAfterInSeconds = retryAfterInSeconds;
+    }
+}
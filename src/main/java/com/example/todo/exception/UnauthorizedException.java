@@ -0,0 +1,27 @@
+package com.example.todo.exception;
+
+/**
+ * An exception that is thrown when the credentials of a request, like a refresh token, are invalid, expired or revoked
+ */
+public class UnauthorizedException extends RuntimeException {
+
+    public UnauthorizedException() {
+        super();
+    }
+
+    public UnauthorizedException(String message) {
+        super(message);
+    }
+
+    public UnauthorizedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public UnauthorizedException(Throwable cause) {
+        super(cause);
+    }
+
+    protected UnauthorizedException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
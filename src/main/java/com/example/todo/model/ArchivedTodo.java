@@ -0,0 +1,66 @@
+package com.example.todo.model;
+
+import com.example.todo.configuration.ConstantValues;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A completed {@link Todo} that has been moved out of the todos table, into the todos_archive table, by the archival job.
+ * It has the same columns as the todo, along with the time it has been archived at. The username is a plain column rather
+ * than a relation to the {@link User}, so the archived todos are deleted explicitly along with the user.
+ */
+@Entity
+@Table(
+        name = "todos_archive",
+        indexes = { // The completed field is always true here, so sorting by it is left out. See TodoArchiveServiceImpl
+                @Index(name = "idx_todos_archive_username_scheduled_at_id", columnList = "username, scheduled_at, id"),
+                @Index(name = "idx_todos_archive_username_created_at", columnList = "username, created_at")
+        }
+)
+@NoArgsConstructor(force = true)
+@Getter
+@Setter
+@Accessors(chain = true)
+@ToString
+public class ArchivedTodo {
+
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "id", length = 16)
+    private UUID id;
+
+    @Column(name = "username", length = ConstantValues.User.USERNAME_MAX_LENGTH, nullable = false)
+    private String username;
+
+    @Column(name = "title", length = ConstantValues.Todo.TITLE_MAX_LENGTH, nullable = false)
+    private String title;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "scheduled_at", nullable = false)
+    private LocalDateTime scheduledAt;
+
+    @Column(name = "completed", nullable = false)
+    private Boolean completed;
+
+    @Column(name = "description", length = ConstantValues.Todo.DESCRIPTION_MAX_LENGTH, nullable = false)
+    private String description;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,31 @@
+package com.example.todo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.Accessors;
+import java.time.LocalDateTime;
+
+/**
+ * A JWT token that has been revoked before it expires, by its id. It's kept in the first shard only, so that every
+ * node of the application sees the same revocations, and can be deleted once the token expires.
+ */
+@Entity
+@Table(
+        name = "revoked_tokens",
+        indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+)
+@NoArgsConstructor(force = true)
+@AllArgsConstructor
+@Getter
+@Setter
+@Accessors(chain = true)
+@ToString
+public class RevokedToken {
+
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
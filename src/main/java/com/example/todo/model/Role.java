@@ -6,9 +6,12 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "auth_roles")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY) // Roles are never updated
 @NoArgsConstructor(force = true)
 @Getter
 @Setter
@@ -2,9 +2,11 @@ package com.example.todo.model;
 
 import com.example.todo.annotation.BatchUpdatable;
 import com.example.todo.annotation.NullOrNotBlank;
+import com.example.todo.annotation.TimeOrderedUuid;
 import com.example.todo.configuration.ConstantValues;
 import com.example.todo.exception.ParseException;
 import com.example.todo.model.validation.ValidationGroup;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JacksonException;
 import com.fasterxml.jackson.core.JsonParser;
@@ -20,6 +22,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.hibernate.validator.constraints.Length;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +34,16 @@ import java.time.format.DateTimeParseException;
 import java.util.UUID;
 
 @Entity
-@Table(name = "todos")
+@Table(
+        name = "todos",
+        indexes = { // Any change here should be reflected in ConstantValues.Todo.INDEXED_SORTS and INDEXED_FILTERS
+                @Index(name = "idx_todos_username_scheduled_at_id", columnList = "username, scheduled_at, id"),
+                @Index(name = "idx_todos_username_completed_scheduled_at", columnList = "username, completed, scheduled_at"),
+                @Index(name = "idx_todos_username_created_at", columnList = "username, created_at"),
+                @Index(name = "idx_todos_username_updated_at", columnList = "username, updated_at"),
+                @Index(name = "idx_todos_completed_updated_at_id", columnList = "completed, updated_at, id") // For the archival, across the users
+        }
+)
 @NoArgsConstructor(force = true)
 @Getter
 @Setter
@@ -39,8 +52,9 @@ public class Todo {
 
     @JsonProperty(value = ConstantValues.Todo.Json.ID, access = JsonProperty.Access.READ_ONLY)
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @Column(name = "id")
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "id", length = 16)
     private UUID id;
 
     @JsonProperty(value = ConstantValues.Todo.Json.TITLE)
@@ -90,8 +104,13 @@ public class Todo {
     @Column(name = "description", length = ConstantValues.Todo.DESCRIPTION_MAX_LENGTH, nullable = false)
     private String description;
 
-    @JsonProperty(value = ConstantValues.Todo.Json.USER, access = JsonProperty.Access.READ_ONLY)
-    @ManyToOne
+    @JsonIgnore
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "username", nullable = false)
     User user;
 
@@ -0,0 +1,30 @@
+package com.example.todo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import java.util.List;
+
+/**
+ * The result of a single {@link Todo} of a batch request. It contains the HTTP status of the todo, along with
+ * either the todo view, if the operation succeeded, or the error messages, if it failed.
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TodoBatchResult {
+
+    @JsonProperty(value = "status")
+    private int status;
+
+    @JsonProperty(value = "todo")
+    private TodoView todo;
+
+    @JsonProperty(value = "messages")
+    private List<String> messages;
+}
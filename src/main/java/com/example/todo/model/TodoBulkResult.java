@@ -0,0 +1,18 @@
+package com.example.todo.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The result of a bulk operation on the {@link Todo}s, that are matched by a {@link TodoFilter}.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class TodoBulkResult {
+
+    @JsonProperty(value = "affected")
+    private final long affected;
+}
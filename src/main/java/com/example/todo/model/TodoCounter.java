@@ -0,0 +1,59 @@
+package com.example.todo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.Accessors;
+import java.time.LocalDateTime;
+
+/**
+ * The incrementally maintained count of the {@link Todo}s of a {@link User}. It's kept up to date by the todo
+ * create, update and delete operations and periodically reconciled against the todos table. It also holds a revision
+ * and the time of the last change of the todos of the user, which are changed by every such operation.
+ */
+@Entity
+@Table(name = "todo_counters")
+@NoArgsConstructor(force = true)
+@AllArgsConstructor
+@Getter
+@Setter
+@Accessors(chain = true)
+@ToString
+public class TodoCounter {
+
+    @Id
+    @Column(name = "username")
+    private String username;
+
+    @Column(name = "total", nullable = false)
+    private Long total;
+
+    @Column(name = "completed", nullable = false)
+    private Long completed;
+
+    @Column(name = "revision", nullable = false)
+    private Long revision;
+
+    @Column(name = "modified_at")
+    private LocalDateTime modifiedAt;
+
+    /**
+     * Creates a counter with the given counts, revision 0 and no modified at time, i.e. one whose todos haven't been changed yet.
+     */
+    public TodoCounter(String username, Long total, Long completed) {
+        this(username, total, completed, 0L, null);
+    }
+
+    /**
+     * @return The strong entity tag of the todos of the user, derived from the revision.
+     */
+    public String getETag() {
+        return "\"" + revision + "\"";
+    }
+
+    /**
+     * @return The count of the todos that are not completed.
+     */
+    public Long getPending() {
+        return total == null || completed == null ? null : total - completed;
+    }
+}
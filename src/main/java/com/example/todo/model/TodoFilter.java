@@ -0,0 +1,87 @@
+package com.example.todo.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of optional conditions to match the {@link Todo}s of a {@link User} with. A condition that is null is not applied.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+@Accessors(chain = true)
+@ToString
+public class TodoFilter {
+
+    private Boolean completed;
+
+    /**
+     * Exclusive upper bound of the scheduled at time.
+     */
+    private LocalDateTime scheduledBefore;
+
+    /**
+     * Exclusive lower bound of the scheduled at time.
+     */
+    private LocalDateTime scheduledAfter;
+
+    /**
+     * Inclusive lower bound of the scheduled at time.
+     */
+    private LocalDateTime scheduledFrom;
+
+    /**
+     * Inclusive upper bound of the scheduled at time.
+     */
+    private LocalDateTime scheduledTo;
+
+    /**
+     * Exclusive lower bound of the created at time.
+     */
+    private LocalDateTime createdAfter;
+
+    /**
+     * Exclusive lower bound of the updated at time.
+     */
+    private LocalDateTime updatedAfter;
+
+    /**
+     * @return True if none of the conditions are present, false otherwise.
+     */
+    public boolean isEmpty() {
+        return getProperties().isEmpty();
+    }
+
+    /**
+     * @return The properties (java variable field names) of the {@link Todo} that the present equality conditions are on.
+     */
+    public List<String> getEqualityProperties() {
+
+        List<String> properties = new ArrayList<>();
+
+        if (completed != null) properties.add("completed");
+
+        return properties;
+    }
+
+    /**
+     * @return The properties (java variable field names) of the {@link Todo} that the present conditions are on. The
+     * equality condition on the completed field comes first, followed by the properties of the range conditions.
+     */
+    public List<String> getProperties() {
+
+        List<String> properties = getEqualityProperties();
+
+        if (scheduledBefore != null || scheduledAfter != null || scheduledFrom != null || scheduledTo != null) properties.add("scheduledAt");
+        if (createdAfter != null) properties.add("createdAt");
+        if (updatedAfter != null) properties.add("updatedAt");
+
+        return properties;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.todo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The position of a {@link Todo} in the order of its updated at time and id, which is the order of the index the
+ * archivable todos are read by. The archival continues from the key of the last todo of the previous chunk.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class TodoKey {
+
+    private final LocalDateTime updatedAt;
+
+    private final UUID id;
+}
@@ -0,0 +1,70 @@
+package com.example.todo.model;
+
+import com.example.todo.configuration.ConstantValues;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An immutable, read only view of a {@link Todo}, containing only the columns of the todos table. It's selected
+ * directly by the queries, so it's neither tracked by the persistence context nor does it load the {@link User}.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class TodoView {
+
+    @JsonProperty(value = ConstantValues.Todo.Json.ID)
+    private final UUID id;
+
+    @JsonProperty(value = ConstantValues.Todo.Json.TITLE)
+    private final String title;
+
+    @JsonProperty(value = ConstantValues.Todo.Json.CREATED_AT)
+    private final LocalDateTime createdAt;
+
+    @JsonProperty(value = ConstantValues.Todo.Json.UPDATED_AT)
+    private final LocalDateTime updatedAt;
+
+    @JsonProperty(value = ConstantValues.Todo.Json.SCHEDULED_AT)
+    private final LocalDateTime scheduledAt;
+
+    @JsonProperty(value = ConstantValues.Todo.Json.COMPLETED)
+    private final Boolean completed;
+
+    @JsonProperty(value = ConstantValues.Todo.Json.DESCRIPTION)
+    private final String description;
+
+    @JsonIgnore
+    private final Long version;
+
+    /**
+     * @return The strong entity tag of the todo, derived from its version.
+     */
+    @JsonIgnore
+    public String getETag() {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Creates a {@link TodoView} from a {@link Todo}.
+     * @param todo The todo
+     * @return The view of the todo
+     */
+    public static TodoView of(Todo todo) {
+        return new TodoView(
+                todo.getId(),
+                todo.getTitle(),
+                todo.getCreatedAt(),
+                todo.getUpdatedAt(),
+                todo.getScheduledAt(),
+                todo.getCompleted(),
+                todo.getDescription(),
+                todo.getVersion()
+        );
+    }
+}
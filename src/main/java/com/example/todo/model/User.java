@@ -12,12 +12,15 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.Length;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NoArgsConstructor(force = true)
 @Getter
 @Setter
@@ -87,6 +90,13 @@ public class User {
     @Column(name = "surname", length = ConstantValues.User.SURNAME_MAX_LENGTH, nullable = false)
     private String surname;
 
+    // Changed to revoke all the tokens of the user at once. It starts at the time the user is created, so that the tokens of
+    // a deleted user are not valid for a new user with the same username
+    @JsonIgnore
+    @Column(name = "token_generation", nullable = false)
+    private Long tokenGeneration;
+
+    // Not cached, so the roles that are written to the tokens at login are read from the database, like the user is
     @JsonIgnore
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
@@ -0,0 +1,26 @@
+package com.example.todo.model;
+
+import lombok.Getter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * The {@link UserDetails} of a {@link User} being authenticated with its password. It also holds the user itself, so that
+ * the user doesn't need to be found again once it's authenticated.
+ */
+@Getter
+public class UserPrincipal extends org.springframework.security.core.userdetails.User {
+
+    private final User user;
+
+    public UserPrincipal(User user) {
+
+        super(
+                user.getUsername(),
+                user.getPassword(),
+                user.getRoles().stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName())).toList()
+        );
+
+        this.user = user;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.todo.repository;
+
+import com.example.todo.model.ArchivedTodo;
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A repository for {@link ArchivedTodo} entity. It extends {@link JpaRepository}
+ */
+public interface ArchivedTodoRepository extends JpaRepository<ArchivedTodo, UUID> {
+
+    /**
+     * Gets a page of {@link TodoView}s of the {@link ArchivedTodo}s associated with a username. Unlike returning a page,
+     * it does not run a separate count query.
+     * @param username The username
+     * @param pageable A {@link Pageable} object containing pagination information.
+     * @return A {@link List} of todo views
+     */
+    @Query("""
+            SELECT new com.example.todo.model.TodoView(a.id, a.title, a.createdAt, a.updatedAt, a.scheduledAt, a.completed, a.description, a.version)
+            FROM ArchivedTodo a WHERE a.username = :username""")
+    List<TodoView> findByUsername(@Param("username") String username, Pageable pageable);
+
+    /**
+     * Counts the {@link ArchivedTodo}s associated with a username.
+     * @param username The username
+     * @return The count of archived todos
+     */
+    long countByUsername(String username);
+
+    /**
+     * Copies the {@link Todo}s with the given ids into the archive, in a single statement. Needs to be run in a transaction.
+     * @param ids The ids of the todos
+     * @param archivedAt The archived at time to be set
+     * @return The number of archived todos
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO ArchivedTodo (id, username, title, createdAt, updatedAt, scheduledAt, completed, description, version, archivedAt)
+            SELECT t.id, t.user.username, t.title, t.createdAt, t.updatedAt, t.scheduledAt, t.completed, t.description, t.version, :archivedAt
+            FROM Todo t WHERE t.id IN :ids""")
+    int archiveByIdIn(@Param("ids") Collection<UUID> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Deletes the {@link ArchivedTodo}s associated with a username, in a single statement. Needs to be run in a transaction.
+     * @param username The username
+     * @return The number of deleted archived todos
+     */
+    @Modifying
+    @Query("DELETE FROM ArchivedTodo a WHERE a.username = :username")
+    int deleteByUsername(@Param("username") String username);
+}
@@ -0,0 +1,42 @@
+package com.example.todo.repository;
+
+import com.example.todo.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A repository for {@link RevokedToken} entity. It extends {@link JpaRepository}. The table is only in the first shard.
+ */
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Gets the ids of the {@link RevokedToken}s that have not expired at a given time.
+     * @param now The time
+     * @return A {@link List} of token ids
+     */
+    @Query("SELECT r.id FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findIdsByExpiresAtAfter(@Param("now") LocalDateTime now);
+
+    /**
+     * Gets the expiration time of a {@link RevokedToken}, only if it has not expired at a given time.
+     * @param id The id of the token
+     * @param now The time
+     * @return The {@link Optional} expiration time
+     */
+    @Query("SELECT r.expiresAt FROM RevokedToken r WHERE r.id = :id AND r.expiresAt > :now")
+    Optional<LocalDateTime> findExpiresAtById(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes the {@link RevokedToken}s that have expired at a given time, in a single statement. Needs to be run in a transaction.
+     * @param now The time
+     * @return The number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteByExpiresAtNotAfter(@Param("now") LocalDateTime now);
+}
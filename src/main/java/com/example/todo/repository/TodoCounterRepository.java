@@ -0,0 +1,114 @@
+package com.example.todo.repository;
+
+import com.example.todo.model.TodoCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * A repository for {@link TodoCounter} entity. It extends {@link JpaRepository}
+ */
+public interface TodoCounterRepository extends JpaRepository<TodoCounter, String> {
+
+    /**
+     * Atomically adds the given deltas to the counter of a user, increments its revision and sets its modified at time.
+     * Needs to be run in a transaction.
+     * @param username The username
+     * @param total The delta to be added to the total count
+     * @param completed The delta to be added to the completed count
+     * @param modifiedAt The modified at time to be set
+     * @return The number of updated rows. It's 0 if the user does not have a counter yet.
+     */
+    @Modifying
+    @Query("""
+            UPDATE TodoCounter c SET
+                c.total = c.total + :total,
+                c.completed = c.completed + :completed,
+                c.revision = c.revision + 1,
+                c.modifiedAt = :modifiedAt
+            WHERE c.username = :username""")
+    int increment(@Param("username") String username,
+                  @Param("total") long total,
+                  @Param("completed") long completed,
+                  @Param("modifiedAt") LocalDateTime modifiedAt);
+
+    /**
+     * Creates the counter of a user with the given counts, revision 1 and modified at time, or, if it has been created
+     * concurrently, adds the given deltas to it instead, the way {@link #increment} does. Needs to be run in a transaction.
+     * @param username The username
+     * @param countedTotal The total count of the created counter
+     * @param countedCompleted The completed count of the created counter
+     * @param total The delta to be added to the total count of the present counter
+     * @param completed The delta to be added to the completed count of the present counter
+     * @param modifiedAt The modified at time to be set
+     * @return The number of affected rows, as reported by the database
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO todo_counters (username, total, completed, revision, modified_at)
+            VALUES (:username, :countedTotal, :countedCompleted, 1, :modifiedAt)
+            ON DUPLICATE KEY UPDATE
+                total = total + :total,
+                completed = completed + :completed,
+                revision = revision + 1,
+                modified_at = :modifiedAt""")
+    int upsert(@Param("username") String username,
+               @Param("countedTotal") long countedTotal,
+               @Param("countedCompleted") long countedCompleted,
+               @Param("total") long total,
+               @Param("completed") long completed,
+               @Param("modifiedAt") LocalDateTime modifiedAt);
+
+    /**
+     * Creates the counter of a user with the given counts, revision 0 and no modified at time, unless it's present.
+     * Needs to be run in a transaction.
+     * @param username The username
+     * @param total The total count
+     * @param completed The completed count
+     * @return The number of inserted rows. It's 0 if the user already has a counter.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT IGNORE INTO todo_counters (username, total, completed, revision, modified_at)
+            VALUES (:username, :total, :completed, 0, NULL)""")
+    int insertIfAbsent(@Param("username") String username,
+                       @Param("total") long total,
+                       @Param("completed") long completed);
+
+    /**
+     * Gets the counter of a user and locks it for update, so the todos of the user can't be changed by
+     * {@link #increment} until the transaction ends. Needs to be run in a transaction.
+     * @param username The username
+     * @return The {@link Optional} counter
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM TodoCounter c WHERE c.username = :username")
+    Optional<TodoCounter> findByIdForUpdate(@Param("username") String username);
+
+    /**
+     * Sets the counts of the counter of a user, increments its revision and sets its modified at time. Unlike saving the
+     * counter, it doesn't write back a revision that has been read before. Needs to be run in a transaction.
+     * @param username The username
+     * @param total The total count to be set
+     * @param completed The completed count to be set
+     * @param modifiedAt The modified at time to be set
+     * @return The number of updated rows. It's 0 if the user does not have a counter.
+     */
+    @Modifying
+    @Query("""
+            UPDATE TodoCounter c SET
+                c.total = :total,
+                c.completed = :completed,
+                c.revision = c.revision + 1,
+                c.modifiedAt = :modifiedAt
+            WHERE c.username = :username""")
+    int reset(@Param("username") String username,
+              @Param("total") long total,
+              @Param("completed") long completed,
+              @Param("modifiedAt") LocalDateTime modifiedAt);
+}
@@ -1,24 +1,254 @@
 package com.example.todo.repository;
 
+import com.example.todo.configuration.ConstantValues;
 import com.example.todo.model.Todo;
-import org.springframework.data.domain.Page;
+import com.example.todo.model.TodoCounter;
+import com.example.todo.model.TodoFilter;
+import com.example.todo.model.TodoKey;
+import com.example.todo.model.TodoView;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.Predicate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
- * A repository for {@link Todo} entity. It extends {@link JpaRepository}
+ * A repository for {@link Todo} entity. It extends {@link JpaRepository}, {@link JpaSpecificationExecutor} and {@link TodoRepositoryCustom}
  */
-public interface TodoRepository extends JpaRepository<Todo, UUID> {
+public interface TodoRepository extends JpaRepository<Todo, UUID>, JpaSpecificationExecutor<Todo>, TodoRepositoryCustom {
 
     /**
-     * Gets a page of {@link Todo}s associated with a username.
+     * Creates a {@link Specification} that matches the {@link Todo}s associated with a username. Can be used
+     * with {@link #findBy(Specification, java.util.function.Function)} for keyset (cursor) based scrolling.
+     * @param username The username
+     * @return The {@link Specification}
+     */
+    static Specification<Todo> hasUsername(String username) {
+        return (root, query, builder) -> builder.equal(root.get("user").get("username"), username);
+    }
+
+    /**
+     * Creates a {@link Specification} that matches the {@link Todo}s associated with a username and all the present
+     * conditions of a {@link TodoFilter}. It doesn't use the criteria query, so can be used for bulk updates and deletes as well.
+     * @param username The username
+     * @param filter The filter
+     * @return The {@link Specification}
+     */
+    static Specification<Todo> matches(String username, TodoFilter filter) {
+        return (root, query, builder) -> {
+
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(builder.equal(root.get("user").get("username"), username));
+
+            if (filter.getCompleted() != null)
+                predicates.add(builder.equal(root.get("completed"), filter.getCompleted()));
+            if (filter.getScheduledBefore() != null)
+                predicates.add(builder.lessThan(root.<LocalDateTime>get("scheduledAt"), filter.getScheduledBefore()));
+            if (filter.getScheduledAfter() != null)
+                predicates.add(builder.greaterThan(root.<LocalDateTime>get("scheduledAt"), filter.getScheduledAfter()));
+            if (filter.getScheduledFrom() != null)
+                predicates.add(builder.greaterThanOrEqualTo(root.<LocalDateTime>get("scheduledAt"), filter.getScheduledFrom()));
+            if (filter.getScheduledTo() != null)
+                predicates.add(builder.lessThanOrEqualTo(root.<LocalDateTime>get("scheduledAt"), filter.getScheduledTo()));
+            if (filter.getCreatedAfter() != null)
+                predicates.add(builder.greaterThan(root.<LocalDateTime>get("createdAt"), filter.getCreatedAfter()));
+            if (filter.getUpdatedAfter() != null)
+                predicates.add(builder.greaterThan(root.<LocalDateTime>get("updatedAt"), filter.getUpdatedAfter()));
+
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Gets a page of {@link TodoView}s of the {@link Todo}s associated with a username. Unlike returning a page,
+     * it does not run a separate count query.
      * @param username The username
      * @param pageable A {@link Pageable} object containing pagination information.
-     * @return A {@link Page} of todos
+     * @return A {@link List} of todo views
+     */
+    @Query("""
+            SELECT new com.example.todo.model.TodoView(t.id, t.title, t.createdAt, t.updatedAt, t.scheduledAt, t.completed, t.description, t.version)
+            FROM Todo t WHERE t.user.username = :username""")
+    List<TodoView> findByUsername(@Param("username") String username, Pageable pageable);
+
+    /**
+     * Streams the {@link TodoView}s of all the {@link Todo}s associated with a username, in the order of the index on the
+     * username, scheduled at time and id, so the database reads them in order without sorting them. The rows are fetched
+     * from the database as the stream is consumed, and the views are not tracked by the persistence context, so it takes
+     * the same memory irrespective of the number of todos. Needs to be run in a transaction, and the stream needs to be closed.
+     * @param username The username
+     * @return A {@link Stream} of todo views
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = ConstantValues.Todo.Export.FETCH_SIZE))
+    @Query("""
+            SELECT new com.example.todo.model.TodoView(t.id, t.title, t.createdAt, t.updatedAt, t.scheduledAt, t.completed, t.description, t.version)
+            FROM Todo t WHERE t.user.username = :username ORDER BY t.scheduledAt, t.id""")
+    Stream<TodoView> streamByUsername(@Param("username") String username);
+
+    /**
+     * Gets the {@link TodoView} of a {@link Todo} by its id, only if it's associated with a username.
+     * @param id The id of the todo
+     * @param username The username
+     * @return The {@link Optional} todo view
+     */
+    @Query("""
+            SELECT new com.example.todo.model.TodoView(t.id, t.title, t.createdAt, t.updatedAt, t.scheduledAt, t.completed, t.description, t.version)
+            FROM Todo t WHERE t.id = :id AND t.user.username = :username""")
+    Optional<TodoView> findByIdAndUsername(@Param("id") UUID id, @Param("username") String username);
+
+    /**
+     * Counts the {@link Todo}s associated with a username.
+     * @param username The username
+     * @return The count of todos
+     */
+    long countByUserUsername(String username);
+
+    /**
+     * Counts the completed {@link Todo}s associated with a username.
+     * @param username The username
+     * @return The count of completed todos
+     */
+    long countByUserUsernameAndCompletedTrue(String username);
+
+    /**
+     * Counts the {@link Todo}s of all the users, grouped into {@link TodoCounter}s. Users without any todos are absent.
+     * @return The {@link List} of counters
+     */
+    @Query("""
+            SELECT new com.example.todo.model.TodoCounter(t.user.username, COUNT(t), SUM(CASE WHEN t.completed = true THEN 1L ELSE 0L END))
+            FROM Todo t GROUP BY t.user.username""")
+    List<TodoCounter> countAllGroupByUsername();
+
+    /**
+     * Checks if a {@link Todo} exists and is associated with a username.
+     * @param id The id of the todo
+     * @param username The username
+     * @return True if it exists, false otherwise
+     */
+    boolean existsByIdAndUserUsername(UUID id, String username);
+
+    /**
+     * Updates the title, description, scheduled at time and completed field of a {@link Todo}, only if it's associated with
+     * a username and has the given version, in a single statement, and increments its version once. A field that is null is
+     * not updated, the same as {@link com.example.todo.annotation.BatchUpdatable} fields are treated. Needs to be run in a transaction.
+     * @param id The id of the todo
+     * @param username The username
+     * @param version The expected version, or null to update irrespective of the version
+     * @param title The new title or null
+     * @param description The new description or null
+     * @param scheduledAt The new scheduled at time or null
+     * @param completed The new completed field or null
+     * @param updatedAt The updated at time to be set
+     * @param completedChanges Whether to update the todo only if the new completed field is not null and differs from its
+     * current one, so that it's known from the number of updated rows whether the completed field has changed
+     * @return The number of updated rows. It's 0 if the todo does not exist, does not belong to the user, has a different version
+     * or, if completedChanges is true, has the same completed field
+     */
+    @Modifying
+    @Query("""
+            UPDATE Todo t SET
+                t.title = COALESCE(:title, t.title),
+                t.description = COALESCE(:description, t.description),
+                t.scheduledAt = COALESCE(:scheduledAt, t.scheduledAt),
+                t.completed = COALESCE(:completed, t.completed),
+                t.updatedAt = :updatedAt,
+                t.version = t.version + 1
+            WHERE t.id = :id AND t.user.username = :username AND (:version IS NULL OR t.version = :version)
+                AND (:completedChanges = false OR t.completed <> :completed)""")
+    int updateByIdAndUsername(@Param("id") UUID id,
+                              @Param("username") String username,
+                              @Param("version") Long version,
+                              @Param("title") String title,
+                              @Param("description") String description,
+                              @Param("scheduledAt") LocalDateTime scheduledAt,
+                              @Param("completed") Boolean completed,
+                              @Param("updatedAt") LocalDateTime updatedAt,
+                              @Param("completedChanges") boolean completedChanges);
+
+    /**
+     * Deletes a {@link Todo}, only if it's associated with a username and has the given version, in a single statement.
+     * Needs to be run in a transaction.
+     * @param id The id of the todo
+     * @param username The username
+     * @param version The expected version
+     * @return The number of deleted rows. It's 0 if the todo does not exist, does not belong to the user or has a different version
+     */
+    @Modifying
+    @Query("""
+            DELETE FROM Todo t
+            WHERE t.id = :id AND t.user.username = :username AND t.version = :version""")
+    int deleteByIdAndUsername(@Param("id") UUID id, @Param("username") String username, @Param("version") long version);
+
+    /**
+     * Gets the keys of the first completed {@link Todo}s of all the users that haven't been updated since a given time, in
+     * the order of their updated at time and id. The todos are not locked, so they need to be read again with
+     * {@link #findArchivableByIdIn(List, LocalDateTime)}. It's a range scan on the index on completed, updated at and id,
+     * which already holds them in this order, so they are not sorted.
+     * @param updatedBefore The time the todos must not have been updated since
+     * @param pageable A {@link Pageable} object limiting the number of keys
+     * @return A {@link List} of keys
+     */
+    @Query("""
+            SELECT new com.example.todo.model.TodoKey(t.updatedAt, t.id) FROM Todo t
+            WHERE t.completed = true AND t.updatedAt < :updatedBefore
+            ORDER BY t.updatedAt, t.id""")
+    List<TodoKey> findArchivableKeys(@Param("updatedBefore") LocalDateTime updatedBefore, Pageable pageable);
+
+    /**
+     * Gets the keys of the completed {@link Todo}s of all the users that haven't been updated since a given time, that come
+     * after a given key in the order of their updated at time and id. The same as {@link #findArchivableKeys(LocalDateTime, Pageable)},
+     * except that the range scan on the index starts at the given key instead of its beginning.
+     * @param updatedBefore The time the todos must not have been updated since
+     * @param lastUpdatedAt The updated at time of the key to continue after
+     * @param lastId The id of the key to continue after
+     * @param pageable A {@link Pageable} object limiting the number of keys
+     * @return A {@link List} of keys
+     */
+    @Query("""
+            SELECT new com.example.todo.model.TodoKey(t.updatedAt, t.id) FROM Todo t
+            WHERE t.completed = true AND t.updatedAt < :updatedBefore AND (t.updatedAt, t.id) > (:lastUpdatedAt, :lastId)
+            ORDER BY t.updatedAt, t.id""")
+    List<TodoKey> findArchivableKeysAfter(@Param("updatedBefore") LocalDateTime updatedBefore,
+                                          @Param("lastUpdatedAt") LocalDateTime lastUpdatedAt,
+                                          @Param("lastId") UUID lastId,
+                                          Pageable pageable);
+
+    /**
+     * Gets the {@link Todo}s with the given ids that are still completed and haven't been updated since a given time.
+     * Only these todos are locked for update, by their primary key, so they can't change until they are archived.
+     * Needs to be run in a transaction.
+     * @param ids The ids of the todos
+     * @param updatedBefore The time the todos must not have been updated since
+     * @return A {@link List} of todos
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT t FROM Todo t
+            WHERE t.id IN :ids AND t.completed = true AND t.updatedAt < :updatedBefore
+            ORDER BY t.id""")
+    List<Todo> findArchivableByIdIn(@Param("ids") List<UUID> ids, @Param("updatedBefore") LocalDateTime updatedBefore);
+
+    /**
+     * Deletes the {@link Todo}s with the given ids, in a single statement. Needs to be run in a transaction.
+     * @param ids The ids of the todos
+     * @return The number of deleted rows
      */
-    @Query("SELECT t FROM Todo t WHERE t.user.username = :username")
-    Page<Todo> findByUsername(@Param("username") String username, Pageable pageable);
+    @Modifying
+    @Query("DELETE FROM Todo t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<UUID> ids);
 }
@@ -0,0 +1,34 @@
+package com.example.todo.repository;
+
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A repository fragment for {@link Todo} entity, containing the operations that cannot be expressed with query methods.
+ */
+public interface TodoRepositoryCustom {
+
+    /**
+     * Sets the completed field of all the {@link Todo}s matching a {@link Specification}, whose completed field differs from
+     * the given value, in a single UPDATE statement, without loading them. Their versions are incremented as well.
+     * Needs to be run in a transaction.
+     * @param specification The specification to match the todos with
+     * @param completed The value of the completed field to be set
+     * @param updatedAt The updated at time to be set
+     * @return The number of updated todos
+     */
+    int updateCompleted(Specification<Todo> specification, boolean completed, LocalDateTime updatedAt);
+
+    /**
+     * Gets a page of {@link TodoView}s of the {@link Todo}s matching a {@link Specification}, selected directly by a
+     * criteria query, so the todos are neither loaded nor tracked by the persistence context. It does not run a separate count query.
+     * @param specification The specification to match the todos with
+     * @param pageable A {@link Pageable} object containing pagination information.
+     * @return A {@link List} of todo views
+     */
+    List<TodoView> findViews(Specification<Todo> specification, Pageable pageable);
+}
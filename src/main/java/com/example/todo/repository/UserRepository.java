@@ -1,10 +1,36 @@
 package com.example.todo.repository;
 
 import com.example.todo.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Optional;
 
 /**
  * A repository for the {@link User} entity. It extends {@link JpaRepository}
  */
 public interface UserRepository extends JpaRepository<User, String> {
+
+    /**
+     * Gets the token generation of a {@link User}. Unlike finding the user, it always goes to the database rather than
+     * the second level cache, which is not shared by the nodes of the application.
+     * @param username The username
+     * @return The {@link Optional} token generation
+     */
+    @Query("SELECT u.tokenGeneration FROM User u WHERE u.username = :username")
+    Optional<Long> findTokenGenerationByUsername(@Param("username") String username);
+
+    /**
+     * Gets a {@link User} by its username from the database, rather than the second level cache, which is not shared by the
+     * nodes of the application, and refreshes the cached one. Used for the lookups whose password is checked or that are
+     * updated, so they don't use a password or a user that has been changed or deleted by another node.
+     * @param username The username
+     * @return The {@link Optional} user
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "REFRESH"))
+    @Query("SELECT u FROM User u WHERE u.username = :username")
+    Optional<User> findByIdUncached(@Param("username") String username);
 }
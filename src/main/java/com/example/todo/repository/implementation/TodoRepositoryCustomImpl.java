@@ -0,0 +1,73 @@
+package com.example.todo.repository.implementation;
+
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoView;
+import com.example.todo.repository.TodoRepositoryCustom;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An implementation of {@link TodoRepositoryCustom}, using the criteria api.
+ */
+public class TodoRepositoryCustomImpl implements TodoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateCompleted(Specification<Todo> specification, boolean completed, LocalDateTime updatedAt) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Todo> update = builder.createCriteriaUpdate(Todo.class);
+        Root<Todo> root = update.from(Todo.class);
+
+        update
+                .set(root.<Boolean>get("completed"), completed)
+                .set(root.<LocalDateTime>get("updatedAt"), updatedAt)
+                .set(root.<Long>get("version"), builder.sum(root.<Long>get("version"), 1L))
+                .where(
+                        specification.toPredicate(root, null, builder),
+                        builder.notEqual(root.get("completed"), completed)
+                );
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public List<TodoView> findViews(Specification<Todo> specification, Pageable pageable) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TodoView> query = builder.createQuery(TodoView.class);
+        Root<Todo> root = query.from(Todo.class);
+
+        query
+                .select(builder.construct(
+                        TodoView.class,
+                        root.get("id"),
+                        root.get("title"),
+                        root.get("createdAt"),
+                        root.get("updatedAt"),
+                        root.get("scheduledAt"),
+                        root.get("completed"),
+                        root.get("description"),
+                        root.get("version")
+                ))
+                .where(specification.toPredicate(root, query, builder))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        return entityManager
+                .createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+}
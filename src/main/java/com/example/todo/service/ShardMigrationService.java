@@ -0,0 +1,33 @@
+package com.example.todo.service;
+
+import com.example.todo.model.User;
+
+/**
+ * An interface containing the service methods for migrating the data of the {@link User}s between the shards online,
+ * i.e. while the application keeps serving them.
+ */
+public interface ShardMigrationService {
+
+    /**
+     * Migrates the data of a {@link User}, i.e. the user, its roles, todos and todo counter, from the shard it's in to the given
+     * shard. The user is marked as being migrated first, and the copying starts once every instance rejects its writes, while
+     * the reads are served from the current shard. Once it's copied, the user is assigned to the given shard, and after every
+     * instance has noticed that, the data is deleted from the previous shard, unless it has changed since it was copied.
+     * @param username The username
+     * @param shard The index of the shard to migrate to
+     * @return True if the user has been migrated, false if the user is already in the shard or is being migrated by another migration
+     * @throws IllegalArgumentException if the shard is invalid
+     */
+    boolean migrateUser(String username, int shard);
+
+    /**
+     * Migrates all the {@link User}s that are not in the shard they would be placed at on a hash ring of the given size.
+     * It's used for moving the users to newly added shards, before they are added to the ring that's used for the new users.
+     * The users are migrated in batches, like {@link #migrateUser(String, int)}, so the waiting is shared by a batch. It's run
+     * by a single instance at a time, and skipped by the others.
+     * @param ringSize The number of the shards on the hash ring
+     * @return The number of users that have been migrated, 0 if another instance is resharding
+     * @throws IllegalArgumentException if the ring size is invalid
+     */
+    long reshard(int ringSize);
+}
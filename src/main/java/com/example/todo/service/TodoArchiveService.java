@@ -0,0 +1,46 @@
+package com.example.todo.service;
+
+import com.example.todo.exception.NotFoundException;
+import com.example.todo.model.ArchivedTodo;
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoFilter;
+import com.example.todo.model.TodoView;
+import com.example.todo.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An interface containing all the {@link ArchivedTodo} related service methods. The completed {@link Todo}s that haven't been
+ * updated for a while are moved to the archive, so that the todos table only contains the ones that are still worked on.
+ */
+public interface TodoArchiveService {
+
+    /**
+     * Finds all the {@link ArchivedTodo}s that belong to a {@link User} and returns their {@link TodoView}s. Pagination and
+     * sorting information are the same as {@link TodoService#findTodosByUsername(String, TodoFilter, int, int, List)}. As all the archived
+     * todos are completed, sorting by the completed field is ignored.
+     * @param username The username of the user
+     * @param page The page number
+     * @param limit The limit of each page
+     * @param orders The sorting information
+     * @return The {@link Page} of todo views
+     * @throws NotFoundException if the user is not found
+     */
+    Page<TodoView> findArchivedTodosByUsername(String username, int page, int limit, List<Map.Entry<String, Sort.Direction>> orders);
+
+    /**
+     * Moves the completed {@link Todo}s of all the users that haven't been updated for the archive age to the archive. It's done
+     * shard by shard, in chunks of todos ordered by their updated at time and id, each in its own transaction, pausing between the chunks, so that it
+     * neither holds locks for long nor starves the other transactions. The todo counters of the users are updated as well.
+     * @return The number of todos that have been archived
+     */
+    long archiveTodos();
+
+    /**
+     * Deletes all the {@link ArchivedTodo}s of a {@link User}. It must be called in the same transaction that deletes the user.
+     * @param username The username
+     */
+    void deleteArchivedTodos(String username);
+}
@@ -0,0 +1,52 @@
+package com.example.todo.service;
+
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoCounter;
+import com.example.todo.model.User;
+
+/**
+ * An interface containing all the {@link TodoCounter} related service methods.
+ */
+public interface TodoCounterService {
+
+    /**
+     * Finds the {@link TodoCounter} of a {@link User}. If the user does not have a counter yet, it's computed from the
+     * todos table, with revision 0 and no modified at time, and saved, so that it's computed only once. Within a
+     * transaction of the caller, it's computed without being saved.
+     * @param username The username
+     * @return The counter
+     */
+    TodoCounter findCounter(String username);
+
+    /**
+     * Creates the {@link TodoCounter} of a {@link User} with the given counts, revision 0 and no modified at time, unless
+     * the user already has one. It must be called in the same transaction that creates the user.
+     * @param username The username
+     * @param total The total count
+     * @param completed The completed count
+     */
+    void createCounter(String username, long total, long completed);
+
+    /**
+     * Adds the given deltas to the {@link TodoCounter} of a {@link User} and marks the todos of the user as changed, by
+     * incrementing its revision. So it must be called for every change of the todos, even if both the deltas are 0.
+     * If the user does not have a counter yet, it's created from the todos of the table, including the changes of the
+     * transaction, which already count the deltas. It must be called in the same transaction that creates, updates or deletes the {@link Todo}s.
+     * @param username The username
+     * @param total The delta to be added to the total count
+     * @param completed The delta to be added to the completed count
+     */
+    void updateCounter(String username, long total, long completed);
+
+    /**
+     * Deletes the {@link TodoCounter} of a {@link User}, if present.
+     * @param username The username
+     */
+    void deleteCounter(String username);
+
+    /**
+     * Recomputes all the {@link TodoCounter}s from the todos table and fixes the ones that have drifted.
+     * @return The number of counters that have been fixed
+     */
+    long reconcileCounters();
+}
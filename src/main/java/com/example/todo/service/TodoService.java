@@ -2,13 +2,20 @@ package com.example.todo.service;
 
 import com.example.todo.annotation.BatchUpdatable;
 import com.example.todo.model.Todo;
+import com.example.todo.model.TodoBatchResult;
+import com.example.todo.model.TodoFilter;
+import com.example.todo.model.TodoView;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 import com.example.todo.model.User;
 import com.example.todo.exception.NotFoundException;
+import com.example.todo.exception.PreconditionFailedException;
 
 /**
  * An interface containing all the {@link Todo} related service methods.
@@ -16,27 +23,60 @@ import com.example.todo.exception.NotFoundException;
 public interface TodoService {
 
     /**
-     * Finds a {@link Todo} by id that belongs to a {@link User} and returns it.
+     * Finds a {@link Todo} by id that belongs to a {@link User} and returns its {@link TodoView}.
      * @param username The username of the user
      * @param id The id of the todo
-     * @return The todo
+     * @return The todo view
      * @throws NotFoundException if the todo is not found or does not belong to the user
      */
-    Todo findTodo(String username, UUID id);
+    TodoView findTodo(String username, UUID id);
 
     /**
-     * Finds all the {@link Todo}s that belong to a {@link User} and returns them. Pagination can be done by
+     * Finds all the {@link Todo}s that belong to a {@link User} and match a {@link TodoFilter}, and returns their {@link TodoView}s.
+     * The filter is applied by the database, and an empty filter matches all the todos. Pagination can be done by
      * providing the page and limit and also sorting information. For sorting information, provide a list of
      * {@link Map.Entry}s with the field name as the key and {@link Sort.Direction} as the value. If sorting
      * information is not provided (i.e null), no sorting is done.
      * @param username The username of the user
+     * @param filter The filter to match the todos with
      * @param page The page number
      * @param limit The limit of each page
      * @param orders The sorting information
-     * @return The {@link Page} of todos
+     * @return The {@link Page} of todo views
      * @throws NotFoundException if the user is not found
+     * @throws IllegalArgumentException if the filter, along with the sorting information, cannot be served by an index of the todos table
      */
-    Page<Todo> findTodosByUsername(String username, int page, int limit, List<Map.Entry<String, Sort.Direction>> orders);
+    Page<TodoView> findTodosByUsername(String username, TodoFilter filter, int page, int limit, List<Map.Entry<String, Sort.Direction>> orders);
+
+    /**
+     * Finds the {@link Todo}s that belong to a {@link User} and match a {@link TodoFilter} after a given keyset position and returns
+     * their {@link TodoView}s. Unlike {@link #findTodosByUsername(String, TodoFilter, int, int, List)}, it seeks directly to the position using the sort key values
+     * and the id of the last todo of the previous window, so every window costs the same irrespective of how deep it is.
+     * The id is always used as the last sort key to break ties. Without sorting information, the todos are sorted in the order
+     * of the index that serves the filter, which is the scheduled at time and id when there's no filter. The sorting information is the same as
+     * {@link #findTodosByUsername(String, TodoFilter, int, int, List)}, and along with the filter must not change between the windows.
+     * @param username The username of the user
+     * @param filter The filter to match the todos with
+     * @param position The keyset position to scroll from. Initial position returns the first window
+     * @param limit The limit of each window
+     * @param orders The sorting information
+     * @return The {@link Window} of todo views
+     * @throws NotFoundException if the user is not found
+     * @throws IllegalArgumentException if the keys of the position do not match the sorting information, or if the filter, along
+     * with the sorting information, cannot be served by an index of the todos table
+     */
+    Window<TodoView> findTodosByUsername(String username, TodoFilter filter, KeysetScrollPosition position, int limit, List<Map.Entry<String, Sort.Direction>> orders);
+
+    /**
+     * Exports all the {@link Todo}s that belong to a {@link User} in the order of their scheduled at times, by passing their
+     * {@link TodoView}s to a consumer one at a time as they are read from the database. It takes the same memory irrespective
+     * of the number of todos, but holds a connection until all of them are consumed. Unlike the other methods, it doesn't check
+     * that the user exists, as it doesn't need a request, so a user that doesn't exist has no todos.
+     * @param username The username of the user
+     * @param consumer The consumer of the todo views
+     * @return The number of exported todos
+     */
+    long exportTodos(String username, Consumer<TodoView> consumer);
 
     /**
      * Saves a new {@link Todo} for a {@link User} in the database and returns it.
@@ -47,24 +87,61 @@ public interface TodoService {
      */
     Todo createTodo(String username, Todo todo);
 
+    /**
+     * Saves a batch of new {@link Todo}s for a {@link User} in the database, in a single transaction. All the todos are
+     * validated first, and only the valid ones are saved. The result of each todo is returned in the same order
+     * as the given todos, which is either HTTP status CREATED with the saved todo, or BAD_REQUEST with the validation messages.
+     * @param username The username
+     * @param todos The todos
+     * @return The {@link List} of results of the todos
+     * @throws NotFoundException if the user is not found
+     * @throws IllegalArgumentException if the batch is empty or larger than {@link com.example.todo.configuration.ConstantValues.Todo}'s BATCH_MAX_SIZE
+     */
+    List<TodoBatchResult> createTodos(String username, List<Todo> todos);
+
     /**
      * Used for updating the fields of a {@link Todo}, of a {@link User}, that has been annotated with
      * {@link BatchUpdatable} annotation. If any of the fields is not present in the provided todo
      * (for example, if it's null), then it is not updated.
+     * If a version is given, the todo is updated only if it still has that version.
      * @param username The username
      * @param id The id of the todo
+     * @param version The expected version of the todo, or null to update irrespective of the version
      * @param todo The updated todo to be saved
-     * @return The updated todo
-     * @throws NotFoundException if the user or todo is not found or if the todo does not belong to the user
+     * @return The view of the updated todo
+     * @throws NotFoundException if the todo is not found or if the todo does not belong to the user
+     * @throws PreconditionFailedException if the todo does not have the expected version
+     */
+    TodoView updateTodo(String username, UUID id, Long version, Todo todo);
+
+    /**
+     * Sets the completed field of all the {@link Todo}s of a {@link User} that match a {@link TodoFilter}, in a single
+     * statement, without loading them. Only the completed field of the given todo is used, which is required.
+     * @param username The username
+     * @param filter The filter to match the todos with
+     * @param todo The todo containing the completed field to be set
+     * @return The number of todos that have been updated. Todos that already have the same value are not counted
+     * @throws IllegalArgumentException if the todo or its completed field is null
+     */
+    long updateTodos(String username, TodoFilter filter, Todo todo);
+
+    /**
+     * Deletes all the {@link Todo}s of a {@link User} that match a {@link TodoFilter}, without loading them.
+     * @param username The username
+     * @param filter The filter to match the todos with
+     * @return The number of todos that have been deleted
+     * @throws IllegalArgumentException if the filter does not have any condition
      */
-    Todo updateTodo(String username, UUID id, Todo todo);
+    long deleteTodos(String username, TodoFilter filter);
 
     /**
-     * Deletes a {@link Todo} of a {@link User} from the database.
+     * Deletes a {@link Todo} of a {@link User} from the database, without loading it as an entity. If a version is given,
+     * the todo is deleted only if it still has that version.
      * @param username The username
      * @param id The id of the todo
-     * @return The deleted todo
-     * @throws NotFoundException if the user or todo is not found or if the todo does not belong to the user
+     * @param version The expected version of the todo, or null to delete irrespective of the version
+     * @throws NotFoundException if the todo is not found or if the todo does not belong to the user
+     * @throws PreconditionFailedException if the todo does not have the expected version, or has changed while it's been deleted
      */
-    Todo deleteTodo(String username, UUID id);
+    void deleteTodo(String username, UUID id, Long version);
 }
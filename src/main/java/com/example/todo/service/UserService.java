@@ -29,7 +29,7 @@ public interface UserService {
 
     /**
      * Used for updating the password of a {@link User}. It also takes the present password and matches
-     * it with the new password. If the passwords do not match, it is not updated.
+     * it with the new password. If the passwords do not match, it is not updated. Otherwise, all the tokens issued to the user are revoked.
      * @param username The username of the user
      * @param updateRequest The {@link PasswordUpdateRequest} with the new password and the present password
      * @return The updated user
@@ -38,6 +38,16 @@ public interface UserService {
      */
     User updatePassword(String username, PasswordUpdateRequest updateRequest);
 
+    /**
+     * Used for replacing the stored hash of the password of a {@link User} with a new hash of the same password,
+     * like when the stored one was hashed with a lower cost than the configured one.
+     * @param username The username of the user
+     * @param encodedPassword The new hash of the password
+     * @return The updated user
+     * @throws NotFoundException if the user is not found
+     */
+    User rehashPassword(String username, String encodedPassword);
+
     /**
      * Updates the email of a {@link User}.
      * @param username The username
@@ -58,7 +68,7 @@ public interface UserService {
     User updateUser(String username, User user);
 
     /**
-     * Deletes a {@link User} from the database.
+     * Deletes a {@link User} from the database, and revokes all the tokens issued to the user.
      * @param username The username
      * @return The deleted user
      * @throws NotFoundException if the user is not found
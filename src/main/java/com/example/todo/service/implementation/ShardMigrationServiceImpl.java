@@ -0,0 +1,372 @@
+package com.example.todo.service.implementation;
+
+import com.example.todo.configuration.ConsistentHashRing;
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.EnvironmentValues;
+import com.example.todo.configuration.ShardDirectory;
+import com.example.todo.service.ShardMigrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * An implementation of {@link ShardMigrationService}. The data is copied with plain JDBC, directly between the primary
+ * data sources of the shards, a chunk at a time. If the TODO_DATASOURCE_RESHARD_TO_RING_SIZE environment variable is set,
+ * {@link #reshard(int)} is run in the background with it once the application has started. It's run by one instance at
+ * a time, the one that holds the resharding lock of the shard_migration_locks table of the first shard, and skipped by the others.
+ * <br>
+ * <br>
+ * The users are marked as being migrated in the {@link ShardDirectory}, skipping the ones that are already marked by another
+ * migration, and the copying waits for every instance to notice that. The writers that have started before are waited for by locking the rows of the user and of its todo counter, which
+ * every change of the todos writes to or references. Before the data is deleted from the previous shard, it's compared
+ * with what has been copied, and kept if it has changed.
+ */
+@Service
+public class ShardMigrationServiceImpl implements ShardMigrationService {
+
+    private final Logger logger = LoggerFactory.getLogger(ShardMigrationServiceImpl.class);
+    private ShardDirectory shardDirectory;
+    private EnvironmentValues environmentValues;
+
+    @Autowired
+    public void setShardDirectory(ShardDirectory shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    @Autowired
+    public void setEnvironmentValues(EnvironmentValues environmentValues) {
+        this.environmentValues = environmentValues;
+    }
+
+    /**
+     * Runs the work in a transaction on the primary data source of a shard.
+     */
+    private <T> T inTransaction(int shard, Function<JdbcTemplate, T> work) {
+
+        DataSource dataSource = shardDirectory.getPrimary(shard);
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource)).execute(status -> work.apply(new JdbcTemplate(dataSource)));
+    }
+
+    /**
+     * Deletes all the rows of a user from a shard, in the reverse order of the foreign keys.
+     */
+    private void deleteRows(JdbcTemplate jdbcTemplate, String username) {
+
+        List<String> tables = new ArrayList<>(ConstantValues.DataSource.SHARD_MIGRATION_TABLES);
+        Collections.reverse(tables);
+
+        for (String table : tables)
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE username = ?", username);
+    }
+
+    /**
+     * Locks the rows of a user and of its todo counter, so the writers of the user that are still running have to finish first,
+     * and the later ones have to wait.
+     */
+    private void lockRows(JdbcTemplate jdbcTemplate, String username) {
+
+        jdbcTemplate.queryForList("SELECT username FROM users WHERE username = ? FOR UPDATE", username);
+        jdbcTemplate.queryForList("SELECT username FROM todo_counters WHERE username = ? FOR UPDATE", username);
+    }
+
+    /**
+     * @return The number of rows of a user in each table, and the rows of the user and of its todo counter, which change
+     * on every write of the user
+     */
+    private Map<String, Object> fingerprint(JdbcTemplate jdbcTemplate, String username) {
+
+        Map<String, Object> fingerprint = new LinkedHashMap<>();
+
+        for (String table : ConstantValues.DataSource.SHARD_MIGRATION_TABLES)
+            fingerprint.put(table, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE username = ?", Long.class, username));
+
+        fingerprint.put("user", jdbcTemplate.queryForList("SELECT * FROM users WHERE username = ?", username));
+        fingerprint.put("todo_counter", jdbcTemplate.queryForList("SELECT * FROM todo_counters WHERE username = ?", username));
+
+        return fingerprint;
+    }
+
+    /**
+     * Copies all the rows of a user from a shard to another, replacing the ones left in the latter by an earlier attempt.
+     * The rows are read in chunks in the order of the key column of each table, all in one transaction of the source shard,
+     * and each chunk is inserted in a transaction of its own in the target shard.
+     * @return The fingerprint of the copied rows
+     */
+    private Map<String, Object> copyRows(String username, int source, int target) {
+
+        inTransaction(target, jdbcTemplate -> {
+            deleteRows(jdbcTemplate, username);
+            return null;
+        });
+
+        return inTransaction(source, jdbcTemplate -> {
+
+            lockRows(jdbcTemplate, username);
+
+            for (String table : ConstantValues.DataSource.SHARD_MIGRATION_TABLES) {
+
+                String key = ConstantValues.DataSource.SHARD_MIGRATION_KEYS.get(table);
+                Object last = null;
+                long copied = 0;
+
+                while (true) {
+
+                    List<Map<String, Object>> chunk = last == null
+                            ? jdbcTemplate.queryForList("SELECT * FROM " + table + " WHERE username = ? ORDER BY " + key + " LIMIT ?",
+                                    username, ConstantValues.DataSource.SHARD_MIGRATION_CHUNK_SIZE)
+                            : jdbcTemplate.queryForList("SELECT * FROM " + table + " WHERE username = ? AND " + key + " > ? ORDER BY " + key + " LIMIT ?",
+                                    username, last, ConstantValues.DataSource.SHARD_MIGRATION_CHUNK_SIZE);
+
+                    if (chunk.isEmpty()) break;
+
+                    List<String> columns = new ArrayList<>(chunk.get(0).keySet());
+                    String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                            + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+
+                    inTransaction(target, targetJdbcTemplate ->
+                            targetJdbcTemplate.batchUpdate(sql, chunk.stream().map(row -> columns.stream().map(row::get).toArray()).toList()));
+
+                    copied += chunk.size();
+                    last = chunk.get(chunk.size() - 1).get(key);
+
+                    if (chunk.size() < ConstantValues.DataSource.SHARD_MIGRATION_CHUNK_SIZE) break;
+                }
+                logger.debug("Copied {} rows of table: {} to shard: {}", copied, table, target);
+            }
+
+            return fingerprint(jdbcTemplate, username);
+        });
+    }
+
+    /**
+     * Waits for every instance to notice the changes of the {@link ShardDirectory}.
+     */
+    private void awaitPropagation() {
+
+        try {
+            Thread.sleep(shardDirectory.getPropagationDelayInMillis());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Migrates a batch of users to the given shards. The users are marked as being migrated, and once every instance rejects
+     * their writes, they are copied and assigned to the shards. Once every instance routes to the new shards, they are deleted
+     * from their previous shards, unless their rows have changed since they were copied, which is logged as an error.
+     * @param shards The shards to migrate the users to, by username
+     * @return The number of users that have been migrated
+     */
+    private long migrate(Map<String, Integer> shards) {
+
+        if (shards.isEmpty()) return 0;
+
+        Map<String, Integer> sources = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> fingerprints = new LinkedHashMap<>();
+
+        try {
+            for (String username : shards.keySet()) {
+
+                if (!shardDirectory.tryMarkMigrating(username)) {
+                    logger.warn("User with username: {} is being migrated by another migration, so it's skipped", username);
+                    continue;
+                }
+                sources.put(username, shardDirectory.shardOf(username));
+            }
+
+            if (sources.isEmpty()) return 0;
+
+            awaitPropagation();
+
+            for (Map.Entry<String, Integer> source : sources.entrySet()) {
+
+                String username = source.getKey();
+                int target = shards.get(username);
+
+                // Migrated by another migration since it was chosen
+                if (source.getValue() == target) continue;
+
+                fingerprints.put(username, copyRows(username, source.getValue(), target));
+                shardDirectory.assign(username, target);
+                logger.info("User with username: {} has been copied from shard: {} to shard: {}", username, source.getValue(), target);
+            }
+        }
+        finally {
+            for (String username : sources.keySet())
+                if (!fingerprints.containsKey(username)) shardDirectory.setMigrating(username, false);
+        }
+
+        awaitPropagation();
+
+        for (Map.Entry<String, Map<String, Object>> copied : fingerprints.entrySet()) {
+
+            String username = copied.getKey();
+            int source = sources.get(username);
+
+            boolean deleted = inTransaction(source, jdbcTemplate -> {
+
+                lockRows(jdbcTemplate, username);
+                if (!fingerprint(jdbcTemplate, username).equals(copied.getValue())) return false;
+
+                deleteRows(jdbcTemplate, username);
+                return true;
+            });
+
+            if (deleted) logger.debug("Deleted user with username: {} from shard: {}", username, source);
+            else logger.error("User with username: {} has changed in shard: {} after it was copied, so it's kept there to be reconciled", username, source);
+        }
+        logger.info("Migrated {} users", fingerprints.size());
+
+        return fingerprints.size();
+    }
+
+    @Override
+    public boolean migrateUser(String username, int shard) {
+
+        logger.debug("Parameters:: username: {}, shard: {}", username, shard);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        Assert.isTrue(shard >= 0 && shard < shardDirectory.getShardCount(), ConstantValues.DataSource.Error.SHARD_IS_INVALID);
+        logger.debug("Shard validity check passed");
+
+        if (shardDirectory.shardOf(username) == shard) return false;
+
+        return migrate(Map.of(username, shard)) == 1;
+    }
+
+    /**
+     * Takes or renews a lock of the shard_migration_locks table of the first shard, for {@link ConstantValues.DataSource}'s
+     * SHARD_MIGRATION_LOCK_LEASE_IN_MILLIS. It's taken with a single conditional write, if it's free, has expired, or is
+     * already held by the owner, so only one of the instances that try to take it at the same time succeeds. As the lock
+     * expires, it's not held forever by an instance that has failed.
+     * @return True if the owner holds the lock
+     */
+    private boolean lease(String lock, String owner) {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        return new JdbcTemplate(shardDirectory.getPrimary(0)).update("UPDATE " + ConstantValues.DataSource.SHARD_MIGRATION_LOCK_TABLE
+                        + " SET owner = ?, expires_at = ? WHERE name = ? AND (owner IS NULL OR owner = ? OR expires_at < ?)",
+                owner, now.plus(ConstantValues.DataSource.SHARD_MIGRATION_LOCK_LEASE_IN_MILLIS, ChronoUnit.MILLIS), lock, owner, now) == 1;
+    }
+
+    /**
+     * Releases a lock of the shard_migration_locks table, if it's still held by the owner.
+     */
+    private void release(String lock, String owner) {
+
+        new JdbcTemplate(shardDirectory.getPrimary(0)).update("UPDATE " + ConstantValues.DataSource.SHARD_MIGRATION_LOCK_TABLE
+                + " SET owner = NULL, expires_at = NULL WHERE name = ? AND owner = ?", lock, owner);
+    }
+
+    @Override
+    public long reshard(int ringSize) {
+
+        logger.debug("Parameters:: ringSize: {}", ringSize);
+
+        Assert.isTrue(ringSize > 0 && ringSize <= shardDirectory.getShardCount(), ConstantValues.DataSource.Error.SHARD_IS_INVALID);
+        logger.debug("Ring size validity check passed");
+
+        String owner = UUID.randomUUID().toString();
+
+        if (!lease(ConstantValues.DataSource.RESHARD_LOCK, owner)) {
+            logger.info("Resharding is being run by another instance, so it's skipped");
+            return 0;
+        }
+        logger.debug("Acquired the resharding lock as owner: {}", owner);
+
+        long migrated;
+
+        try {
+            migrated = reshardUsers(new ConsistentHashRing(ringSize, ConstantValues.DataSource.SHARD_VIRTUAL_NODES), owner);
+        }
+        finally {
+            release(ConstantValues.DataSource.RESHARD_LOCK, owner);
+        }
+        logger.info("Resharding to a ring of size: {} is done. Migrated {} users", ringSize, migrated);
+
+        return migrated;
+    }
+
+    /**
+     * Migrates the users of every shard that are not in the shard they would be placed at on the ring, a batch at a time.
+     * The resharding lock is renewed before every batch.
+     * @return The number of users that have been migrated
+     * @throws IllegalStateException if the resharding lock has expired and been taken by another instance
+     */
+    private long reshardUsers(ConsistentHashRing ring, String owner) {
+
+        long migrated = 0;
+
+        for (int shard = 0; shard < shardDirectory.getShardCount(); shard++) {
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardDirectory.getPrimary(shard));
+            String last = "";
+
+            while (true) {
+
+                List<String> usernames = jdbcTemplate.queryForList("SELECT username FROM users WHERE username > ? ORDER BY username LIMIT ?",
+                        String.class, last, ConstantValues.DataSource.SHARD_MIGRATION_BATCH_SIZE);
+                Map<String, Integer> batch = new LinkedHashMap<>();
+
+                for (String username : usernames) {
+
+                    // Skips the users left in the shard by an earlier attempt, which have already been migrated, and the
+                    // ones that are being migrated by a migration of a single user
+                    if (shardDirectory.shardOf(username) != shard || ring.shardOf(username) == shard || shardDirectory.isMigrating(username)) continue;
+
+                    batch.put(username, ring.shardOf(username));
+                }
+
+                if (!lease(ConstantValues.DataSource.RESHARD_LOCK, owner))
+                    throw new IllegalStateException("Resharding lock has been taken by another instance");
+
+                migrated += migrate(batch);
+
+                if (usernames.size() < ConstantValues.DataSource.SHARD_MIGRATION_BATCH_SIZE) break;
+                last = usernames.get(usernames.size() - 1);
+            }
+            logger.debug("Migrated the users of shard: {}", shard);
+        }
+
+        return migrated;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reshardOnStartup() {
+
+        Integer ringSize = environmentValues.TODO_DATASOURCE_RESHARD_TO_RING_SIZE;
+        if (ringSize == null) return;
+
+        new Thread(() -> {
+            try {
+                reshard(ringSize);
+            }
+            catch (RuntimeException e) {
+                logger.error("Resharding to a ring of size: {} has failed", ringSize, e);
+            }
+        }, "resharding").start();
+        logger.info("Started resharding to a ring of size: {} in the background", ringSize);
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.todo.service.implementation;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.EnvironmentValues;
+import com.example.todo.configuration.IdentityContext;
+import com.example.todo.configuration.ShardContext;
+import com.example.todo.configuration.ShardDirectory;
+import com.example.todo.exception.NotFoundException;
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoKey;
+import com.example.todo.model.TodoView;
+import com.example.todo.repository.ArchivedTodoRepository;
+import com.example.todo.repository.TodoRepository;
+import com.example.todo.repository.UserRepository;
+import com.example.todo.service.TodoArchiveService;
+import com.example.todo.service.TodoCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * An implementation of {@link TodoArchiveService}. The todos are archived every night, the schedule of which can be
+ * changed with the TODO_ARCHIVE_CRON environment variable.
+ */
+@Service
+public class TodoArchiveServiceImpl implements TodoArchiveService {
+
+    private final Logger logger = LoggerFactory.getLogger(TodoArchiveServiceImpl.class);
+    private ArchivedTodoRepository archivedTodoRepository;
+    private TodoRepository todoRepository;
+    private UserRepository userRepository;
+    private TodoCounterService todoCounterService;
+    private ShardDirectory shardDirectory;
+    private PlatformTransactionManager transactionManager;
+    private EnvironmentValues environmentValues;
+    private IdentityContext identityContext;
+
+    @Autowired
+    public void setArchivedTodoRepository(ArchivedTodoRepository archivedTodoRepository) {
+        this.archivedTodoRepository = archivedTodoRepository;
+    }
+
+    @Autowired
+    public void setTodoRepository(TodoRepository todoRepository) {
+        this.todoRepository = todoRepository;
+    }
+
+    @Autowired
+    public void setUserRepository(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Autowired
+    public void setTodoCounterService(TodoCounterService todoCounterService) {
+        this.todoCounterService = todoCounterService;
+    }
+
+    @Autowired
+    public void setShardDirectory(ShardDirectory shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    @Autowired
+    public void setEnvironmentValues(EnvironmentValues environmentValues) {
+        this.environmentValues = environmentValues;
+    }
+
+    @Autowired
+    public void setIdentityContext(IdentityContext identityContext) {
+        this.identityContext = identityContext;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<TodoView> findArchivedTodosByUsername(String username, int pageNo, int limit, List<Map.Entry<String, Sort.Direction>> orders) {
+
+        logger.debug("Parameters:: username: {}, page no: {}, limit: {}, orders: {}", username, pageNo, limit, orders);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        Assert.isTrue(pageNo > 0, ConstantValues.Todo.Error.INVALID_PAGE_NO);
+        logger.debug("Page no validity check passed");
+
+        Assert.isTrue(limit > 0, ConstantValues.Todo.Error.INVALID_PAGE_LIMIT);
+        logger.debug("Page limit validity check passed");
+
+        logger.info("All validity checks passed for finding archived todos for user with username: {}", username);
+
+        // All the archived todos are completed, so the indexes of the archive leave it out of the sorts
+        Sort sort = Sort.unsorted();
+
+        if (orders != null)
+            for (Map.Entry<String, Sort.Direction> order : orders)
+                if (!order.getKey().equals("completed"))
+                    sort = sort.and(Sort.by(order.getValue(), order.getKey()));
+
+        Pageable pageable = PageRequest.of(pageNo - 1, limit, sort);
+        logger.debug("Created Pageable object: {}", pageable);
+
+        List<TodoView> todos = archivedTodoRepository.findByUsername(username, pageable);
+        logger.info("Archived todos for user with username: {} have been fetched from the database", username);
+
+        long total = archivedTodoRepository.countByUsername(username);
+        logger.debug("Total archived todos count for user with username: {} is {}", username, total);
+
+        // The archived todos of a user are deleted along with it, so it only needs to be checked when none have been found
+        if (total == 0 && !identityContext.isUserVerified(username) && userRepository.findById(username).isEmpty())
+            throw new NotFoundException(ConstantValues.User.Error.USER_NOT_FOUND);
+
+        PageImpl<TodoView> page = new PageImpl<>(todos, pageable, total);
+        logger.info("Found {} archived todos for user with username: {} at page no: {} with limit: {} and sort orders: {}", page.getTotalElements(), username, pageNo, limit, orders);
+
+        return page;
+    }
+
+    @Override
+    @Scheduled(cron = "${TODO_ARCHIVE_CRON:0 0 4 * * *}")
+    public long archiveTodos() {
+
+        LocalDateTime updatedBefore = LocalDateTime.now().minusDays(environmentValues.TODO_ARCHIVE_AGE_IN_DAYS);
+        long archived = 0;
+
+        for (int shard = 0; shard < shardDirectory.getShardCount(); shard++) {
+            archived += archiveShardTodos(shard, updatedBefore);
+            logger.debug("Archived the todos of shard: {}", shard);
+        }
+        logger.info("Archival of todos updated before: {} is done. Archived {} todos", updatedBefore, archived);
+
+        return archived;
+    }
+
+    /**
+     * Archives the todos of a shard, a chunk per transaction, continuing after the key of the last todo of the previous chunk.
+     * @return The number of todos that have been archived
+     */
+    private long archiveShardTodos(int shard, LocalDateTime updatedBefore) {
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int chunkSize = environmentValues.TODO_ARCHIVE_CHUNK_SIZE;
+        long archived = 0;
+        TodoKey after = null;
+
+        while (true) {
+
+            TodoKey position = after;
+            List<TodoKey> keys = ShardContext.callOnShard(shard, () -> position == null
+                    ? todoRepository.findArchivableKeys(updatedBefore, PageRequest.of(0, chunkSize))
+                    : todoRepository.findArchivableKeysAfter(updatedBefore, position.getUpdatedAt(), position.getId(), PageRequest.of(0, chunkSize)));
+            List<UUID> ids = keys.stream().map(TodoKey::getId).toList();
+
+            if (!ids.isEmpty())
+                archived += ShardContext.callOnShard(shard, () -> transactionTemplate.execute(status -> archiveChunk(updatedBefore, ids)));
+
+            if (ids.size() < chunkSize) return archived;
+            after = keys.get(keys.size() - 1);
+            logger.debug("Archived a chunk of {} archivable todos of shard: {} until key: {}", ids.size(), shard, after);
+
+            try {
+                Thread.sleep(environmentValues.TODO_ARCHIVE_THROTTLE_IN_MILLIS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Archival of the todos of shard: {} has been interrupted after {} todos", shard, archived);
+                return archived;
+            }
+        }
+    }
+
+    /**
+     * Moves a chunk of todos to the archive and updates the counters of their users. The todos are locked and checked again,
+     * as they could have changed since their ids were read. Needs to be run in a transaction.
+     * @return The number of archived todos
+     */
+    private int archiveChunk(LocalDateTime updatedBefore, List<UUID> candidates) {
+
+        List<Todo> todos = todoRepository.findArchivableByIdIn(candidates, updatedBefore);
+        if (todos.isEmpty()) return 0;
+
+        List<UUID> ids = todos.stream().map(Todo::getId).toList();
+        archivedTodoRepository.archiveByIdIn(ids, LocalDateTime.now());
+        todoRepository.deleteByIdIn(ids);
+
+        // The user is a lazy proxy, whose username is its id, so it's not loaded
+        Map<String, Long> counts = todos.stream().collect(Collectors.groupingBy(todo -> todo.getUser().getUsername(), Collectors.counting()));
+        counts.forEach((username, count) -> todoCounterService.updateCounter(username, -count, -count));
+
+        return ids.size();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteArchivedTodos(String username) {
+
+        logger.debug("Parameters:: username: {}", username);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        int deleted = archivedTodoRepository.deleteByUsername(username);
+        logger.info("Deleted {} archived todos of user with username: {}", deleted, username);
+    }
+}
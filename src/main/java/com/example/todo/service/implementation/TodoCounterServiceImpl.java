@@ -0,0 +1,268 @@
+package com.example.todo.service.implementation;
+
+import com.example.todo.configuration.ShardContext;
+import com.example.todo.configuration.ShardDirectory;
+import com.example.todo.model.TodoCounter;
+import com.example.todo.repository.TodoCounterRepository;
+import com.example.todo.repository.TodoRepository;
+import com.example.todo.service.TodoCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * An implementation of {@link TodoCounterService}. The counters are reconciled every night, the schedule of which
+ * can be changed with the TODO_COUNTER_RECONCILIATION_CRON environment variable.
+ */
+@Service
+public class TodoCounterServiceImpl implements TodoCounterService {
+
+    private final Logger logger = LoggerFactory.getLogger(TodoCounterServiceImpl.class);
+    private TodoCounterRepository todoCounterRepository;
+    private TodoRepository todoRepository;
+    private ShardDirectory shardDirectory;
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @Autowired
+    public void setTodoCounterRepository(TodoCounterRepository todoCounterRepository) {
+        this.todoCounterRepository = todoCounterRepository;
+    }
+
+    @Autowired
+    public void setTodoRepository(TodoRepository todoRepository) {
+        this.todoRepository = todoRepository;
+    }
+
+    @Autowired
+    public void setShardDirectory(ShardDirectory shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Computes a {@link TodoCounter} of a user from the todos table.
+     */
+    private TodoCounter countTodos(String username) {
+
+        TodoCounter counter = new TodoCounter(
+                username,
+                todoRepository.countByUserUsername(username),
+                todoRepository.countByUserUsernameAndCompletedTrue(username)
+        );
+        logger.debug("Computed counter: {} from the todos table", counter);
+
+        return counter;
+    }
+
+    @Override
+    public TodoCounter findCounter(String username) {
+
+        logger.debug("Parameters:: username: {}", username);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        // Checked before the counter is read, as the read joins the transaction of the caller if there is one
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        TodoCounter counter = readOnlyTransactionTemplate.execute(status -> todoCounterRepository.findById(username).orElse(null));
+
+        if (counter == null) {
+            // The transaction of the caller may be read only, so the counter is only created by the reads outside of one,
+            // in a transaction after the read one, so that a single connection is held at a time. The users that are
+            // being migrated can't be written to
+            counter = inTransaction || shardDirectory.isMigrating(username)
+                    ? readOnlyTransactionTemplate.execute(status -> countTodos(username))
+                    : transactionTemplate.execute(status -> createCounter(username));
+        }
+        logger.info("Found counter: {} for user with username: {}", counter, username);
+
+        return counter;
+    }
+
+    /**
+     * Creates the absent counter of a user from its todos, with revision 0 and no modified at time, so the todos of the
+     * user are counted only by the first read. Needs to be run in a transaction.
+     * @return The created counter, or the one that has been created concurrently
+     */
+    private TodoCounter createCounter(String username) {
+
+        TodoCounter counted = countTodos(username);
+
+        if (todoCounterRepository.insertIfAbsent(username, counted.getTotal(), counted.getCompleted()) == 0) {
+            logger.debug("Counter for user with username: {} has been created concurrently", username);
+            return todoCounterRepository.findById(username).orElse(counted);
+        }
+        logger.info("Counter for user with username: {} is absent. Created it from the todos table", username);
+
+        return counted;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createCounter(String username, long total, long completed) {
+
+        logger.debug("Parameters:: username: {}, total: {}, completed: {}", username, total, completed);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        if (todoCounterRepository.insertIfAbsent(username, total, completed) == 0)
+            logger.debug("Counter for user with username: {} is already present", username);
+        else
+            logger.info("Counter for user with username: {} has been created with total: {}, completed: {}", username, total, completed);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void updateCounter(String username, long total, long completed) {
+
+        logger.debug("Parameters:: username: {}, total: {}, completed: {}", username, total, completed);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        LocalDateTime now = LocalDateTime.now();
+
+        if (todoCounterRepository.increment(username, total, completed, now) == 0) {
+
+            // Created in this transaction from the todos it sees, which include its own changes. If another one creates
+            // it in the meantime, the deltas are added to that one instead
+            TodoCounter counted = countTodos(username);
+            todoCounterRepository.upsert(username, counted.getTotal(), counted.getCompleted(), total, completed, now);
+            logger.info("Counter for user with username: {} was absent. Created it from the todos table", username);
+        }
+        logger.info("Counter for user with username: {} has been updated by total: {}, completed: {}", username, total, completed);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteCounter(String username) {
+
+        logger.debug("Parameters:: username: {}", username);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        if (todoCounterRepository.existsById(username)) {
+            todoCounterRepository.deleteById(username);
+            logger.info("Counter for user with username: {} has been deleted", username);
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${TODO_COUNTER_RECONCILIATION_CRON:0 0 3 * * *}")
+    public long reconcileCounters() {
+
+        long fixed = 0;
+
+        for (int shard = 0; shard < shardDirectory.getShardCount(); shard++) {
+
+            // The transactions are bound to the shard of their connections
+            fixed += ShardContext.callOnShard(shard, () -> reconcileShardCounters(transactionTemplate));
+            logger.debug("Reconciled the counters of shard: {}", shard);
+        }
+        logger.info("Reconciliation of todo counters is done. Fixed {} counters", fixed);
+
+        return fixed;
+    }
+
+    /**
+     * Reconciles the counters of the shard of the current thread. The counters that look drifted are found without any
+     * lock, and each of them is then fixed in its own transaction by {@link #reconcileCounter}, so the writes of the other
+     * users don't wait for the whole shard.
+     * @return The number of counters that have been fixed
+     */
+    private long reconcileShardCounters(TransactionTemplate transactionTemplate) {
+
+        Map<String, TodoCounter> actual = transactionTemplate.execute(status -> todoRepository
+                .countAllGroupByUsername()
+                .stream()
+                .collect(Collectors.toMap(TodoCounter::getUsername, Function.identity())));
+        logger.debug("Computed {} counters from the todos table", actual.size());
+
+        List<String> candidates = new ArrayList<>();
+
+        for (TodoCounter counter : transactionTemplate.execute(status -> todoCounterRepository.findAll())) {
+
+            TodoCounter expected = actual.remove(counter.getUsername());
+            long total = expected == null ? 0 : expected.getTotal();
+            long completed = expected == null ? 0 : expected.getCompleted();
+
+            if (!Objects.equals(counter.getTotal(), total) || !Objects.equals(counter.getCompleted(), completed))
+                candidates.add(counter.getUsername());
+        }
+
+        // Users with todos, but without a counter. Their todos are unchanged, so revision stays 0
+        candidates.addAll(actual.keySet());
+        logger.debug("Found {} counters that may have drifted", candidates.size());
+
+        long fixed = 0;
+
+        for (String username : candidates) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reconcileCounter(username)))) fixed++;
+            }
+            catch (DataIntegrityViolationException e) {
+                // The counter was created by a change of the todos of the user in the meantime, which counted them itself
+                logger.debug("Counter for user with username: {} has been created concurrently", username);
+            }
+        }
+        logger.debug("Fixed {} counters", fixed);
+
+        return fixed;
+    }
+
+    /**
+     * Recounts the todos of a user and fixes its counter if it has drifted. The counter is locked before the todos are
+     * counted, so a change of the todos that commits in the meantime either has already updated the counter, or waits to
+     * do so until it has been fixed, and isn't overwritten. A fixed counter gets a new revision, as the counts are a part
+     * of the todo list. Needs to be run in a transaction.
+     * @return True if the counter has been fixed or created
+     */
+    private boolean reconcileCounter(String username) {
+
+        Optional<TodoCounter> counter = todoCounterRepository.findByIdForUpdate(username);
+        TodoCounter expected = countTodos(username);
+
+        if (counter.isEmpty()) {
+
+            if (expected.getTotal() == 0) return false;
+
+            todoCounterRepository.save(expected);
+            logger.warn("Counter for user with username: {} is absent. Created it: {}", username, expected);
+
+            return true;
+        }
+
+        if (Objects.equals(counter.get().getTotal(), expected.getTotal()) && Objects.equals(counter.get().getCompleted(), expected.getCompleted()))
+            return false;
+
+        logger.warn("Counter: {} has drifted. Expected total: {}, completed: {}", counter.get(), expected.getTotal(), expected.getCompleted());
+        todoCounterRepository.reset(username, expected.getTotal(), expected.getCompleted(), LocalDateTime.now());
+
+        return true;
+    }
+}
@@ -1,37 +1,48 @@
 package com.example.todo.service.implementation;
 
 import com.example.todo.configuration.ConstantValues;
-import com.example.todo.exception.AlreadyExistException;
+import com.example.todo.configuration.IdentityContext;
+import com.example.todo.exception.ConstraintValidationException;
 import com.example.todo.exception.NotFoundException;
+import com.example.todo.exception.PreconditionFailedException;
 import com.example.todo.model.Todo;
+import com.example.todo.model.TodoBatchResult;
+import com.example.todo.model.TodoFilter;
+import com.example.todo.model.TodoView;
 import com.example.todo.model.User;
 import com.example.todo.service.validation.TodoValidator;
 import com.example.todo.service.validation.implementation.TodoValidatorImpl;
 import com.example.todo.repository.TodoRepository;
 import com.example.todo.repository.UserRepository;
+import com.example.todo.service.TodoCounterService;
 import com.example.todo.service.TodoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * An implementation of {@link TodoService}.
  */
 @Service
-public class TodoServiceImpl extends AbstractModelServiceImpl<Todo> implements TodoService {
+public class TodoServiceImpl implements TodoService {
 
     private final Logger logger = LoggerFactory.getLogger(TodoServiceImpl.class);
     private TodoRepository todoRepository;
     private UserRepository userRepository;
     private TodoValidator todoValidator;
+    private TodoCounterService todoCounterService;
+    private IdentityContext identityContext;
 
     @Autowired
     public void setTodoRepository(TodoRepository todoRepository) {
@@ -48,6 +59,16 @@ public class TodoServiceImpl extends AbstractModelServiceImpl<Todo> implements T
         this.todoValidator = todoValidatorImpl;
     }
 
+    @Autowired
+    public void setTodoCounterService(TodoCounterService todoCounterService) {
+        this.todoCounterService = todoCounterService;
+    }
+
+    @Autowired
+    public void setIdentityContext(IdentityContext identityContext) {
+        this.identityContext = identityContext;
+    }
+
     private Sort createSort(List<Map.Entry<String, Sort.Direction>> orders) {
 
         logger.debug("Parameters:: orders: {}", orders);
@@ -69,54 +90,82 @@ public class TodoServiceImpl extends AbstractModelServiceImpl<Todo> implements T
     }
 
     /**
-     * Finds a user with the given username and returns an {@link Optional} {@link User}. Also takes an optional boolean parameter
-     * throwException that indicates if and when an exception should be thrown. If throwException is true and the user
-     * exists, then an {@link AlreadyExistException} is thrown. If throwException is false and the user does not exist,
-     * then a {@link NotFoundException} is thrown. If throwException is null, then no exception is thrown.
-     * @param username The username
-     * @param throwException Boolean, indicating if an exception should be thrown and when.
-     * @return The Optional user
+     * Creates the sort orders of a scroll that has none, so that its keyset is the order of an index of the todos table,
+     * rather than the id alone, which none of the indexes has after the username. It's the first index of INDEXED_SORTS
+     * that the filter is a prefix of, after the equality properties of the filter. A filter on a property that only has
+     * an index of its own, like the updated at time, is sorted by that property and the id instead.
+     */
+    private List<Map.Entry<String, Sort.Direction>> createDefaultSortOrders(TodoFilter filter) {
+
+        List<String> properties = filter.getProperties();
+        int equalities = filter.getEqualityProperties().size();
+
+        List<String> sort = ConstantValues.Todo.INDEXED_SORTS
+                .stream()
+                .filter(index -> index.size() > properties.size() && index.subList(0, properties.size()).equals(properties))
+                .findFirst()
+                .map(index -> index.subList(equalities, index.size()))
+                .orElseGet(() -> {
+                    List<String> rangeProperties = new ArrayList<>(properties.subList(equalities, properties.size()));
+                    rangeProperties.add("id");
+                    return rangeProperties;
+                });
+        logger.debug("Default sort properties for filter: {} are {}", filter, sort);
+
+        return sort.stream().map(property -> Map.entry(property, Sort.Direction.ASC)).toList();
+    }
+
+    /**
+     * Checks that the user with the given username exists. It's checked at most once per request, as remembered by the
+     * {@link IdentityContext}, and by the primary key, so it's usually served by the second level cache without a query.
+     * The todos of a user are deleted along with it, so it only needs to be checked when no todos have been found.
+     * @throws NotFoundException if the user does not exist
      */
-    private Optional<User> findUser(String username, Boolean throwException) {
+    private void verifyUser(String username) {
 
-        Optional<User> user = userRepository.findById(username);
+        if (identityContext.isUserVerified(username)) {
+            logger.debug("User with username: {} has already been verified in this request", username);
+            return;
+        }
 
-        if (throwException != null && throwException && user.isPresent()) // Throw exception if present
-            throw new AlreadyExistException(ConstantValues.User.Error.USER_EXISTS);
-        else if (throwException != null && !throwException && user.isEmpty()) // Throw exception if not present
+        if (userRepository.findById(username).isEmpty())
             throw new NotFoundException(ConstantValues.User.Error.USER_NOT_FOUND);
 
-        return user;
+        identityContext.setUserVerified(username.equals(identityContext.getUsername()));
+        logger.debug("User with username: {} has been verified to exist in the database", username);
     }
 
     /**
-     * Finds a todo with the given id and a username and returns an {@link Optional} {@link Todo}. second parameter is an optional boolean parameter
-     * throwException that indicates if and when an exception should be thrown. If throwException is true and the todo
-     * exists, then an {@link AlreadyExistException} is thrown. If throwException is false and the tod does not exist,
-     * then a {@link NotFoundException} is thrown. If throwException is null, then the third parameter, matchUsername, is checked, which indicates
-     * whether the todo belongs to a specific user or not, judged by the given username. if matchUsername is true and the todo does not belong
-     * to the given user, then an {@link NotFoundException} is thrown.
-     * @param username The username
-     * @param throwException Boolean, indicating if an exception should be thrown and when.
-     * @return The Optional user
+     * Flushes the new todos of a user, which refer to the user by a reference that hasn't been loaded. So the foreign key
+     * of the todos verifies that the user exists, instead of a separate query.
+     * @throws NotFoundException if the user does not exist
      */
-    private Optional<Todo> findTodo(String username, UUID todoId, Boolean throwException, boolean matchUsername) {
+    private void flushNewTodos(String username) {
 
-        Optional<Todo> todo = todoRepository.findById(todoId);
+        try {
+            todoRepository.flush();
+        }
+        catch (DataIntegrityViolationException e) {
+            logger.warn("Foreign key check failed for the new todos of user with username: {}", username);
+            throw new NotFoundException(ConstantValues.User.Error.USER_NOT_FOUND);
+        }
+    }
 
-        if (throwException != null && throwException && todo.isPresent()) // Throw exception if present
-            throw new AlreadyExistException(ConstantValues.Todo.Error.TODO_EXISTS);
-        else if (throwException != null && !throwException && todo.isEmpty()) // Throw exception if not present
-            throw new NotFoundException(ConstantValues.Todo.Error.TODO_NOT_FOUND);
+    /**
+     * Called when a conditional write to a todo affected no rows. Throws {@link PreconditionFailedException} if the todo
+     * exists and belongs to the user, as then only its version could have differed, or {@link NotFoundException} otherwise.
+     */
+    private void throwNotFoundOrPreconditionFailed(String username, UUID id) {
 
-        if (matchUsername && todo.isPresent() && !todo.get().getUser().getUsername().equals(username))
+        if (todoRepository.existsByIdAndUserUsername(id, username))
+            throw new PreconditionFailedException(ConstantValues.Todo.Error.TODO_VERSION_MISMATCH);
+        else
             throw new NotFoundException(ConstantValues.Todo.Error.TODO_NOT_FOUND);
-
-        return todo;
     }
 
     @Override
-    public Todo findTodo(String username, UUID id) {
+    @Transactional(readOnly = true)
+    public TodoView findTodo(String username, UUID id) {
 
         logger.debug("Parameters:: username: {}, id: {}", username, id);
 
@@ -126,34 +175,37 @@ public class TodoServiceImpl extends AbstractModelServiceImpl<Todo> implements T
         if (id == null) throw new RuntimeException("Id cannot be null");
         logger.debug("Not null check passed for id");
 
-        Todo todo = findTodo(username, id, false, true).get();
-        logger.info("Todo with id: {}, username: {} has been found", todo.getId(), todo.getUser().getUsername());
+        TodoView todo = todoRepository
+                .findByIdAndUsername(id, username)
+                .orElseThrow(() -> new NotFoundException(ConstantValues.Todo.Error.TODO_NOT_FOUND));
+        logger.info("Todo with id: {}, username: {} has been found", todo.getId(), username);
 
         return todo;
     }
 
     @Override
-    public Page<Todo> findTodosByUsername(String username, int pageNo, int limit, List<Map.Entry<String, Sort.Direction>> orders) {
+    @Transactional(readOnly = true)
+    public Page<TodoView> findTodosByUsername(String username, TodoFilter filter, int pageNo, int limit, List<Map.Entry<String, Sort.Direction>> orders) {
 
-        logger.debug("Parameters:: username: {}, page no: {}, limit: {}, orders: {}", username, pageNo, limit, orders);
+        logger.debug("Parameters:: username: {}, filter: {}, page no: {}, limit: {}, orders: {}", username, filter, pageNo, limit, orders);
 
         if (username == null) throw new RuntimeException("Username cannot be null");
         logger.debug("Not null check passed for username");
 
+        todoValidator.validateFilter(filter, orders);
+        logger.debug("Index check passed for filter and sort orders");
+
         Assert.isTrue(pageNo > 0, ConstantValues.Todo.Error.INVALID_PAGE_NO);
         logger.debug("Page no validity check passed");
 
         Assert.isTrue(limit > 0, ConstantValues.Todo.Error.INVALID_PAGE_LIMIT);
         logger.debug("Page limit validity check passed");
 
-        findUser(username, false);
-        logger.debug("User with username: {} has been found in the database", username);
-
         logger.info("::Skipping validation check for sorting information::");
         logger.info("All validity checks passed for finding todos for user with username: {}", username);
 
         Pageable pageable;
-        List<Todo> todos;
+        List<TodoView> todos;
 
         if (orders == null)
             pageable = PageRequest.of(--pageNo, limit, Sort.unsorted());
@@ -161,22 +213,113 @@ public class TodoServiceImpl extends AbstractModelServiceImpl<Todo> implements T
             pageable = PageRequest.of(--pageNo, limit, createSort(orders));
         logger.debug("Created Pageable object: {}", pageable);
 
-        todos = todoRepository
-                .findByUsername(username, pageable)
-                .getContent()
-                .stream()
-                .toList();
-        logger.info("Todos for user with username: {} have been fetched from the database", username);
+        long total;
+
+        if (filter.isEmpty()) {
+
+            todos = todoRepository.findByUsername(username, pageable);
+            logger.info("Todos for user with username: {} have been fetched from the database", username);
+
+            total = todoCounterService.findCounter(username).getTotal();
+            logger.debug("Total todos count for user with username: {} is {}", username, total);
+        }
+        else { // The counter only counts all the todos of the user, so the matching ones are counted by the database
+
+            Specification<Todo> matches = TodoRepository.matches(username, filter);
+
+            todos = todoRepository.findViews(matches, pageable);
+            logger.info("Todos for user with username: {} matching filter: {} have been fetched from the database", username, filter);
+
+            total = todoRepository.count(matches);
+            logger.debug("Total todos count for user with username: {} matching filter: {} is {}", username, filter, total);
+        }
+
+        if (todos.isEmpty()) verifyUser(username);
 
-        PageImpl<Todo> page = new PageImpl<>(todos, pageable, todos.size());
+        PageImpl<TodoView> page = new PageImpl<>(todos, pageable, total);
         logger.debug("Created Page object: {}", page);
 
-        logger.info("Found {} todos for user with username: {} at page no: {} with limit: {} and sort orders: {}", page.getTotalElements(), username, pageNo, limit, orders);
+        logger.info("Found {} todos for user with username: {} matching filter: {} at page no: {} with limit: {} and sort orders: {}", page.getTotalElements(), username, filter, pageNo, limit, orders);
 
         return page;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Window<TodoView> findTodosByUsername(String username, TodoFilter filter, KeysetScrollPosition position, int limit, List<Map.Entry<String, Sort.Direction>> orders) {
+
+        logger.debug("Parameters:: username: {}, filter: {}, position: {}, limit: {}, orders: {}", username, filter, position, limit, orders);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        todoValidator.validateFilter(filter, orders);
+        logger.debug("Index check passed for filter and sort orders");
+
+        if (position == null) throw new RuntimeException("Position cannot be null");
+        logger.debug("Not null check passed for position");
+
+        Assert.isTrue(limit > 0, ConstantValues.Todo.Error.INVALID_PAGE_LIMIT);
+        logger.debug("Page limit validity check passed");
+
+        Sort sort = createSort(orders == null || orders.isEmpty() ? createDefaultSortOrders(filter) : orders);
+        logger.debug("Created Sort object: {}", sort);
+
+        if (!position.isInitial()) {
+
+            Set<String> keys = new HashSet<>();
+            sort.forEach(order -> keys.add(order.getProperty()));
+            keys.add("id");
+
+            Assert.isTrue(keys.equals(position.getKeys().keySet()), ConstantValues.RestApi.Error.INVALID_CURSOR);
+            logger.debug("Keyset position keys match the sort properties");
+        }
+
+        logger.info("All validity checks passed for scrolling todos for user with username: {}", username);
+
+        Window<TodoView> window = todoRepository
+                .findBy(TodoRepository.matches(username, filter), query -> query.sortBy(sort).limit(limit).scroll(position))
+                .map(TodoView::of);
+
+        if (window.isEmpty()) verifyUser(username);
+
+        logger.info("Found {} todos for user with username: {} matching filter: {} after position: {} with limit: {} and sort orders: {}", window.size(), username, filter, position, limit, orders);
+
+        return window;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportTodos(String username, Consumer<TodoView> consumer) {
+
+        logger.debug("Parameters:: username: {}, consumer: {}", username, consumer);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        if (consumer == null) throw new RuntimeException("Consumer cannot be null");
+        logger.debug("Not null check passed for consumer");
+
+        long count = 0;
+
+        // The stream holds an open result set, which is closed along with it
+        try (Stream<TodoView> todos = todoRepository.streamByUsername(username)) {
+
+            Iterator<TodoView> iterator = todos.iterator();
+
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+
+        logger.info("Exported {} todos for user with username: {}", count, username);
+
+        return count;
+    }
+
+    @Override
+    @Transactional
     public Todo createTodo(String username, Todo todo) {
 
         logger.debug("Parameters:: username: {}, todo: {}", username, todo);
@@ -187,29 +330,98 @@ public class TodoServiceImpl extends AbstractModelServiceImpl<Todo> implements T
         todoValidator.validate(todo, TodoValidator.Operation.Create);
         logger.debug("Validation passed for create-todo operation, for given todo object");
 
-        User user = findUser(username, false).get();
-        logger.debug("User with username: {} has been found in the database", username);
+        User user = userRepository.getReferenceById(username);
+        logger.debug("Reference to user with username: {} has been created, without loading it", username);
 
         logger.info("All validation checks passed for create-todo operation for user with username: {}", username);
 
-        todo
-                .setId(UUID.randomUUID())
+        todo // The id is generated on persist
+                .setId(null)
                 .setCreatedAt(LocalDateTime.now())
                 .setUpdatedAt(LocalDateTime.now())
                 .setUser(user);
-        logger.debug("Todo id: {}, created at: {}, updated at: {}, user with username: {} has been set",
-                todo.getId(), todo.getCreatedAt(), todo.getUpdatedAt(), todo.getUser().getUsername());
+        logger.debug("Todo created at: {}, updated at: {}, user with username: {} has been set",
+                todo.getCreatedAt(), todo.getUpdatedAt(), todo.getUser().getUsername());
 
         todo = todoRepository.save(todo);
+        flushNewTodos(username);
         logger.info("Todo with id: {} for user with username: {} has been saved in the database", todo.getId(), todo.getUser().getUsername());
 
+        todoCounterService.updateCounter(username, 1, todo.getCompleted() ? 1 : 0);
+        logger.debug("Todo counter for user with username: {} has been updated", username);
+
         return todo;
     }
 
     @Override
-    public Todo updateTodo(String username, UUID id, Todo todo) {
+    @Transactional
+    public List<TodoBatchResult> createTodos(String username, List<Todo> todos) {
 
-        logger.debug("Parameters:: username: {}, id: {}, todo: {}", username, id, todo);
+        logger.debug("Parameters:: username: {}, todos: {}", username, todos);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        Assert.notNull(todos, ConstantValues.RestApi.Error.REQUEST_BODY_NEEDED);
+        logger.debug("Not null check passed for todos");
+
+        Assert.isTrue(!todos.isEmpty() && todos.size() <= ConstantValues.Todo.BATCH_MAX_SIZE, ConstantValues.Todo.Error.BATCH_SIZE_IS_INVALID);
+        logger.debug("Batch size validity check passed");
+
+        List<TodoBatchResult> results = new ArrayList<>();
+        List<Todo> valid = new ArrayList<>();
+
+        for (Todo todo : todos) {
+            try {
+                todoValidator.validate(todo, TodoValidator.Operation.Create);
+                results.add(new TodoBatchResult().setStatus(HttpStatus.CREATED.value()));
+                valid.add(todo);
+            }
+            catch (ConstraintValidationException e) {
+                results.add(new TodoBatchResult().setStatus(HttpStatus.BAD_REQUEST.value()).setMessages(e.getMessages()));
+            }
+            catch (IllegalArgumentException e) {
+                results.add(new TodoBatchResult().setStatus(HttpStatus.BAD_REQUEST.value()).setMessages(List.of(e.getMessage())));
+            }
+        }
+        logger.debug("Validation passed for {} out of {} todos of create-todos operation", valid.size(), todos.size());
+
+        User user = userRepository.getReferenceById(username);
+        logger.debug("Reference to user with username: {} has been created, without loading it", username);
+
+        logger.info("All validation checks passed for create-todos operation for user with username: {}", username);
+
+        LocalDateTime now = LocalDateTime.now();
+        valid.forEach(todo -> todo // The ids are generated on persist, which lets the inserts be batched
+                .setId(null)
+                .setCreatedAt(now)
+                .setUpdatedAt(now)
+                .setUser(user));
+        logger.debug("Todo created at, updated at: {}, user with username: {} have been set for {} todos", now, username, valid.size());
+
+        List<Todo> saved = todoRepository.saveAll(valid);
+        flushNewTodos(username);
+        logger.info("{} todos for user with username: {} have been saved in the database", saved.size(), username);
+
+        Iterator<Todo> iterator = saved.iterator();
+        results
+                .stream()
+                .filter(result -> result.getStatus() == HttpStatus.CREATED.value())
+                .forEach(result -> result.setTodo(TodoView.of(iterator.next())));
+
+        if (!saved.isEmpty()) {
+            todoCounterService.updateCounter(username, saved.size(), saved.stream().filter(Todo::getCompleted).count());
+            logger.debug("Todo counter for user with username: {} has been updated", username);
+        }
+
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public TodoView updateTodo(String username, UUID id, Long version, Todo todo) {
+
+        logger.debug("Parameters:: username: {}, id: {}, version: {}, todo: {}", username, id, version, todo);
 
         if (username == null) throw new RuntimeException("Username cannot be null");
         logger.debug("Not null check passed for username");
@@ -220,31 +432,114 @@ public class TodoServiceImpl extends AbstractModelServiceImpl<Todo> implements T
         todoValidator.validate(todo, TodoValidator.Operation.Update);
         logger.debug("Validation passed for update-todo operation");
 
-        Todo databaseTodo = findTodo(username, id, false, true).get();
-        logger.debug("Todo with id: {} for user with username: {} has been found in the database", id, username);
-
         logger.info("All validation checks passed for update-todo operation for todo with id: {}, username: {}", id, username);
 
-        boolean isUpdated = super.batchUpdate(databaseTodo, todo);
-        logger.debug("Executed batchUpdate method. Returned isUpdated: {}", isUpdated);
+        if (todo.getTitle() == null && todo.getDescription() == null && todo.getScheduledAt() == null && todo.getCompleted() == null) {
 
-        if (isUpdated) {
-            databaseTodo.setUpdatedAt(LocalDateTime.now());
-            logger.debug("Updated Todo information has been set");
+            TodoView present = findTodo(username, id);
 
-            databaseTodo = todoRepository.save(databaseTodo);
-            logger.info("Todo with id: {} for user with username: {} has been saved in the database", databaseTodo.getId(), databaseTodo.getUser().getUsername());
-        }
-        else
+            if (version != null && !version.equals(present.getVersion())) throw new PreconditionFailedException(ConstantValues.Todo.Error.TODO_VERSION_MISMATCH);
             logger.info("No todo information has been updated as there is nothing to update");
 
-        return databaseTodo;
+            return present;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        long completed = 0;
+        int updated = 0;
+
+        // Tried first only if it changes the completed field, so that the todo counter can be updated without reading the todo first
+        if (todo.getCompleted() != null) {
+
+            updated = todoRepository.updateByIdAndUsername(id, username, version, todo.getTitle(), todo.getDescription(), todo.getScheduledAt(), todo.getCompleted(), now, true);
+            logger.debug("Executed update of todo fields if completed changes. Returned updated: {}", updated);
+
+            if (updated > 0) completed = todo.getCompleted() ? 1 : -1;
+        }
+
+        if (updated == 0) {
+            updated = todoRepository.updateByIdAndUsername(id, username, version, todo.getTitle(), todo.getDescription(), todo.getScheduledAt(), todo.getCompleted(), now, false);
+            logger.debug("Executed update of todo fields. Returned updated: {}", updated);
+        }
+
+        if (updated == 0) throwNotFoundOrPreconditionFailed(username, id);
+        logger.info("Todo with id: {} for user with username: {} has been updated in the database", id, username);
+
+        todoCounterService.updateCounter(username, 0, completed);
+        logger.debug("Todo counter for user with username: {} has been updated", username);
+
+        // Locked by the update until the transaction ends, so it's read exactly as it has been written
+        return todoRepository
+                .findByIdAndUsername(id, username)
+                .orElseThrow(() -> new NotFoundException(ConstantValues.Todo.Error.TODO_NOT_FOUND));
     }
 
     @Override
-    public Todo deleteTodo(String username, UUID id) {
+    @Transactional
+    public long updateTodos(String username, TodoFilter filter, Todo todo) {
 
-        logger.debug("Parameters:: username: {}, id: {}", username, id);
+        logger.debug("Parameters:: username: {}, filter: {}, todo: {}", username, filter, todo);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        if (filter == null) throw new RuntimeException("Filter cannot be null");
+        logger.debug("Not null check passed for filter");
+
+        Assert.notNull(todo, ConstantValues.RestApi.Error.REQUEST_BODY_NEEDED);
+        Assert.notNull(todo.getCompleted(), ConstantValues.Todo.Error.COMPLETED_NEEDED);
+        logger.debug("Not null check passed for todo and its completed field");
+
+        logger.info("All validation checks passed for update-todos operation for user with username: {}", username);
+
+        long updated = todoRepository.updateCompleted(TodoRepository.matches(username, filter), todo.getCompleted(), LocalDateTime.now());
+        logger.info("{} todos for user with username: {} matching filter: {} have been updated in the database", updated, username, filter);
+
+        if (updated > 0) {
+            todoCounterService.updateCounter(username, 0, todo.getCompleted() ? updated : -updated);
+            logger.debug("Todo counter for user with username: {} has been updated", username);
+        }
+
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public long deleteTodos(String username, TodoFilter filter) {
+
+        logger.debug("Parameters:: username: {}, filter: {}", username, filter);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        if (filter == null) throw new RuntimeException("Filter cannot be null");
+        logger.debug("Not null check passed for filter");
+
+        Assert.isTrue(!filter.isEmpty(), ConstantValues.Todo.Error.FILTER_NEEDED);
+        logger.debug("Not empty check passed for filter");
+
+        logger.info("All validation checks passed for delete-todos operation for user with username: {}", username);
+
+        // Completed and pending todos are deleted separately, so that the counter can be updated without counting them first
+        Specification<Todo> matches = TodoRepository.matches(username, filter);
+        long completed = todoRepository.delete(matches.and((root, query, builder) -> builder.isTrue(root.get("completed"))));
+        long pending = todoRepository.delete(matches.and((root, query, builder) -> builder.isFalse(root.get("completed"))));
+        logger.info("{} completed and {} pending todos for user with username: {} matching filter: {} have been deleted from the database",
+                completed, pending, username, filter);
+
+        if (completed + pending > 0) {
+            todoCounterService.updateCounter(username, -(completed + pending), -completed);
+            logger.debug("Todo counter for user with username: {} has been updated", username);
+        }
+
+        return completed + pending;
+    }
+
+    @Override
+    @Transactional
+    public void deleteTodo(String username, UUID id, Long version) {
+
+        logger.debug("Parameters:: username: {}, id: {}, version: {}", username, id, version);
 
         if (username == null) throw new RuntimeException("Username cannot be null");
         logger.debug("Not null check passed for username");
@@ -252,14 +547,22 @@ public class TodoServiceImpl extends AbstractModelServiceImpl<Todo> implements T
         if (id == null) throw new RuntimeException("Id cannot be null");
         logger.debug("Not null check passed for id");
 
-        Todo todo = findTodo(username, id, false, true).get();
-        logger.debug("Todo with id: {} for user with username: {} has been found in the database", id, username);
-
         logger.info("All validation checks passed for delete-todo operation for todo with id: {}, username: {}", id, username);
 
-        todoRepository.deleteById(id);
+        // Read first for its completed field, which the todo counter needs, and deleted only if it still has the version it's been read with
+        TodoView present = findTodo(username, id);
+
+        if (version != null && !version.equals(present.getVersion())) throw new PreconditionFailedException(ConstantValues.Todo.Error.TODO_VERSION_MISMATCH);
+        logger.debug("Version check passed for todo with id: {}", id);
+
+        // Otherwise it has changed or been deleted since it's been read, which the snapshot of the transaction can't tell apart
+        if (todoRepository.deleteByIdAndUsername(id, username, present.getVersion()) == 0)
+            throw new PreconditionFailedException(ConstantValues.Todo.Error.TODO_VERSION_MISMATCH);
         logger.info("Todo with id: {} for user with username: {} has been deleted from the database", id, username);
 
-        return todo;
+        boolean completed = present.getCompleted();
+
+        todoCounterService.updateCounter(username, -1, completed ? -1 : 0);
+        logger.debug("Todo counter for user with username: {} has been updated", username);
     }
 }
@@ -2,6 +2,7 @@ package com.example.todo.service.implementation;
 
 import com.example.todo.configuration.ConstantValues;
 import com.example.todo.configuration.EnvironmentValues;
+import com.example.todo.configuration.ShardContext;
 import com.example.todo.exception.AlreadyExistException;
 import com.example.todo.exception.NotFoundException;
 import com.example.todo.model.PasswordUpdateRequest;
@@ -9,22 +10,29 @@ import com.example.todo.model.Role;
 import com.example.todo.model.User;
 import com.example.todo.repository.RoleRepository;
 import com.example.todo.repository.UserRepository;
+import com.example.todo.service.TodoArchiveService;
+import com.example.todo.service.TodoCounterService;
 import com.example.todo.service.UserService;
 import com.example.todo.service.validation.PasswordUpdateRequestValidator;
 import com.example.todo.service.validation.UserValidator;
 import com.example.todo.service.validation.implementation.UserValidatorImpl;
+import com.example.todo.utility.TokenGenerationStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 /**
- * An implementation of {@link UserService}.
+ * An implementation of {@link UserService}. Changing the password of a user, or deleting the user, revokes all the tokens
+ * of the user by changing its token generation, see {@link TokenGenerationStore}.
  */
 @Service
 public class UserServiceImpl extends AbstractModelServiceImpl<User> implements UserService {
@@ -36,6 +44,10 @@ public class UserServiceImpl extends AbstractModelServiceImpl<User> implements U
     private RoleRepository roleRepository;
     private UserValidator userValidator;
     private PasswordUpdateRequestValidator passwordUpdateRequestValidator;
+    private TodoCounterService todoCounterService;
+    private TodoArchiveService todoArchiveService;
+    private TokenGenerationStore tokenGenerationStore;
+    private TransactionTemplate transactionTemplate;
 
     @Autowired
     public void setEnvironmentValues(EnvironmentValues environmentValues) {
@@ -67,18 +79,39 @@ public class UserServiceImpl extends AbstractModelServiceImpl<User> implements U
         this.passwordUpdateRequestValidator = passwordUpdateRequestValidator;
     }
 
+    @Autowired
+    public void setTodoCounterService(TodoCounterService todoCounterService) {
+        this.todoCounterService = todoCounterService;
+    }
+
+    @Autowired
+    public void setTodoArchiveService(TodoArchiveService todoArchiveService) {
+        this.todoArchiveService = todoArchiveService;
+    }
+
+    @Autowired
+    public void setTokenGenerationStore(TokenGenerationStore tokenGenerationStore) {
+        this.tokenGenerationStore = tokenGenerationStore;
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     /**
      * Finds a user with the given username and returns an {@link Optional} {@link User}. Also takes an optional boolean parameter
      * throwException that indicates if and when an exception should be thrown. If throwException is true and the user
      * exists, then an {@link AlreadyExistException} is thrown. If throwException is false and the user does not exist,
      * then a {@link NotFoundException} is thrown. If throwException is null, then no exception is thrown.
+     * The user is always read from the database, as its password is checked or it's updated by the callers.
      * @param username The username
      * @param throwException Boolean, indicating if an exception should be thrown and when.
      * @return The Optional user
      */
     private Optional<User> findUser(String username, Boolean throwException) {
 
-        Optional<User> user = userRepository.findById(username);
+        Optional<User> user = userRepository.findByIdUncached(username);
 
         if (throwException != null && throwException && user.isPresent()) // Throw exception if present
             throw new AlreadyExistException(ConstantValues.User.Error.USER_EXISTS);
@@ -89,6 +122,7 @@ public class UserServiceImpl extends AbstractModelServiceImpl<User> implements U
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User findUser(String username) {
 
         logger.debug("Parameters:: username: {}", username);
@@ -102,13 +136,14 @@ public class UserServiceImpl extends AbstractModelServiceImpl<User> implements U
         return user;
     }
 
-    @Override
-    public User createUser(User user) {
-
-        logger.debug("Parameters:: user: {}", user);
-
-        userValidator.validate(user, UserValidator.Operation.Create);
-        logger.debug("Validation for user-creation-operation passed for user with username: {}", user.getUsername());
+    /**
+     * Saves a validated new {@link User}, whose password has already been encoded, with the roles of the new users.
+     * Needs to be run in a transaction.
+     * @param user The user
+     * @return The saved user
+     * @throws AlreadyExistException if the user already exists
+     */
+    private User saveNewUser(User user) {
 
         findUser(user.getUsername(), true);
         logger.debug("Absence of user with username: {} in database check is passed", user.getUsername());
@@ -124,13 +159,65 @@ public class UserServiceImpl extends AbstractModelServiceImpl<User> implements U
         logger.info("All validations for user-creation-operation passed for user with username: {}", user.getUsername());
 
         user
-                .setPassword(passwordEncoder.encode(user.getPassword()))
                 .setCreatedAt(LocalDateTime.now())
+                .setTokenGeneration(System.currentTimeMillis())
                 .setRoles(roles);
-        logger.debug("User password (encoded), creation time: {} and roles: {} have been set", user.getCreatedAt(), user.getRoles());
+        logger.debug("User creation time: {}, token generation: {} and roles: {} have been set", user.getCreatedAt(), user.getTokenGeneration(), user.getRoles());
+
+        User saved = userRepository.save(user);
+        logger.info("User with username: {} has been saved to the database", saved.getUsername());
+
+        // Created with the user, so its todo list is never counted from the todos table
+        todoCounterService.createCounter(saved.getUsername(), 0, 0);
+        logger.debug("Todo counter for user with username: {} has been created", saved.getUsername());
+
+        return saved;
+    }
+
+    @Override
+    public User createUser(User user) {
+
+        logger.debug("Parameters:: user: {}", user);
+
+        userValidator.validate(user, UserValidator.Operation.Create);
+        logger.debug("Validation for user-creation-operation passed for user with username: {}", user.getUsername());
+
+        // Encoded before the transaction, so that a connection is not held while hashing, which takes the most time
+        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        logger.debug("User password has been encoded");
+
+        // The user is not authenticated, so the shard of the user is set explicitly, before the transaction acquires a connection
+        return ShardContext.callAs(user.getUsername(), () -> transactionTemplate.execute(status -> saveNewUser(user)));
+    }
+
+    /**
+     * Sets the new password and the next token generation of a user, whose password hash has been verified, only if it's
+     * still the same. Needs to be run in a transaction.
+     * @param username The username
+     * @param verified The password hash that the current password has been verified against
+     * @param encoded The hash of the new password
+     * @return The updated user
+     * @throws IllegalArgumentException if the password hash has changed since it was verified
+     */
+    private User savePassword(String username, String verified, String encoded) {
+
+        User user = findUser(username, false).get();
+        logger.debug("User with username: {} is found in the database", user.getUsername());
+
+        // The password could have been changed by another request while the hashes were being computed
+        Assert.isTrue(user.getPassword().equals(verified), ConstantValues.User.Error.PASSWORD_MISMATCH);
+        logger.debug("Unchanged user password hash check passed");
+
+        user
+                .setPassword(encoded)
+                .setTokenGeneration(user.getTokenGeneration() + 1);
+        logger.debug("New user password and token generation: {} have been set", user.getTokenGeneration());
+
+        tokenGenerationStore.update(username, user.getTokenGeneration());
+        logger.debug("All the tokens of user with username: {} will be revoked when the transaction commits", username);
 
         user = userRepository.save(user);
-        logger.info("User with username: {} has been saved to the database", user.getUsername());
+        logger.info("User with username: {} has been updated in the database", user.getUsername());
 
         return user;
     }
@@ -146,24 +233,43 @@ public class UserServiceImpl extends AbstractModelServiceImpl<User> implements U
         passwordUpdateRequestValidator.validate(passwordUpdateRequest);
         logger.debug("Validation for user-password-update operation passed for passwordUpdateRequest object");
 
-        User user = findUser(username, false).get();
-        logger.debug("User with username: {} is found in the database", user.getUsername());
+        // Read from the primary in a short transaction, so that a connection is not held while hashing, which takes the most time
+        String verified = transactionTemplate.execute(status -> findUser(username, false).get().getPassword());
+        logger.debug("User with username: {} is found in the database", username);
 
-        Assert.isTrue(passwordEncoder.matches(passwordUpdateRequest.getCurrent().getPassword(), user.getPassword()), ConstantValues.User.Error.PASSWORD_MISMATCH);
+        Assert.isTrue(passwordEncoder.matches(passwordUpdateRequest.getCurrent().getPassword(), verified), ConstantValues.User.Error.PASSWORD_MISMATCH);
         logger.debug("Current user password has been verified successfully");
 
-        logger.info("All validations for user-password-update-operation passed for user with username: {}", user.getUsername());
+        logger.info("All validations for user-password-update-operation passed for user with username: {}", username);
 
-        user.setPassword(passwordEncoder.encode(passwordUpdateRequest.getModified().getPassword()));
-        logger.debug("New user password has been set");
+        // Encoded only after the current password is verified, so a wrong one doesn't cost a second hash
+        String encoded = passwordEncoder.encode(passwordUpdateRequest.getModified().getPassword());
+        logger.debug("New user password has been encoded");
 
-        user = userRepository.save(user);
-        logger.info("User with username: {} has been updated in the database", user.getUsername());
+        return transactionTemplate.execute(status -> savePassword(username, verified, encoded));
+    }
+
+    @Override
+    @Transactional
+    public User rehashPassword(String username, String encodedPassword) {
+
+        logger.debug("Parameters:: username: {}", username);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        if (encodedPassword == null) throw new RuntimeException("Encoded password cannot be null");
+        logger.debug("Not null check passed for username and encodedPassword");
+
+        User user = findUser(username, false).get();
+        logger.debug("User with username: {} is found in the database", user.getUsername());
+
+        user.setPassword(encodedPassword);
+        logger.info("Password hash of user with username: {} has been replaced", user.getUsername());
 
         return user;
     }
 
     @Override
+    @Transactional
     public User updateEmail(String username, User user) {
 
         logger.debug("Parameters:: username: {}, user: {}", username, user);
@@ -189,6 +295,7 @@ public class UserServiceImpl extends AbstractModelServiceImpl<User> implements U
     }
 
     @Override
+    @Transactional
     public User updateUser(String username, User user) {
 
         logger.debug("Parameters:: username: {}, user: {}", username, user);
@@ -220,6 +327,7 @@ public class UserServiceImpl extends AbstractModelServiceImpl<User> implements U
     }
 
     @Override
+    @Transactional
     public User deleteUser(String username) {
 
         logger.debug("Parameters:: username: {}", username);
@@ -235,6 +343,15 @@ public class UserServiceImpl extends AbstractModelServiceImpl<User> implements U
         userRepository.deleteById(username);
         logger.info("User with username: {} has been deleted from the database", user.getUsername());
 
+        tokenGenerationStore.update(username, null);
+        logger.debug("All the tokens of user with username: {} will be revoked when the transaction commits", username);
+
+        todoCounterService.deleteCounter(username);
+        logger.debug("Todo counter for user with username: {} has been deleted", username);
+
+        todoArchiveService.deleteArchivedTodos(username);
+        logger.debug("Archived todos for user with username: {} have been deleted", username);
+
         return user;
     }
 }
@@ -1,6 +1,7 @@
 package com.example.todo.service.validation;
 
 import com.example.todo.model.Todo;
+import com.example.todo.model.TodoFilter;
 import org.springframework.data.domain.Sort;
 import java.util.List;
 import java.util.Map;
@@ -34,7 +35,18 @@ public interface TodoValidator {
      * @param order A {@link List} of order parameters. should be either "asc" or "desc"
      * @return A {@link List} of {@link Map.Entry}s of sort by parameters and {@link Sort.Direction}s
      * @throws IllegalArgumentException If the count of sort and order parameters do not match,
-     * or one of the parameters is null, or one of the parameters has invalid value.
+     * or one of the parameters is null, or one of the parameters has invalid value, or the sort
+     * cannot be served by an index of the todos table.
      */
     public List<Map.Entry<String, Sort.Direction>> validateAndCreateSortOrders(List<String> sort, List<String> order);
+
+    /**
+     * Validates that a {@link TodoFilter}, along with the sort orders the todos are listed in, can be served by a single
+     * index of the todos table, so the todos are filtered and sorted by the database without scanning or sorting all the
+     * todos of the user. The sort orders need to have been validated by {@link #validateAndCreateSortOrders(List, List)}.
+     * @param filter The filter to be validated
+     * @param orders The sort orders, or null if the todos are not sorted
+     * @throws IllegalArgumentException If the filter and the sort orders cannot be served by an index of the todos table
+     */
+    void validateFilter(TodoFilter filter, List<Map.Entry<String, Sort.Direction>> orders);
 }
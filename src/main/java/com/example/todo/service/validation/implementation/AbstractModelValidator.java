@@ -7,7 +7,6 @@ import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -40,7 +39,7 @@ abstract class AbstractModelValidator<T> {
      */
     protected List<String> validate(T model, Class<?> ...operation) {
 
-        logger.debug("Parameters:: model: {}, operation: {}", model, Arrays.toString(operation));
+        logger.debug("Parameters:: model: {}, operation: {}", model, operation);
 
         if (model == null) throw new RuntimeException("Model cannot be null");
         logger.debug("Not null check passed for model");
@@ -68,7 +67,7 @@ abstract class AbstractModelValidator<T> {
      */
     protected void handleConstraintViolation(T model, Class<?> ...operation) {
 
-        logger.debug("Parameters:: model: {}, operation: {}", model, Arrays.toString(operation));
+        logger.debug("Parameters:: model: {}, operation: {}", model, operation);
 
         if (model == null) throw new RuntimeException("Model cannot be null");
         logger.debug("Not null check passed for model");
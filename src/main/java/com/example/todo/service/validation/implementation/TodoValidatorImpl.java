@@ -2,6 +2,7 @@ package com.example.todo.service.validation.implementation;
 
 import com.example.todo.configuration.ConstantValues;
 import com.example.todo.model.Todo;
+import com.example.todo.model.TodoFilter;
 import com.example.todo.model.validation.ValidationGroup;
 import com.example.todo.service.validation.TodoValidator;
 import com.example.todo.utility.JsonUtilities;
@@ -48,6 +49,22 @@ public class TodoValidatorImpl extends AbstractModelValidator<Todo> implements T
         logger.info("Validation completed for Todo object");
     }
 
+    /**
+     * Checks if the sort orders can be served by one of the indexes of the todos table, listed in
+     * {@link ConstantValues.Todo}'s INDEXED_SORTS. All the orders need to be in the same direction, as
+     * the indexes are scanned either forward or backward.
+     */
+    private boolean isIndexed(List<Map.Entry<String, Sort.Direction>> orders) {
+
+        List<String> properties = orders.stream().map(Map.Entry::getKey).toList();
+        long directions = orders.stream().map(Map.Entry::getValue).distinct().count();
+        logger.debug("Sort properties: {}, distinct directions: {}", properties, directions);
+
+        return directions <= 1 && ConstantValues.Todo.INDEXED_SORTS
+                .stream()
+                .anyMatch(index -> index.equals(properties) || index.subList(0, index.size() - 1).equals(properties));
+    }
+
     @Override
     public List<Map.Entry<String, Sort.Direction>> validateAndCreateSortOrders(List<String> sort, List<String> order) {
 
@@ -84,10 +101,63 @@ public class TodoValidatorImpl extends AbstractModelValidator<Todo> implements T
                 orders.add(Map.entry(_sort, _order));
                 logger.debug("Added sort by and sort order to orders list");
             }
+
+            Assert.isTrue(isIndexed(orders), ConstantValues.Todo.Error.UNSUPPORTED_SORT_ORDER_PARAMETER);
+            logger.debug("Index check passed for orders list");
         }
 
         logger.info("Generated orders list: {}", orders);
 
         return orders;
     }
+
+    /**
+     * Checks if an index of {@link ConstantValues.Todo}'s INDEXED_SORTS serves both the filter and the sort. The filter
+     * properties need to be a prefix of the index, and the sort needs to be the rest of the index, with or without the
+     * trailing id, starting either at the beginning or after some of the equality properties of the filter, as they
+     * have a single value.
+     */
+    private boolean isIndexed(List<String> index, TodoFilter filter, List<String> sort) {
+
+        List<String> properties = filter.getProperties();
+        int equalities = filter.getEqualityProperties().size();
+
+        if (index.size() < properties.size() || !index.subList(0, properties.size()).equals(properties)) return false;
+
+        for (int start = 0; start <= equalities; start++)
+            if (index.subList(start, index.size()).equals(sort) || index.subList(start, index.size() - 1).equals(sort))
+                return true;
+
+        return false;
+    }
+
+    @Override
+    public void validateFilter(TodoFilter filter, List<Map.Entry<String, Sort.Direction>> orders) {
+
+        logger.debug("Parameters:: filter: {}, orders: {}", filter, orders);
+
+        if (filter == null) throw new RuntimeException("Filter cannot be null");
+        logger.debug("Not null check passed for filter");
+
+        List<String> properties = filter.getProperties();
+        logger.debug("Filter properties: {}", properties);
+
+        Assert.isTrue(
+                properties.isEmpty() || ConstantValues.Todo.INDEXED_FILTERS
+                        .stream()
+                        .anyMatch(index -> index.size() >= properties.size() && index.subList(0, properties.size()).equals(properties)),
+                ConstantValues.Todo.Error.UNSUPPORTED_FILTER
+        );
+        logger.debug("Index check passed for filter: {}", filter);
+
+        if (properties.isEmpty() || orders == null || orders.isEmpty()) return;
+
+        List<String> sort = orders.stream().map(Map.Entry::getKey).toList();
+
+        Assert.isTrue(
+                ConstantValues.Todo.INDEXED_SORTS.stream().anyMatch(index -> isIndexed(index, filter, sort)),
+                ConstantValues.Todo.Error.UNSUPPORTED_FILTER_WITH_SORT
+        );
+        logger.info("Index check passed for filter: {} with sort: {}", filter, sort);
+    }
 }
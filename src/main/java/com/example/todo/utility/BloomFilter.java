@@ -0,0 +1,97 @@
+package com.example.todo.utility;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter of strings. It never has false negatives, i.e. {@link #mightContain(String)} is always true
+ * for the strings that have been put, and has false positives at about the given rate for the expected number of strings.
+ * The bits of a string are chosen by double hashing of a 64-bit FNV-1a hash, so putting and checking a string doesn't allocate.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions The expected number of strings to be put
+     * @param falsePositiveRate The false positive rate at the expected number of strings, between 0 and 1
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+
+        if (expectedInsertions < 1) throw new IllegalArgumentException("Expected insertions must be positive");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    private static long fnv1a(String value) {
+
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which spreads every input bit over the whole hash.
+     */
+    private static long mix(long hash) {
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    /**
+     * Puts a string into the filter.
+     * @param value The string
+     */
+    public void put(String value) {
+
+        long hash1 = mix(fnv1a(value));
+        long hash2 = mix(hash1) | 1;
+
+        for (int i = 0; i < hashCount; i++) {
+
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * @param value The string
+     * @return False if the string has definitely not been put into the filter, true if it might have been.
+     */
+    public boolean mightContain(String value) {
+
+        long hash1 = mix(fnv1a(value));
+        long hash2 = mix(hash1) | 1;
+
+        for (int i = 0; i < hashCount; i++) {
+
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.todo.utility;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+
+/**
+ * An interface that provides helper methods for converting keyset scroll positions to and from opaque cursor tokens,
+ * that can be handed out to the clients for cursor based pagination.
+ */
+public interface CursorUtilities {
+
+    /**
+     * Encodes a {@link KeysetScrollPosition} (i.e. the sort key values and the id of the last element of a page)
+     * into an opaque, url safe cursor token.
+     * @param position The keyset scroll position.
+     * @return The cursor token.
+     */
+    String encode(KeysetScrollPosition position);
+
+    /**
+     * Decodes a cursor token, created by {@link #encode(KeysetScrollPosition)}, into a forward {@link KeysetScrollPosition}.
+     * The keys of the position are converted back to the types of their respective java variable fields of the given class.
+     * A blank cursor is decoded to the initial keyset scroll position.
+     * @param cursor The cursor token.
+     * @param clazz The class whose fields the keys of the position belong to.
+     * @return The keyset scroll position.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    KeysetScrollPosition decode(String cursor, Class<?> clazz);
+}
@@ -8,22 +8,41 @@ import org.springframework.security.core.userdetails.UserDetails;
 public interface JwtUtilities {
 
     /**
-     * Creates a JWT token for the given user details.
+     * Creates a JWT access token for the given user details.
      * @param user The user details of type {@link UserDetails}.
+     * @param tokenGeneration The current token generation of the user.
      * @return The JWT token.
      */
-    String createJwt(UserDetails user);
+    String createJwt(UserDetails user, long tokenGeneration);
 
     /**
-     * Extracts the user details from the given JWT token.
+     * Creates a JWT refresh token for the given user details, which lives longer than an access token and can only be
+     * exchanged for new access tokens with {@link #refreshJwt(String)}.
+     * @param user The user details of type {@link UserDetails}.
+     * @param tokenGeneration The current token generation of the user.
+     * @return The JWT refresh token.
+     */
+    String createRefreshJwt(UserDetails user, long tokenGeneration);
+
+    /**
+     * Creates a new JWT access token from a valid JWT refresh token, for the same user and token generation, with the
+     * current roles of the user.
+     * @param refreshToken The JWT refresh token.
+     * @return The JWT access token.
+     * @throws RuntimeException or it's subclasses if the refresh token is invalid, expired or revoked.
+     */
+    String refreshJwt(String refreshToken);
+
+    /**
+     * Extracts the user details from the given JWT access token.
      * @param token The JWT token.
      * @return The user details as a {@link UserDetails} object.
-     * @throws RuntimeException or it's subclasses if the JWT token is invalid or the user details could not be extracted from it.
+     * @throws RuntimeException or it's subclasses if the JWT token is invalid, expired or revoked, or the user details could not be extracted from it.
      */
     UserDetails getUser(String token);
 
     /**
-     * Given a username and a JWT token issued to that user, it blacklists/invalidates the JWT token.
+     * Given a username and a JWT token issued to that user, it blacklists/invalidates the JWT token until it expires.
      * @param username The username.
      * @param token The JWT token.
      */
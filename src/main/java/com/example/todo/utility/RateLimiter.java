@@ -0,0 +1,65 @@
+package com.example.todo.utility;
+
+import javax.management.MXBean;
+
+/**
+ * An interface for a rate limiter of token buckets, keyed by arbitrary strings, like a username or a client address.
+ * The bucket of a key holds at most a minute worth of permits, and is refilled continuously at its rate. A bucket that
+ * has been idle long enough to be full again is the same as a new one, so it can be evicted without losing anything.
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes a permit from the bucket of a key, if it has one. When the rate limiter is full, the buckets of the keys that
+     * are evicted first, like the client addresses that are cheap to cycle through, make room before the others, so a flood
+     * of them can't evict the bucket of a username that's being limited.
+     * @param key The key of the bucket
+     * @param permitsPerMinute The rate of the bucket, which is also its capacity
+     * @param evictFirst True if the bucket is evicted before the others when the rate limiter is full
+     * @return 0 if a permit was taken, or else the number of nanoseconds until the bucket has one.
+     */
+    long tryAcquire(String key, int permitsPerMinute, boolean evictFirst);
+
+    /**
+     * Evicts the buckets that are full again, as they have been idle.
+     * @return The number of evicted buckets
+     */
+    int evictIdle();
+
+    /**
+     * @return The {@link Statistics} of the rate limiter.
+     */
+    Statistics getStatistics();
+
+    /**
+     * The statistics of a {@link RateLimiter}, exposed over JMX.
+     */
+    @MXBean
+    interface Statistics {
+
+        /**
+         * @return The number of buckets in the rate limiter.
+         */
+        long getSize();
+
+        /**
+         * @return The number of permits taken since the start.
+         */
+        long getAcquiredCount();
+
+        /**
+         * @return The number of permits refused since the start, as their buckets were empty.
+         */
+        long getThrottledCount();
+
+        /**
+         * @return The number of buckets evicted by the evictor as they were idle.
+         */
+        long getIdleEvictedCount();
+
+        /**
+         * @return The number of buckets evicted before they were full again, as the rate limiter was full.
+         */
+        long getEvictedCount();
+    }
+}
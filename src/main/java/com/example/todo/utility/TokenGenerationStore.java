@@ -0,0 +1,23 @@
+package com.example.todo.utility;
+
+/**
+ * An interface for the token generations of the users. A token carries the generation of its user at the time it's issued,
+ * and is only valid while that is the current generation of the user, so changing the generation revokes all the tokens
+ * of the user at once.
+ */
+public interface TokenGenerationStore {
+
+    /**
+     * @param username The username
+     * @param generation The generation carried by a token of the user
+     * @return True if the user exists and the generation is the current one, false otherwise.
+     */
+    boolean isCurrent(String username, long generation);
+
+    /**
+     * Records the current generation of a user, once the current transaction commits if there is one.
+     * @param username The username
+     * @param generation The generation, or null if the user has been deleted
+     */
+    void update(String username, Long generation);
+}
@@ -0,0 +1,78 @@
+package com.example.todo.utility;
+
+import javax.management.MXBean;
+import java.time.Instant;
+
+/**
+ * An interface for a store of the revoked JWT tokens, keyed by their token ids. A token only needs to be remembered
+ * until it expires, as it's rejected afterward anyway, so the entries are removed once their tokens expire. The revocations
+ * are shared by all the nodes of the application, and survive their restarts.
+ */
+public interface TokenRevocationStore {
+
+    /**
+     * Revokes a token until it expires. A token that has already expired is not stored.
+     * @param tokenId The id of the token
+     * @param expiresAt The expiration time of the token
+     */
+    void revoke(String tokenId, Instant expiresAt);
+
+    /**
+     * @param tokenId The id of the token
+     * @return True if the token has been revoked and not expired yet, false otherwise.
+     */
+    boolean isRevoked(String tokenId);
+
+    /**
+     * Removes the entries of the tokens that have expired.
+     * @return The number of removed entries
+     */
+    int sweep();
+
+    /**
+     * Reloads the revocations made by all the nodes of the application.
+     */
+    void refresh();
+
+    /**
+     * @return The {@link Statistics} of the store.
+     */
+    Statistics getStatistics();
+
+    /**
+     * The statistics of a {@link TokenRevocationStore}, exposed over JMX.
+     */
+    @MXBean
+    interface Statistics {
+
+        /**
+         * @return The number of revoked tokens in the store.
+         */
+        long getSize();
+
+        /**
+         * @return The number of lookups since the start.
+         */
+        long getLookupCount();
+
+        /**
+         * @return The average latency of the lookups since the start, in nanoseconds.
+         */
+        double getAverageLookupNanos();
+
+        /**
+         * @return The number of lookups that had to go to the database since the start.
+         */
+        long getDatabaseLookupCount();
+
+        /**
+         * @return The number of entries removed by the sweeper as their tokens expired.
+         */
+        long getExpiredCount();
+
+        /**
+         * @return The number of entries evicted before their tokens expired, as the store was full.
+         */
+        long getEvictedCount();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.todo.utility.implementation;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.utility.CursorUtilities;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An implementation of the {@link CursorUtilities} interface. The cursor is the url safe base64 encoding
+ * of the json representation of the keys of a {@link KeysetScrollPosition}.
+ */
+@Component
+public class CursorUtilitiesImpl implements CursorUtilities {
+
+    private final Logger logger = LoggerFactory.getLogger(CursorUtilitiesImpl.class);
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String encode(KeysetScrollPosition position) {
+
+        logger.debug("Parameters:: position: {}", position);
+
+        if (position == null) throw new RuntimeException("Position cannot be null");
+        logger.debug("Not null check passed for position");
+
+        try {
+
+            byte[] json = objectMapper.writeValueAsBytes(position.getKeys());
+            String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+            logger.debug("Encoded keys: {} to cursor: {}", position.getKeys(), cursor);
+
+            return cursor;
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public KeysetScrollPosition decode(String cursor, Class<?> clazz) {
+
+        logger.debug("Parameters:: cursor: {}, clazz: {}", cursor, clazz);
+
+        if (clazz == null) throw new RuntimeException("Class must not be null");
+        logger.debug("Not null check passed for clazz");
+
+        if (cursor == null || cursor.isBlank()) {
+            logger.debug("Cursor is blank. Returning initial keyset scroll position");
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+
+        try {
+
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            logger.debug("Decoded cursor json: {}", json);
+
+            Map<String, Object> raw = objectMapper.readValue(json, new TypeReference<LinkedHashMap<String, Object>>() {});
+
+            for (Map.Entry<String, Object> entry : raw.entrySet()) {
+
+                Class<?> type = PropertyPath.from(entry.getKey(), clazz).getLeafType();
+                keys.put(entry.getKey(), objectMapper.convertValue(entry.getValue(), type));
+                logger.debug("Converted cursor key: {} to type: {}", entry.getKey(), type);
+            }
+        }
+        catch (Exception e) {
+            throw new IllegalArgumentException(ConstantValues.RestApi.Error.INVALID_CURSOR, e);
+        }
+
+        if (keys.isEmpty()) throw new IllegalArgumentException(ConstantValues.RestApi.Error.INVALID_CURSOR);
+
+        KeysetScrollPosition position = ScrollPosition.forward(keys);
+        logger.info("Decoded cursor to keyset scroll position: {}", position);
+
+        return position;
+    }
+}
@@ -7,7 +7,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import java.lang.reflect.Field;
-import java.util.Arrays;
 
 /**
  * An implementation of the {@link JsonUtilities} interface.
@@ -22,7 +21,7 @@ public class JsonUtilitiesImpl implements JsonUtilities {
      */
     private String toClassFields(String[] json, Class<?> clazz, int i) {
 
-        logger.debug("Parameters:: json: {}, clazz: {} and i: {}", Arrays.toString(json), clazz, i);
+        logger.debug("Parameters:: json: {}, clazz: {} and i: {}", json, clazz, i);
 
         if (i >= json.length) return null;
         logger.debug("json[{}] = {}", i, json[i]);
@@ -31,7 +30,8 @@ public class JsonUtilitiesImpl implements JsonUtilities {
 
         for (Field field : clazz.getDeclaredFields()) {
 
-            String jsonField = field.getAnnotation(JsonProperty.class).value();
+            JsonProperty property = field.getAnnotation(JsonProperty.class);
+            String jsonField = property == null ? null : property.value();
             logger.debug("For class: {} with json field name: {} and java field name: {}", clazz, jsonField, field.getName());
 
             if (jsonField != null && jsonField.equals(json[i])) {
@@ -3,40 +3,166 @@ package com.example.todo.utility.implementation;
 import com.example.todo.configuration.ConstantValues;
 import com.example.todo.configuration.EnvironmentValues;
 import com.example.todo.utility.JwtUtilities;
+import com.example.todo.utility.TokenGenerationStore;
+import com.example.todo.utility.TokenRevocationStore;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
- * An implementation of the {@link JwtUtilities} interface.
+ * An implementation of the {@link JwtUtilities} interface. Every token gets a random id, by which it's revoked in the
+ * {@link TokenRevocationStore}. The tokens issued without an id are revoked by the digest of the token. Every token also
+ * carries the token generation of its user, and is only valid while it's the current one in the {@link TokenGenerationStore},
+ * which revokes all the tokens of the user at once. The tokens issued without a generation have the generation 0, which
+ * is the one of the users that existed before the generations. A token is either an access token, which authenticates
+ * the requests, or a refresh token, which is only exchanged for new access tokens. The access tokens made from a refresh
+ * token get the current roles of the user, from the {@link UserDetailsService}. The tokens themselves are never logged,
+ * only their ids.
+ * <br>
+ * <br>
+ * The tokens are parsed by a single {@link JwtParser}, as building one is far more expensive than parsing a token with it.
+ * A client sends the same token with every request, so the {@link UserDetails} of a verified token are cached by the digest
+ * of the token until it expires, and the next requests with it skip the signature verification and the parsing of the claims.
+ * The revocation is still checked on every request. The cache holds at most VERIFIED_TOKEN_CACHE_MAX_SIZE tokens of
+ * {@link ConstantValues.Jwt}. When it's full, the expired tokens are removed first, and then arbitrary ones, down to nine
+ * tenths of the size, which are verified again on their next use.
  */
 @Component
 public class JwtUtilitiesImpl implements JwtUtilities {
 
+    /**
+     * A verified token, with the id it's revoked by and its expiration time.
+     */
+    private record VerifiedToken(UserDetails user, String tokenId, long generation, long expiresAt) {}
+
     private final Logger logger = LoggerFactory.getLogger(JwtUtilitiesImpl.class);
     private EnvironmentValues environmentValues;
     private final String delimiter = ":";
-    private final Map<String, Set<String>> blacklisted = new HashMap<>();
+    private final Map<String, VerifiedToken> verified = new ConcurrentHashMap<>();
+    private TokenRevocationStore tokenRevocationStore;
+    private TokenGenerationStore tokenGenerationStore;
+    private UserDetailsService userDetailsService;
+    private JwtParser parser;
 
     @Autowired
     public void setEnvironmentValues(EnvironmentValues environmentValues) {
         this.environmentValues = environmentValues;
+        this.parser = Jwts.parserBuilder().setSigningKey(environmentValues.TODO_JWT_SIGNING_KEY).build();
+    }
+
+    @Autowired
+    public void setTokenRevocationStore(TokenRevocationStore tokenRevocationStore) {
+        this.tokenRevocationStore = tokenRevocationStore;
+    }
+
+    @Autowired
+    public void setTokenGenerationStore(TokenGenerationStore tokenGenerationStore) {
+        this.tokenGenerationStore = tokenGenerationStore;
+    }
+
+    @Autowired
+    public void setUserDetailsService(UserDetailsService userDetailsService) {
+        this.userDetailsService = userDetailsService;
+    }
+
+    /**
+     * @return The hex SHA-256 digest of the token.
+     */
+    private String digestOf(String token) {
+
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return The id of the token, or the digest of the token if it has no id.
+     */
+    private String tokenIdOf(Claims claims, String digest) {
+        return claims.getId() != null ? claims.getId() : digest;
+    }
+
+    /**
+     * Caches a verified token by its digest, making room for it if the cache is full.
+     */
+    private void cache(String digest, VerifiedToken token) {
+
+        if (verified.size() >= ConstantValues.Jwt.VERIFIED_TOKEN_CACHE_MAX_SIZE) {
+
+            long now = System.currentTimeMillis();
+            verified.values().removeIf(cached -> cached.expiresAt() <= now);
+
+            // Makes room for a tenth of the cache at once, so that it's not scanned again on every insert
+            int target = ConstantValues.Jwt.VERIFIED_TOKEN_CACHE_MAX_SIZE - ConstantValues.Jwt.VERIFIED_TOKEN_CACHE_MAX_SIZE / 10;
+            Iterator<String> digests = verified.keySet().iterator();
+            while (verified.size() > target && digests.hasNext()) {
+                digests.next();
+                digests.remove();
+            }
+            logger.debug("Verified token cache was full. Remaining tokens: {}", verified.size());
+        }
+
+        verified.put(digest, token);
+    }
+
+    /**
+     * @return The token generation carried by the claims, or 0 if they have none.
+     */
+    private long generationOf(Claims claims) {
+        Long generation = claims.get(ConstantValues.Jwt.CLAIM_GENERATION, Long.class);
+        return generation == null ? 0 : generation;
+    }
+
+    /**
+     * @return True if the claims are of the given use, where the claims without a use are of an access token.
+     */
+    private boolean isOfUse(Claims claims, String tokenUse) {
+        return tokenUse.equals(Objects.requireNonNullElse(claims.get(ConstantValues.Jwt.CLAIM_TOKEN_USE, String.class), ConstantValues.Jwt.TOKEN_USE_ACCESS));
+    }
+
+    /**
+     * Throws a {@link JwtException} if the token has been revoked, either by itself or by the token generation of its user.
+     */
+    private void checkNotRevoked(String username, String tokenId, long generation) {
+
+        if (tokenRevocationStore.isRevoked(tokenId)) {
+            logger.debug("Token is present in the revocation store");
+            throw new JwtException(ConstantValues.Jwt.Error.INVALID_TOKEN);
+        }
+
+        if (!tokenGenerationStore.isCurrent(username, generation)) {
+            logger.debug("Token generation: {} is not the current one of username: {}", generation, username);
+            throw new JwtException(ConstantValues.Jwt.Error.INVALID_TOKEN);
+        }
     }
 
-    public String createJwt(UserDetails user) {
+    /**
+     * Creates a token of a use, with the roles and the token generation of a user, that expires after the given lifetime.
+     */
+    private String createJwt(UserDetails user, long tokenGeneration, String tokenUse, long lifetimeInSeconds) {
 
-        logger.debug("Parameters:: user: {}", user);
+        logger.debug("Parameters:: user: {}, tokenGeneration: {}, tokenUse: {}", user, tokenGeneration, tokenUse);
 
         if (user == null) throw new RuntimeException("User cannot be null");
         logger.debug("Not null check passed for UserDetails");
@@ -50,54 +176,124 @@ public class JwtUtilitiesImpl implements JwtUtilities {
                         .collect(Collectors.joining(delimiter));
         logger.debug("Generated authorities: {} from UserDetails authorities: {}", authorities, user.getAuthorities());
 
+        String tokenId = UUID.randomUUID().toString();
         String jwt = Jwts
                 .builder()
+                .setId(tokenId)
                 .setSubject(user.getUsername())
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + environmentValues.TODO_JWT_EXPIRATION_TIME_IN_SECONDS * 1000))
-                .claim("roles", authorities)
+                .setExpiration(new Date(System.currentTimeMillis() + lifetimeInSeconds * 1000))
+                .claim(ConstantValues.Jwt.CLAIM_ROLES, authorities)
+                .claim(ConstantValues.Jwt.CLAIM_GENERATION, tokenGeneration)
+                .claim(ConstantValues.Jwt.CLAIM_TOKEN_USE, tokenUse)
                 .signWith(environmentValues.TODO_JWT_SIGNING_KEY)
                 .compact();
-        logger.info("Generated JWT: {} for UserDetails: {}", jwt, user);
+        logger.info("Generated {} JWT with id: {} for UserDetails: {}", tokenUse, tokenId, user);
 
         return jwt;
     }
 
+    @Override
+    public String createJwt(UserDetails user, long tokenGeneration) {
+        return createJwt(user, tokenGeneration, ConstantValues.Jwt.TOKEN_USE_ACCESS, environmentValues.TODO_JWT_EXPIRATION_TIME_IN_SECONDS);
+    }
+
+    @Override
+    public String createRefreshJwt(UserDetails user, long tokenGeneration) {
+        return createJwt(user, tokenGeneration, ConstantValues.Jwt.TOKEN_USE_REFRESH, environmentValues.TODO_JWT_REFRESH_EXPIRATION_TIME_IN_SECONDS);
+    }
+
+    @Override
+    public String refreshJwt(String refreshToken) {
+
+        if (refreshToken == null) throw new RuntimeException("Refresh token cannot be null");
+        logger.debug("Not null check passed for refreshToken");
+
+        Claims claims = parser.parseClaimsJws(refreshToken).getBody();
+        logger.debug("Parsed refresh token claims: {}", claims);
+
+        if (!isOfUse(claims, ConstantValues.Jwt.TOKEN_USE_REFRESH)) throw new JwtException(ConstantValues.Jwt.Error.INVALID_TOKEN);
+        logger.debug("Token use check passed for refresh token");
+
+        long generation = generationOf(claims);
+        checkNotRevoked(claims.getSubject(), tokenIdOf(claims, digestOf(refreshToken)), generation);
+        logger.debug("Refresh token with id: {} is not revoked", claims.getId());
+
+        UserDetails user;
+
+        // The roles of the user may have changed since the refresh token was issued, so they are not taken from it
+        try {
+            user = userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        catch (UsernameNotFoundException e) {
+            throw new JwtException(ConstantValues.Jwt.Error.INVALID_TOKEN, e);
+        }
+        logger.debug("Loaded the current roles: {} of username: {}", user.getAuthorities(), user.getUsername());
+
+        return createJwt(user, generation);
+    }
+
     @Override
     public void blackListJwt(String username, String token) {
 
-        logger.debug("Parameters:: username: {}, token: {}", username, token);
+        logger.debug("Parameters:: username: {}", username);
 
-        if (blacklisted.containsKey(username)) {
-            blacklisted.get(username).add(token);
-            logger.debug("User is present in blacklisted map. Added token: {} for username: {}", token, username);
+        if (token == null) throw new RuntimeException("Token cannot be null");
+        logger.debug("Not null check passed for token");
+
+        Claims claims;
+
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
         }
-        else {
-            blacklisted.put(username, new HashSet<>(Set.of(token)));
-            logger.debug("User is absent in blacklisted map. Added new entry with username: {} and token: {}", username, token);
+        catch (JwtException e) {
+            logger.info("Token for username: {} is not valid anymore. No need to blacklist it", username);
+            return;
         }
 
-        logger.info("Blacklisting of token: {} for username: {} is successful", token, username);
+        String digest = digestOf(token);
+        tokenRevocationStore.revoke(tokenIdOf(claims, digest), claims.getExpiration().toInstant());
+        verified.remove(digest);
+
+        logger.info("Blacklisting of token with id: {} for username: {} is successful", tokenIdOf(claims, digest), username);
     }
 
     public UserDetails getUser(String token) {
 
-        logger.debug("Parameters:: token: {}", token);
-
         if (token == null) throw new RuntimeException("Token cannot be null");
         logger.debug("Not null check passed for token");
 
-        Jws<Claims> jws = Jwts
-                .parserBuilder()
-                .setSigningKey(environmentValues.TODO_JWT_SIGNING_KEY)
-                .build()
-                .parseClaimsJws(token);
-        logger.debug("Parsed JWS: {}", jws);
+        String digest = digestOf(token);
+        VerifiedToken cached = verified.get(digest);
+
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+
+            logger.debug("Found verified token in the cache for User detail: {}", cached.user());
+
+            try {
+                checkNotRevoked(cached.user().getUsername(), cached.tokenId(), cached.generation());
+            }
+            catch (JwtException e) {
+                verified.remove(digest, cached);
+                throw e;
+            }
+
+            return cached.user();
+        }
+
+        // An expired token is removed, and then rejected by the parser
+        if (cached != null) verified.remove(digest, cached);
+
+        Jws<Claims> jws = parser.parseClaimsJws(token);
+        logger.debug("Parsed JWS with id: {}", jws.getBody().getId());
+
+        if (!isOfUse(jws.getBody(), ConstantValues.Jwt.TOKEN_USE_ACCESS)) throw new JwtException(ConstantValues.Jwt.Error.INVALID_TOKEN);
+        logger.debug("Token use check passed for access token");
 
         List<String> roles = Arrays
                 .stream(jws
                         .getBody()
-                        .get("roles", String.class)
+                        .get(ConstantValues.Jwt.CLAIM_ROLES, String.class)
                         .split(delimiter))
                 .toList();
         logger.debug("Parsed roles/authorities: {}", roles);
@@ -110,10 +306,13 @@ public class JwtUtilitiesImpl implements JwtUtilities {
                 .build();
         logger.info("Parsed User detail: {}", user);
 
-        if (blacklisted.containsKey(user.getUsername()) && blacklisted.get(user.getUsername()).contains(token)) {
-            logger.debug("Token is present in blacklisted map");
-            throw new JwtException(ConstantValues.Jwt.Error.INVALID_TOKEN);
-        }
+        String tokenId = tokenIdOf(jws.getBody(), digest);
+        long generation = generationOf(jws.getBody());
+
+        checkNotRevoked(user.getUsername(), tokenId, generation);
+
+        cache(digest, new VerifiedToken(user, tokenId, generation, jws.getBody().getExpiration().getTime()));
+        logger.debug("Cached verified token for User detail: {}", user);
 
         return user;
     }
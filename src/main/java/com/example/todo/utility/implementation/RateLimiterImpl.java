@@ -0,0 +1,266 @@
+package com.example.todo.utility.implementation;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.EnvironmentValues;
+import com.example.todo.utility.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An implementation of the {@link RateLimiter} interface. The buckets are kept in memory, so every node of the application
+ * limits the requests it receives on its own. They are split between a fixed number of stripes by the hashes of their keys,
+ * and every stripe is a {@link LinkedHashMap} guarded by its own lock, so the requests of different keys rarely wait for each
+ * other, and a bucket is refilled and taken from without any allocation.
+ * <br>
+ * <br>
+ * The buckets are evicted by the evictor every TODO_RATE_LIMIT_EVICTION_INTERVAL_IN_MILLIS once they are full again. The
+ * stripes hold at most TODO_RATE_LIMIT_MAX_BUCKETS buckets together. When a stripe is full, its least recently used bucket
+ * of the ones evicted first is evicted, or else its least recently used bucket of the others, so a flood of new keys can't
+ * exhaust the memory, at the cost of forgetting how much of its bucket that key has used. A flood of the keys evicted first,
+ * like client addresses, only evicts each other, even the bucket just added if there's no other one to evict.
+ * The {@link RateLimiter.Statistics} are registered with the platform MBean server.
+ */
+@Component
+public class RateLimiterImpl implements RateLimiter {
+
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * The bucket of a key, with the permits it had when it was last updated.
+     */
+    private static final class Bucket {
+
+        private final int permitsPerMinute;
+        private double permits;
+        private long updatedAt;
+
+        private Bucket(int permitsPerMinute, long now) {
+            this.permitsPerMinute = permitsPerMinute;
+            this.permits = permitsPerMinute;
+            this.updatedAt = now;
+        }
+
+        /**
+         * @return The permits the bucket has at the given time, which are at most its capacity.
+         */
+        private double permitsAt(long now) {
+            return Math.min(permitsPerMinute, permits + (now - updatedAt) * permitsPerMinute / NANOS_PER_MINUTE);
+        }
+    }
+
+    /**
+     * The buckets of a stripe, split between the ones evicted first and the others, each in the order they were last used.
+     * It's guarded by its own monitor.
+     */
+    private final class Stripe {
+
+        private final int maxSize;
+        private final Map<String, Bucket> evictedFirst = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<String, Bucket> evictedLast = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Stripe(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        private Map<String, Bucket> bucketsOf(boolean evictFirst) {
+            return evictFirst ? evictedFirst : evictedLast;
+        }
+
+        private int size() {
+            return evictedFirst.size() + evictedLast.size();
+        }
+
+        /**
+         * Adds a bucket, and if the stripe is full, evicts the least recently used bucket that's evicted first, or else the
+         * least recently used one of the others.
+         */
+        private void put(String key, Bucket bucket, boolean evictFirst) {
+
+            bucketsOf(evictFirst).put(key, bucket);
+
+            if (size() <= maxSize) return;
+
+            Map<String, Bucket> buckets = evictedFirst.isEmpty() ? evictedLast : evictedFirst;
+            Iterator<String> eldest = buckets.keySet().iterator();
+            String evictedKey = eldest.next();
+            eldest.remove();
+
+            evicted.increment();
+            logger.warn("Rate limiter stripe is full with max size: {}. Evicted bucket: {} before it's full again", maxSize, evictedKey);
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(RateLimiterImpl.class);
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder idleEvicted = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final Statistics statistics = new Statistics() {
+
+        @Override
+        public long getSize() {
+
+            long size = 0;
+
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+
+            return size;
+        }
+
+        @Override
+        public long getAcquiredCount() {
+            return acquired.sum();
+        }
+
+        @Override
+        public long getThrottledCount() {
+            return throttled.sum();
+        }
+
+        @Override
+        public long getIdleEvictedCount() {
+            return idleEvicted.sum();
+        }
+
+        @Override
+        public long getEvictedCount() {
+            return evicted.sum();
+        }
+    };
+    private Stripe[] stripes;
+
+    @Autowired
+    public void setEnvironmentValues(EnvironmentValues environmentValues) {
+
+        int maxSizePerStripe = Math.max(1, environmentValues.TODO_RATE_LIMIT_MAX_BUCKETS / ConstantValues.RateLimit.STRIPES);
+
+        this.stripes = new Stripe[ConstantValues.RateLimit.STRIPES];
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new Stripe(maxSizePerStripe);
+    }
+
+    @PostConstruct
+    public void registerStatistics() {
+
+        try {
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ConstantValues.RateLimit.OBJECT_NAME);
+
+            // Another application context in the same JVM may have registered it already
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(new StandardMBean(statistics, Statistics.class, true), name);
+
+            logger.info("Registered rate limiter statistics as: {}", name);
+        }
+        catch (Exception e) {
+            logger.warn("Could not register rate limiter statistics", e);
+        }
+    }
+
+    @PreDestroy
+    public void unregisterStatistics() {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ConstantValues.RateLimit.OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+        }
+        catch (Exception e) {
+            logger.warn("Could not unregister rate limiter statistics", e);
+        }
+    }
+
+    private Stripe stripeOf(String key) {
+
+        int hash = key.hashCode();
+
+        // The stripes are a power of two, so the high bits are mixed into the low ones that pick the stripe
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    @Override
+    public long tryAcquire(String key, int permitsPerMinute, boolean evictFirst) {
+
+        if (key == null) throw new RuntimeException("Key cannot be null");
+        if (permitsPerMinute <= 0) throw new RuntimeException("Permits per minute must be positive");
+
+        long now = System.nanoTime();
+        Stripe stripe = stripeOf(key);
+
+        synchronized (stripe) {
+
+            Bucket bucket = stripe.bucketsOf(evictFirst).get(key);
+
+            if (bucket == null || bucket.permitsPerMinute != permitsPerMinute) {
+                bucket = new Bucket(permitsPerMinute, now);
+                stripe.put(key, bucket, evictFirst);
+            }
+
+            double permits = bucket.permitsAt(now);
+            bucket.updatedAt = now;
+
+            if (permits >= 1) {
+                bucket.permits = permits - 1;
+                acquired.increment();
+                return 0;
+            }
+
+            bucket.permits = permits;
+            throttled.increment();
+
+            return (long) Math.ceil((1 - permits) * NANOS_PER_MINUTE / permitsPerMinute);
+        }
+    }
+
+    @Override
+    @Scheduled(
+            fixedDelayString = "${TODO_RATE_LIMIT_EVICTION_INTERVAL_IN_MILLIS:60000}",
+            initialDelayString = "${TODO_RATE_LIMIT_EVICTION_INTERVAL_IN_MILLIS:60000}"
+    )
+    public int evictIdle() {
+
+        int count = 0;
+
+        // A stripe at a time, so the requests only wait for the eviction of their own stripe
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+
+                long now = System.nanoTime();
+                int size = stripe.size();
+
+                stripe.evictedFirst.values().removeIf(bucket -> bucket.permitsAt(now) >= bucket.permitsPerMinute);
+                stripe.evictedLast.values().removeIf(bucket -> bucket.permitsAt(now) >= bucket.permitsPerMinute);
+
+                count += size - stripe.size();
+            }
+        }
+
+        idleEvicted.add(count);
+        logger.debug("Evicted {} idle buckets", count);
+
+        return count;
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return statistics;
+    }
+}
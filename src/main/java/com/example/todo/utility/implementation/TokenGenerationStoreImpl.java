@@ -0,0 +1,123 @@
+package com.example.todo.utility.implementation;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.EnvironmentValues;
+import com.example.todo.configuration.ShardContext;
+import com.example.todo.repository.UserRepository;
+import com.example.todo.utility.TokenGenerationStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An implementation of the {@link TokenGenerationStore} interface. The generations are kept in a {@link ConcurrentHashMap},
+ * so a token is checked with a single lookup, and are reloaded from the users table once they are older than
+ * TODO_JWT_GENERATION_CACHE_TTL_IN_MILLIS, as a generation may have been changed by another node of the application.
+ * A change made by this node is seen as soon as its transaction commits, and a token with a later generation than the kept
+ * one, issued after a change made by another node, reloads it right away, as the generations only increase. The map holds at most GENERATION_CACHE_MAX_SIZE
+ * users of {@link ConstantValues.Jwt}. When it's full, the stale users are removed first, and then arbitrary ones, down to
+ * nine tenths of the size.
+ */
+@Component
+public class TokenGenerationStoreImpl implements TokenGenerationStore {
+
+    /**
+     * The generation of a user, or null if the user doesn't exist, and the time it was loaded at.
+     */
+    private record Generation(Long generation, long loadedAt) {}
+
+    private final Logger logger = LoggerFactory.getLogger(TokenGenerationStoreImpl.class);
+    private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+    private EnvironmentValues environmentValues;
+    private UserRepository userRepository;
+
+    @Autowired
+    public void setEnvironmentValues(EnvironmentValues environmentValues) {
+        this.environmentValues = environmentValues;
+    }
+
+    @Autowired
+    public void setUserRepository(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Keeps the generation of a user, making room for it if the map is full.
+     */
+    private void put(String username, Generation generation) {
+
+        if (generations.size() >= ConstantValues.Jwt.GENERATION_CACHE_MAX_SIZE) {
+
+            long staleBefore = System.currentTimeMillis() - environmentValues.TODO_JWT_GENERATION_CACHE_TTL_IN_MILLIS;
+            generations.values().removeIf(cached -> cached.loadedAt() < staleBefore);
+
+            int target = ConstantValues.Jwt.GENERATION_CACHE_MAX_SIZE - ConstantValues.Jwt.GENERATION_CACHE_MAX_SIZE / 10;
+            Iterator<String> usernames = generations.keySet().iterator();
+            while (generations.size() > target && usernames.hasNext()) {
+                usernames.next();
+                usernames.remove();
+            }
+            logger.debug("Token generation cache was full. Remaining users: {}", generations.size());
+        }
+
+        generations.put(username, generation);
+    }
+
+    @Override
+    public boolean isCurrent(String username, long generation) {
+
+        logger.debug("Parameters:: username: {}, generation: {}", username, generation);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        long now = System.currentTimeMillis();
+        Generation current = generations.get(username);
+
+        if (
+                current == null ||
+                now - current.loadedAt() > environmentValues.TODO_JWT_GENERATION_CACHE_TTL_IN_MILLIS ||
+                (current.generation() != null && current.generation() < generation)
+        ) {
+
+            // The user is not authenticated yet while its token is being checked, so the shard of the user is set explicitly
+            Long loaded = ShardContext.callAs(username, () -> userRepository.findTokenGenerationByUsername(username)).orElse(null);
+            logger.debug("Loaded token generation: {} of username: {}", loaded, username);
+
+            current = new Generation(loaded, now);
+            put(username, current);
+        }
+
+        return Objects.equals(current.generation(), generation);
+    }
+
+    @Override
+    public void update(String username, Long generation) {
+
+        logger.debug("Parameters:: username: {}, generation: {}", username, generation);
+
+        if (username == null) throw new RuntimeException("Username cannot be null");
+        logger.debug("Not null check passed for username");
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(username, new Generation(generation, System.currentTimeMillis()));
+            logger.info("Token generation of username: {} is updated to: {}", username, generation);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(username, new Generation(generation, System.currentTimeMillis()));
+                logger.info("Token generation of username: {} is updated to: {}", username, generation);
+            }
+        });
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.todo.utility.implementation;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.EnvironmentValues;
+import com.example.todo.configuration.ShardContext;
+import com.example.todo.model.RevokedToken;
+import com.example.todo.repository.RevokedTokenRepository;
+import com.example.todo.utility.BloomFilter;
+import com.example.todo.utility.TokenRevocationStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An implementation of the {@link TokenRevocationStore} interface. The revocations are persisted as {@link RevokedToken}s
+ * in the first shard, which is shared by all the nodes of the application. Every node keeps a {@link BloomFilter} of the
+ * revoked token ids, reloaded from the database every TODO_JWT_REVOCATION_REFRESH_INTERVAL_IN_MILLIS, so that a token that
+ * has not been revoked, which is the common case, is accepted without a database round trip. Only the tokens the filter
+ * might contain are looked up in the database. A revocation made by another node is seen by the lookups once the filter
+ * is reloaded.
+ * <br>
+ * <br>
+ * The tokens revoked by this node, or found revoked in the database, are kept in a {@link ConcurrentHashMap} from their ids
+ * to their expiration times, so their lookups don't block either, and are ordered by their expiration times in a
+ * {@link ConcurrentSkipListSet}, so the sweeper only visits the expired ones. The map holds at most TODO_JWT_REVOCATION_STORE_MAX_SIZE
+ * tokens. When it's full, the expired tokens are swept first, and then the tokens that expire the soonest are evicted,
+ * which are then looked up in the database again. The {@link TokenRevocationStore.Statistics} are registered with the
+ * platform MBean server.
+ */
+@Component
+public class TokenRevocationStoreImpl implements TokenRevocationStore {
+
+    /**
+     * A revoked token, ordered by its expiration time and then its id.
+     */
+    private record Expiry(long expiresAt, String tokenId) {}
+
+    private final Logger logger = LoggerFactory.getLogger(TokenRevocationStoreImpl.class);
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final NavigableSet<Expiry> expiries = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Expiry::expiresAt).thenComparing(Expiry::tokenId)
+    );
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private final LongAdder databaseLookups = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final Statistics statistics = new Statistics() {
+
+        @Override
+        public long getSize() {
+            return revoked.size();
+        }
+
+        @Override
+        public long getLookupCount() {
+            return lookups.sum();
+        }
+
+        @Override
+        public double getAverageLookupNanos() {
+            long count = lookups.sum();
+            return count == 0 ? 0 : (double) lookupNanos.sum() / count;
+        }
+
+        @Override
+        public long getDatabaseLookupCount() {
+            return databaseLookups.sum();
+        }
+
+        @Override
+        public long getExpiredCount() {
+            return expired.sum();
+        }
+
+        @Override
+        public long getEvictedCount() {
+            return evicted.sum();
+        }
+    };
+    private volatile BloomFilter filter;
+    private EnvironmentValues environmentValues;
+    private RevokedTokenRepository revokedTokenRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setEnvironmentValues(EnvironmentValues environmentValues) {
+        this.environmentValues = environmentValues;
+    }
+
+    @Autowired
+    public void setRevokedTokenRepository(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    /**
+     * The revocations are in the first shard, irrespective of the user of the current thread, so they are done in their own
+     * transactions rather than in the ones the callers might be in.
+     */
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private <T> T inFirstShard(TransactionCallback<T> work) {
+        return ShardContext.callOnShard(0, () -> transactionTemplate.execute(work));
+    }
+
+    @PostConstruct
+    public void registerStatistics() {
+
+        try {
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ConstantValues.Jwt.REVOCATION_STORE_OBJECT_NAME);
+
+            // Another application context in the same JVM may have registered it already
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(new StandardMBean(statistics, Statistics.class, true), name);
+
+            logger.info("Registered token revocation store statistics as: {}", name);
+        }
+        catch (Exception e) {
+            logger.warn("Could not register token revocation store statistics", e);
+        }
+    }
+
+    @PreDestroy
+    public void unregisterStatistics() {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ConstantValues.Jwt.REVOCATION_STORE_OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+        }
+        catch (Exception e) {
+            logger.warn("Could not unregister token revocation store statistics", e);
+        }
+    }
+
+    /**
+     * Keeps a revoked token in the map until it expires, evicting the tokens that expire the soonest if the map is full.
+     */
+    private void remember(String tokenId, long expiresAtMillis) {
+
+        Long previous = revoked.put(tokenId, expiresAtMillis);
+        expiries.add(new Expiry(expiresAtMillis, tokenId));
+        if (previous != null && previous != expiresAtMillis) expiries.remove(new Expiry(previous, tokenId));
+
+        int maxSize = environmentValues.TODO_JWT_REVOCATION_STORE_MAX_SIZE;
+        if (revoked.size() <= maxSize) return;
+
+        removeExpired();
+
+        while (revoked.size() > maxSize) {
+
+            Expiry soonest = expiries.pollFirst();
+            if (soonest == null) break;
+
+            if (revoked.remove(soonest.tokenId(), soonest.expiresAt())) {
+                evicted.increment();
+                logger.warn("Token revocation store is full with max size: {}. Evicted token: {} before it expires", maxSize, soonest.tokenId());
+            }
+        }
+    }
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+
+        logger.debug("Parameters:: tokenId: {}, expiresAt: {}", tokenId, expiresAt);
+
+        if (tokenId == null) throw new RuntimeException("Token id cannot be null");
+        if (expiresAt == null) throw new RuntimeException("Expires at cannot be null");
+        logger.debug("Not null check passed for tokenId and expiresAt");
+
+        if (!expiresAt.isAfter(Instant.now())) {
+            logger.debug("Token: {} has already expired. Not storing it", tokenId);
+            return;
+        }
+
+        inFirstShard(status -> revokedTokenRepository.save(new RevokedToken(tokenId, LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))));
+        logger.debug("Persisted the revocation of token: {}", tokenId);
+
+        remember(tokenId, expiresAt.toEpochMilli());
+
+        // The other nodes see it once they reload their filters, and this one sees it in the map even before that
+        BloomFilter current = filter;
+        if (current != null) current.put(tokenId);
+
+        logger.info("Revoked token: {} until: {}", tokenId, expiresAt);
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+
+        long start = System.nanoTime();
+
+        try {
+
+            if (tokenId == null) return false;
+
+            Long expiresAt = revoked.get(tokenId);
+            if (expiresAt != null) return expiresAt > System.currentTimeMillis();
+
+            // Until the filter is loaded, every token is looked up in the database
+            BloomFilter current = filter;
+            if (current != null && !current.mightContain(tokenId)) return false;
+
+            databaseLookups.increment();
+            Optional<LocalDateTime> revokedUntil = inFirstShard(status -> revokedTokenRepository.findExpiresAtById(tokenId, LocalDateTime.now()));
+            logger.debug("Looked up token: {} in the database. Revoked until: {}", tokenId, revokedUntil);
+
+            revokedUntil.ifPresent(until -> remember(tokenId, until.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+
+            return revokedUntil.isPresent();
+        }
+        finally {
+            lookupNanos.add(System.nanoTime() - start);
+            lookups.increment();
+        }
+    }
+
+    /**
+     * Removes the expired tokens from the map.
+     * @return The number of removed tokens
+     */
+    private int removeExpired() {
+
+        long now = System.currentTimeMillis();
+        int count = 0;
+
+        // The iteration is in the order of the expiration times, and is weakly consistent with the concurrent revocations
+        for (Expiry expiry : expiries) {
+
+            if (expiry.expiresAt() > now) break;
+
+            // Only one of the concurrent sweepers removes an expiry
+            if (expiries.remove(expiry) && revoked.remove(expiry.tokenId(), expiry.expiresAt())) {
+                expired.increment();
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    @Scheduled(
+            fixedDelayString = "${TODO_JWT_REVOCATION_SWEEP_INTERVAL_IN_MILLIS:60000}",
+            initialDelayString = "${TODO_JWT_REVOCATION_SWEEP_INTERVAL_IN_MILLIS:60000}"
+    )
+    public int sweep() {
+
+        int count = removeExpired();
+
+        // Every node deletes the expired revocations, which is idempotent
+        int deleted = inFirstShard(status -> revokedTokenRepository.deleteByExpiresAtNotAfter(LocalDateTime.now()));
+
+        logger.debug("Swept {} expired tokens and deleted {} expired revocations. Remaining tokens: {}", count, deleted, revoked.size());
+        return count;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${TODO_JWT_REVOCATION_REFRESH_INTERVAL_IN_MILLIS:5000}")
+    public void refresh() {
+
+        List<String> ids = inFirstShard(status -> revokedTokenRepository.findIdsByExpiresAtAfter(LocalDateTime.now()));
+
+        BloomFilter reloaded = new BloomFilter(
+                // Sized for twice the current revocations, so it stays within its false positive rate until the next reload
+                Math.max(2L * ids.size(), ConstantValues.Jwt.REVOCATION_FILTER_MIN_EXPECTED_INSERTIONS),
+                ConstantValues.Jwt.REVOCATION_FILTER_FALSE_POSITIVE_RATE
+        );
+        ids.forEach(reloaded::put);
+
+        // The revocations of this node made during the reload might be missing from it, but they are in the map already
+        filter = reloaded;
+        logger.debug("Reloaded the revoked token filter with {} tokens", ids.size());
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return statistics;
+    }
+}
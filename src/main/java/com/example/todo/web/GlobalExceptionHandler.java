@@ -3,6 +3,9 @@ package com.example.todo.web;
 import com.example.todo.exception.AlreadyExistException;
 import com.example.todo.exception.NotFoundException;
 import com.example.todo.exception.ParseException;
+import com.example.todo.exception.PreconditionFailedException;
+import com.example.todo.exception.ServiceUnavailableException;
+import com.example.todo.exception.UnauthorizedException;
 import com.example.todo.exception.ConstraintValidationException;
 import com.example.todo.model.ErrorResponse;
 import org.slf4j.Logger;
@@ -133,6 +136,46 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, headers, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailedException(PreconditionFailedException ex) {
+
+        ErrorResponse error = new ErrorResponse().setMessages(List.of(ex.getMessage()));
+        HttpHeaders headers = new HttpHeaders();
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        logger.warn("PreconditionFailedException occurred: {}", ex.getMessage());
+
+        return new ResponseEntity<>(error, headers, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(UnauthorizedException.class)
+    public ResponseEntity<ErrorResponse> handleUnauthorizedException(UnauthorizedException ex) {
+
+        ErrorResponse error = new ErrorResponse().setMessages(List.of(ex.getMessage()));
+        HttpHeaders headers = new HttpHeaders();
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        logger.warn("UnauthorizedException occurred: {}", ex.getMessage());
+
+        return new ResponseEntity<>(error, headers, HttpStatus.UNAUTHORIZED);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(ServiceUnavailableException ex) {
+
+        ErrorResponse error = new ErrorResponse().setMessages(List.of(ex.getMessage()));
+        HttpHeaders headers = new HttpHeaders();
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterInSeconds()));
+
+        logger.warn("ServiceUnavailableException occurred: {}", ex.getMessage());
+
+        return new ResponseEntity<>(error, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleException(Exception ex) {
 
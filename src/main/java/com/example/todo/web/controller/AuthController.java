@@ -1,10 +1,13 @@
 package com.example.todo.web.controller;
 
 import com.example.todo.configuration.ConstantValues;
+import com.example.todo.exception.UnauthorizedException;
 import com.example.todo.model.Role;
 import com.example.todo.model.User;
+import com.example.todo.model.UserPrincipal;
 import com.example.todo.service.UserService;
 import com.example.todo.utility.JwtUtilities;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.lang.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,8 +16,10 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import java.security.Principal;
@@ -43,7 +48,10 @@ public class AuthController {
         Assert.notNull(principal, ConstantValues.User.Error.CREDENTIALS_NEEDED);
         logger.debug("Not null check passed for principal object");
 
-        User user = userService.findUser(principal.getName());
+        // The user found by the authentication of the login, if it's the one that authenticated the request
+        User user = principal instanceof Authentication authentication && authentication.getPrincipal() instanceof UserPrincipal userPrincipal
+                ? userPrincipal.getUser()
+                : userService.findUser(principal.getName());
         logger.debug("User found with username: {}", user.getUsername());
 
         UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
@@ -53,16 +61,48 @@ public class AuthController {
                 .build();
         logger.debug("Created UserDetails: {}", userDetails);
 
-        String jwt = jwtUtilities.createJwt(userDetails);
-        logger.debug("Created jwt: {} from UserDetails: {}", jwt, userDetails);
+        String jwt = jwtUtilities.createJwt(userDetails, user.getTokenGeneration());
+        logger.debug("Created jwt from UserDetails: {}", userDetails);
+
+        String refreshJwt = jwtUtilities.createRefreshJwt(userDetails, user.getTokenGeneration());
+        logger.debug("Created refresh jwt from UserDetails: {}", userDetails);
 
         HttpHeaders headers = new HttpHeaders();
 
         headers.add(ConstantValues.Jwt.RESPONSE_HEADER_TOKEN, jwt);
-        logger.debug("Added response header {}:{}", ConstantValues.Jwt.RESPONSE_HEADER_TOKEN, jwt);
+        logger.debug("Added response header {}", ConstantValues.Jwt.RESPONSE_HEADER_TOKEN);
+
+        headers.add(ConstantValues.Jwt.RESPONSE_HEADER_REFRESH_TOKEN, refreshJwt);
+        logger.debug("Added response header {}", ConstantValues.Jwt.RESPONSE_HEADER_REFRESH_TOKEN);
 
-        logger.info("Login successful for user with username: {}. Created jwt: {}", principal.getName(), jwt);
+        logger.info("Login successful for user with username: {}", principal.getName());
 
         return new ResponseEntity<>(user, headers, HttpStatus.ACCEPTED);
     }
+
+    @PostMapping(path = "/refresh")
+    public ResponseEntity<Void> refresh(@RequestHeader(name = ConstantValues.Jwt.REQUEST_HEADER_REFRESH_TOKEN, required = false) String refreshJwt) {
+
+        Assert.hasText(refreshJwt, ConstantValues.Jwt.Error.REFRESH_TOKEN_NEEDED);
+        logger.debug("Not blank check passed for refresh jwt");
+
+        String jwt;
+
+        try {
+            jwt = jwtUtilities.refreshJwt(refreshJwt);
+        }
+        catch (JwtException | IllegalArgumentException e) {
+            throw new UnauthorizedException(ConstantValues.Jwt.Error.INVALID_TOKEN, e);
+        }
+        logger.debug("Created jwt from the refresh jwt");
+
+        HttpHeaders headers = new HttpHeaders();
+
+        headers.add(ConstantValues.Jwt.RESPONSE_HEADER_TOKEN, jwt);
+        logger.debug("Added response header {}", ConstantValues.Jwt.RESPONSE_HEADER_TOKEN);
+
+        logger.info("Refresh successful");
+
+        return new ResponseEntity<>(headers, HttpStatus.ACCEPTED);
+    }
 }
@@ -1,21 +1,50 @@
 package com.example.todo.web.controller;
 
 import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.ShardContext;
+import com.example.todo.exception.PreconditionFailedException;
 import com.example.todo.model.Todo;
+import com.example.todo.model.TodoBatchResult;
+import com.example.todo.model.TodoBulkResult;
+import com.example.todo.model.TodoCounter;
+import com.example.todo.model.TodoFilter;
+import com.example.todo.model.TodoView;
 import com.example.todo.service.validation.TodoValidator;
+import com.example.todo.service.TodoArchiveService;
+import com.example.todo.service.TodoCounterService;
 import com.example.todo.service.TodoService;
+import com.example.todo.service.UserService;
+import com.example.todo.utility.CursorUtilities;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos")
@@ -24,6 +53,11 @@ public class TodoController {
     private final Logger logger = LoggerFactory.getLogger(TodoController.class);
     private TodoService todoService;
     private TodoValidator todoValidator;
+    private CursorUtilities cursorUtilities;
+    private TodoCounterService todoCounterService;
+    private TodoArchiveService todoArchiveService;
+    private UserService userService;
+    private ObjectMapper objectMapper;
 
     @Autowired
     public void setTodoService(TodoService todoService) {
@@ -35,57 +69,296 @@ public class TodoController {
         this.todoValidator = todoValidator;
     }
 
+    @Autowired
+    public void setCursorUtilities(CursorUtilities cursorUtilities) {
+        this.cursorUtilities = cursorUtilities;
+    }
+
+    @Autowired
+    public void setTodoCounterService(TodoCounterService todoCounterService) {
+        this.todoCounterService = todoCounterService;
+    }
+
+    @Autowired
+    public void setTodoArchiveService(TodoArchiveService todoArchiveService) {
+        this.todoArchiveService = todoArchiveService;
+    }
+
+    @Autowired
+    public void setUserService(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parses the version of a todo from an If-Match header value. Returns null if the header is absent or is "*".
+     */
+    private Long parseIfMatch(String ifMatch) {
+
+        logger.debug("Parameters:: ifMatch: {}", ifMatch);
+
+        if (ifMatch == null || ifMatch.trim().equals("*")) return null;
+
+        try {
+            String etag = ifMatch.trim();
+            return Long.parseLong(etag.substring(1, etag.length() - 1)); // Strong entity tags only, i.e. "<version>"
+        }
+        catch (RuntimeException e) {
+            throw new PreconditionFailedException(ConstantValues.Todo.Error.TODO_VERSION_MISMATCH);
+        }
+    }
+
     @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Todo> findTodo(@PathVariable("id") UUID id, Principal principal, HttpServletRequest request) {
+    public ResponseEntity<TodoView> findTodo(@PathVariable("id") UUID id, Principal principal, HttpServletRequest request) {
 
-        Todo todo = todoService.findTodo(principal.getName(), id);
-        logger.info("Found todo with id: {}, username: {} at request url: {}", todo.getId(), principal.getName(), request.getRequestURL());
+        TodoView todo = todoService.findTodo(principal.getName(), id);
+        logger.info("Found todo with id: {}, username: {} at request uri: {}", todo.getId(), principal.getName(), request.getRequestURI());
 
-        return new ResponseEntity<>(todo, HttpStatus.OK);
+        // The If-None-Match header is checked against the ETag by spring, which responds with NOT_MODIFIED if it matches
+        return ResponseEntity.ok().eTag(todo.getETag()).body(todo);
     }
 
     @GetMapping(path = "", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<Todo>> findTodosByUsername(@RequestParam(value = "page", required = false, defaultValue = "1") int page,
+    public ResponseEntity<List<TodoView>> findTodosByUsername(@RequestParam(value = "page", required = false, defaultValue = "1") int page,
                                                           @RequestParam(value = "limit", required = false, defaultValue = "10") int limit,
                                                           @RequestParam(value = "sort", required = false) List<String> sort,
                                                           @RequestParam(value = "order", required = false) List<String> order,
-                                                          Principal principal, HttpServletRequest request) {
-
-        Page<Todo> todos = todoService.findTodosByUsername(principal.getName(), page, limit, todoValidator.validateAndCreateSortOrders(sort, order));
-        logger.info("Found {} todos for username: {} at request url: {} with page: {}, limit: {}, sort: {}, order: {}",
-                todos.getTotalElements(), principal.getName(), request.getRequestURL(), page, limit, sort, order);
+                                                          @RequestParam(value = "after", required = false) String after,
+                                                          @RequestParam(value = "archived", required = false, defaultValue = "false") boolean archived,
+                                                          @RequestParam(value = "completed", required = false) Boolean completed,
+                                                          @RequestParam(value = "scheduledFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime scheduledFrom,
+                                                          @RequestParam(value = "scheduledTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime scheduledTo,
+                                                          @RequestParam(value = "createdAfter", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter,
+                                                          @RequestParam(value = "updatedAfter", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedAfter,
+                                                          Principal principal, HttpServletRequest request, WebRequest webRequest) {
 
+        List<Map.Entry<String, Sort.Direction>> orders = todoValidator.validateAndCreateSortOrders(sort, order);
+        TodoFilter filter = new TodoFilter()
+                .setCompleted(completed)
+                .setScheduledFrom(scheduledFrom)
+                .setScheduledTo(scheduledTo)
+                .setCreatedAfter(createdAfter)
+                .setUpdatedAfter(updatedAfter);
+        Assert.isTrue(!archived || after == null, ConstantValues.Todo.Error.ARCHIVED_CURSOR_NOT_SUPPORTED);
+        Assert.isTrue(!archived || filter.isEmpty(), ConstantValues.Todo.Error.ARCHIVED_FILTER_NOT_SUPPORTED);
         HttpHeaders headers = new HttpHeaders();
+
+        // Any change to the todos of the user changes the revision of the counter, so it's checked before reading the todos.
+        // The Last-Modified header is left out, as it has a granularity of a second, which misses the changes within a second
+        TodoCounter counter = todoCounterService.findCounter(principal.getName());
+
+        if (webRequest.checkNotModified(counter.getETag())) { // Also sets the ETag header
+            logger.info("Todos for username: {} at request uri: {} are not modified since revision: {}", principal.getName(), request.getRequestURI(), counter.getRevision());
+            return null;
+        }
+
+        if (archived) {
+
+            Page<TodoView> todos = todoArchiveService.findArchivedTodosByUsername(principal.getName(), page, limit, orders);
+            logger.info("Found {} archived todos for username: {} at request uri: {} with page: {}, limit: {}, sort: {}, order: {}",
+                    todos.getTotalElements(), principal.getName(), request.getRequestURI(), page, limit, sort, order);
+
+            headers.set(ConstantValues.RestApi.PAGINATION_TOTAL_COUNT_HEADER, String.valueOf(todos.getTotalElements()));
+            logger.debug("Added response header {}:{}", ConstantValues.RestApi.PAGINATION_TOTAL_COUNT_HEADER, todos.getTotalElements());
+
+            return new ResponseEntity<>(todos.getContent(), headers, HttpStatus.OK);
+        }
+
+        if (after != null) { // Cursor based pagination, the after parameter can be empty for the first window
+
+            Window<TodoView> todos = todoService.findTodosByUsername(principal.getName(), filter, cursorUtilities.decode(after, Todo.class), limit, orders);
+            logger.info("Found {} todos for username: {} at request uri: {} with filter: {}, after: {}, limit: {}, sort: {}, order: {}",
+                    todos.size(), principal.getName(), request.getRequestURI(), filter, after, limit, sort, order);
+
+            if (todos.hasNext() && !todos.isEmpty()) {
+                String next = cursorUtilities.encode((KeysetScrollPosition) todos.positionAt(todos.size() - 1));
+                headers.set(ConstantValues.RestApi.PAGINATION_NEXT_CURSOR_HEADER, next);
+                logger.debug("Added response header {}:{}", ConstantValues.RestApi.PAGINATION_NEXT_CURSOR_HEADER, next);
+            }
+
+            return new ResponseEntity<>(todos.getContent(), headers, HttpStatus.OK);
+        }
+
+        Page<TodoView> todos = todoService.findTodosByUsername(principal.getName(), filter, page, limit, orders);
+        logger.info("Found {} todos for username: {} at request uri: {} with filter: {}, page: {}, limit: {}, sort: {}, order: {}",
+                todos.getTotalElements(), principal.getName(), request.getRequestURI(), filter, page, limit, sort, order);
+
         headers.set(ConstantValues.RestApi.PAGINATION_TOTAL_COUNT_HEADER, String.valueOf(todos.getTotalElements()));
         logger.debug("Added response header {}:{}", ConstantValues.RestApi.PAGINATION_TOTAL_COUNT_HEADER, todos.getTotalElements());
 
         return new ResponseEntity<>(todos.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * Quotes a CSV field if it contains a separator, a quote or a line break, doubling its quotes. A null is an empty field.
+     */
+    private String toCsvField(Object value) {
+
+        if (value == null) return "";
+
+        String field = value instanceof LocalDateTime time ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time) : value.toString();
+
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0)
+            return field;
+
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Creates a consumer that writes every todo as a line of JSON, the same as it's listed.
+     */
+    private Consumer<TodoView> ndjsonWriter(Writer writer) {
+
+        return todo -> {
+            try {
+                writer.write(objectMapper.writeValueAsString(todo));
+                writer.write('\n');
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Creates a consumer that writes every todo as a line of CSV, after a header line with the same names as the JSON fields.
+     */
+    private Consumer<TodoView> csvWriter(Writer writer) throws IOException {
+
+        writer.write(String.join(",",
+                ConstantValues.Todo.Json.ID,
+                ConstantValues.Todo.Json.TITLE,
+                ConstantValues.Todo.Json.CREATED_AT,
+                ConstantValues.Todo.Json.UPDATED_AT,
+                ConstantValues.Todo.Json.SCHEDULED_AT,
+                ConstantValues.Todo.Json.COMPLETED,
+                ConstantValues.Todo.Json.DESCRIPTION
+        ) + "\r\n");
+
+        return todo -> {
+            try {
+                writer.write(String.join(",",
+                        toCsvField(todo.getId()),
+                        toCsvField(todo.getTitle()),
+                        toCsvField(todo.getCreatedAt()),
+                        toCsvField(todo.getUpdatedAt()),
+                        toCsvField(todo.getScheduledAt()),
+                        toCsvField(todo.getCompleted()),
+                        toCsvField(todo.getDescription())
+                ) + "\r\n");
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    @GetMapping(path = "/export")
+    public ResponseEntity<StreamingResponseBody> exportTodos(@RequestParam(value = "format", required = false, defaultValue = ConstantValues.Todo.Export.NDJSON) String format,
+                                                             Principal principal, HttpServletRequest request) {
+
+        boolean csv = ConstantValues.Todo.Export.CSV.equals(format);
+        Assert.isTrue(csv || ConstantValues.Todo.Export.NDJSON.equals(format), ConstantValues.Todo.Error.UNSUPPORTED_EXPORT_FORMAT);
+
+        String username = principal.getName();
+        String uri = request.getRequestURI();
+
+        // The todos are written after the response has started, so the user is checked to exist before that
+        userService.findUser(username);
+
+        // Runs on another thread once this method returns, so the user of the shard is set explicitly
+        StreamingResponseBody body = outputStream -> {
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), ConstantValues.Todo.Export.BUFFER_SIZE);
+            Consumer<TodoView> consumer = csv ? csvWriter(writer) : ndjsonWriter(writer);
+
+            try {
+                long count = ShardContext.callAs(username, () -> todoService.exportTodos(username, consumer));
+                writer.flush();
+                logger.info("Exported {} todos as {} for username: {} at request uri: {}", count, format, username, uri);
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        ContentDisposition disposition = ContentDisposition.attachment().filename(ConstantValues.Todo.Export.FILENAME + "." + format).build();
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
     @PostMapping(path = "", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Todo> createTodo(@RequestBody Todo todo, Principal principal, HttpServletRequest request) {
 
         todo = todoService.createTodo(principal.getName(), todo);
-        logger.info("Created todo with id {}, username: {} at request url: {}", todo.getId(), principal.getName(), request.getRequestURL());
+        logger.info("Created todo with id {}, username: {} at request uri: {}", todo.getId(), principal.getName(), request.getRequestURI());
 
-        return new ResponseEntity<>(todo, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(TodoView.of(todo).getETag()).body(todo);
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<TodoBatchResult>> createTodos(@RequestBody List<Todo> todos, Principal principal, HttpServletRequest request) {
+
+        List<TodoBatchResult> results = todoService.createTodos(principal.getName(), todos);
+        logger.info("Created todos in batch of size: {}, username: {} at request uri: {}", results.size(), principal.getName(), request.getRequestURI());
+
+        return new ResponseEntity<>(results, HttpStatus.MULTI_STATUS);
     }
 
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Todo> updateTodo(@PathVariable("id")  UUID id, @RequestBody Todo todo, Principal principal, HttpServletRequest request) {
+    public ResponseEntity<TodoView> updateTodo(@PathVariable("id")  UUID id, @RequestBody Todo todo,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               Principal principal, HttpServletRequest request) {
+
+        TodoView updated = todoService.updateTodo(principal.getName(), id, parseIfMatch(ifMatch), todo);
+        logger.info("Updated todo with id: {}, username: {} at request uri: {}", updated.getId(), principal.getName(), request.getRequestURI());
+
+        return ResponseEntity.ok().eTag(updated.getETag()).body(updated);
+    }
+
+    @PatchMapping(path = "", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TodoBulkResult> updateTodos(@RequestParam(value = "completed", required = false) Boolean completed,
+                                                      @RequestParam(value = "scheduledBefore", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime scheduledBefore,
+                                                      @RequestParam(value = "scheduledAfter", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime scheduledAfter,
+                                                      @RequestBody Todo todo, Principal principal, HttpServletRequest request) {
+
+        TodoFilter filter = new TodoFilter().setCompleted(completed).setScheduledBefore(scheduledBefore).setScheduledAfter(scheduledAfter);
+
+        long updated = todoService.updateTodos(principal.getName(), filter, todo);
+        logger.info("Updated {} todos with filter: {}, username: {} at request uri: {}", updated, filter, principal.getName(), request.getRequestURI());
+
+        return new ResponseEntity<>(new TodoBulkResult(updated), HttpStatus.OK);
+    }
+
+    @DeleteMapping(path = "", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TodoBulkResult> deleteTodos(@RequestParam(value = "completed", required = false) Boolean completed,
+                                                      @RequestParam(value = "scheduledBefore", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime scheduledBefore,
+                                                      @RequestParam(value = "scheduledAfter", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime scheduledAfter,
+                                                      Principal principal, HttpServletRequest request) {
+
+        TodoFilter filter = new TodoFilter().setCompleted(completed).setScheduledBefore(scheduledBefore).setScheduledAfter(scheduledAfter);
 
-        todo = todoService.updateTodo(principal.getName(), id, todo);
-        logger.info("Updated todo with id: {}, username: {} at request url: {}", todo.getId(), principal.getName(), request.getRequestURL());
+        long deleted = todoService.deleteTodos(principal.getName(), filter);
+        logger.info("Deleted {} todos with filter: {}, username: {} at request uri: {}", deleted, filter, principal.getName(), request.getRequestURI());
 
-        return new ResponseEntity<>(todo, HttpStatus.OK);
+        return new ResponseEntity<>(new TodoBulkResult(deleted), HttpStatus.OK);
     }
 
-    @DeleteMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Todo> deleteTodo(@PathVariable("id") UUID id, Principal principal, HttpServletRequest request) {
+    @DeleteMapping(path = "/{id}")
+    public ResponseEntity<Void> deleteTodo(@PathVariable("id") UUID id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           Principal principal, HttpServletRequest request) {
 
-        Todo todo = todoService.deleteTodo(principal.getName(), id);
-        logger.info("Deleted todo with id: {}, username: {} at request url: {}", todo.getId(), principal.getName(), request.getRequestURL());
+        todoService.deleteTodo(principal.getName(), id, parseIfMatch(ifMatch));
+        logger.info("Deleted todo with id: {}, username: {} at request uri: {}", id, principal.getName(), request.getRequestURI());
 
-        return new ResponseEntity<>(todo, HttpStatus.OK);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 }
@@ -37,7 +37,7 @@ public class UserController {
     public ResponseEntity<User> findUser(Principal principal, HttpServletRequest request) {
 
         User user = userService.findUser(principal.getName());
-        logger.info("User found with username: {} at request url: {}", user.getUsername(), request.getRequestURL());
+        logger.info("User found with username: {} at request uri: {}", user.getUsername(), request.getRequestURI());
 
         return new ResponseEntity<>(user, HttpStatus.OK);
     }
@@ -46,7 +46,7 @@ public class UserController {
     public ResponseEntity<User> createUser(@RequestBody User user, HttpServletRequest request) {
 
         user = userService.createUser(user);
-        logger.info("User created with username: {} at request url: {}", user.getUsername(), request.getRequestURL());
+        logger.info("User created with username: {} at request uri: {}", user.getUsername(), request.getRequestURI());
 
         return new ResponseEntity<>(user, HttpStatus.CREATED);
     }
@@ -55,7 +55,7 @@ public class UserController {
     public ResponseEntity<User> updatePassword(@RequestBody PasswordUpdateRequest passwordUpdateRequest, Principal principal, HttpServletRequest request) {
 
         User user = userService.updatePassword(principal.getName(), passwordUpdateRequest);
-        logger.info("User password updated with username: {} at request url: {}", user.getUsername(), request.getRequestURL());
+        logger.info("User password updated with username: {} at request uri: {}", user.getUsername(), request.getRequestURI());
 
         return new ResponseEntity<>(user, HttpStatus.OK);
     }
@@ -64,7 +64,7 @@ public class UserController {
     public ResponseEntity<User> updateEmail(@RequestBody User user, Principal principal, HttpServletRequest request) {
 
         user = userService.updateEmail(principal.getName(), user);
-        logger.info("User email updated with username: {} at request url: {}", user.getUsername(), request.getRequestURL());
+        logger.info("User email updated with username: {} at request uri: {}", user.getUsername(), request.getRequestURI());
 
         return new ResponseEntity<>(user, HttpStatus.OK);
     }
@@ -73,7 +73,7 @@ public class UserController {
     public ResponseEntity<User> updateUser(@RequestBody User user, Principal principal, HttpServletRequest request) {
 
         user = userService.updateUser(principal.getName(), user);
-        logger.info("User updated with username: {} at request url: {}", user.getUsername(), request.getRequestURL());
+        logger.info("User updated with username: {} at request uri: {}", user.getUsername(), request.getRequestURI());
 
         return new ResponseEntity<>(user, HttpStatus.OK);
     }
@@ -82,10 +82,10 @@ public class UserController {
     public ResponseEntity<User> deleteUser(HttpServletRequest request, Principal principal) {
 
         User deleted = userService.deleteUser(principal.getName());
-        logger.info("User deleted with username: {} at request url: {}", deleted.getUsername(), request.getRequestURL());
+        logger.info("User deleted with username: {} at request uri: {}", deleted.getUsername(), request.getRequestURI());
 
         jwtFilter.blacklistJwtInRequestAttribute(request);
-        logger.info("JWT token blacklisted for username: {} at request url: {}", deleted.getUsername(), request.getRequestURL());
+        logger.info("JWT token blacklisted for username: {} at request uri: {}", deleted.getUsername(), request.getRequestURI());
 
         return new ResponseEntity<>(deleted, HttpStatus.OK);
     }
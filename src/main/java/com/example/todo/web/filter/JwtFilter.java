@@ -1,6 +1,7 @@
 package com.example.todo.web.filter;
 
 import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.IdentityContext;
 import com.example.todo.utility.JwtUtilities;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -28,7 +29,9 @@ import java.util.Map;
 
 /**
  * A JWT filter that sets the security context with an authenticated user if the JWT is valid. It also
- * sets a request attribute with the user's username and JWT with the attribute name of {@link ConstantValues.Jwt}'s REQUEST_ATTRIBUTE_TOKEN_KEY.
+ * sets a request attribute with the user's username and JWT with the attribute name of {@link ConstantValues.Jwt}'s REQUEST_ATTRIBUTE_TOKEN_KEY,
+ * and populates the {@link IdentityContext} of the request. Only the access tokens are accepted, the refresh tokens are exchanged
+ * for them at the refresh endpoint, which this filter doesn't run for.
  * This filter will not run for the requests listed in shouldNotExecuteRequests {@link List}.
  * <br>
  * <br>
@@ -41,9 +44,11 @@ public class JwtFilter extends OncePerRequestFilter {
     private JwtUtilities jwtUtilities;
     private final List<RequestMatcher> shouldNotExecuteRequests = List.of(
                     new AntPathRequestMatcher(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/auth/login", "POST"),
+                    new AntPathRequestMatcher(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/auth/refresh", "POST"),
                     new AntPathRequestMatcher(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/users", "POST")
     );
     private HttpStatusEntryPoint unauthorizedEntryPoint;
+    private IdentityContext identityContext;
 
     @Autowired
     public void setJwtUtilities(JwtUtilities jwtUtilities) {
@@ -55,6 +60,11 @@ public class JwtFilter extends OncePerRequestFilter {
         this.unauthorizedEntryPoint = unauthorizedEntryPoint;
     }
 
+    @Autowired
+    public void setIdentityContext(IdentityContext identityContext) {
+        this.identityContext = identityContext;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
@@ -63,7 +73,7 @@ public class JwtFilter extends OncePerRequestFilter {
         try {
 
             String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-            logger.debug("Extracted {} header: {}", HttpHeaders.AUTHORIZATION, authHeader);
+            logger.debug("Extracted {} header", HttpHeaders.AUTHORIZATION);
 
             if (authHeader == null) {
                 throw new IllegalArgumentException(ConstantValues.RestApi.Error.AUTHORIZATION_HEADER_NOT_FOUND);
@@ -73,7 +83,7 @@ public class JwtFilter extends OncePerRequestFilter {
             }
 
             String jwt = authHeader.substring(ConstantValues.Jwt.BEARER_TOKEN_PREFIX.length() + 1);
-            logger.debug("Extracted JWT: {}", jwt);
+            logger.debug("Extracted JWT from the {} header", HttpHeaders.AUTHORIZATION);
 
             UserDetails user = jwtUtilities.getUser(jwt);
             logger.debug("Extracted user details: {}", user);
@@ -90,10 +100,14 @@ public class JwtFilter extends OncePerRequestFilter {
             SecurityContextHolder.setContext(context);
             logger.debug("SecurityContext is set to SecurityContextHolder");
 
-            request.setAttribute(ConstantValues.Jwt.REQUEST_ATTRIBUTE_TOKEN_KEY, Map.entry(user.getUsername(), jwt));
-            logger.debug("Added request attribute {}:{}", ConstantValues.Jwt.REQUEST_ATTRIBUTE_TOKEN_KEY, Map.entry(user.getUsername(), jwt));
+            Map.Entry<String, String> tokenAttribute = Map.entry(user.getUsername(), jwt);
+            request.setAttribute(ConstantValues.Jwt.REQUEST_ATTRIBUTE_TOKEN_KEY, tokenAttribute);
+            logger.debug("Added request attribute {} for username: {}", ConstantValues.Jwt.REQUEST_ATTRIBUTE_TOKEN_KEY, user.getUsername());
+
+            identityContext.setUsername(user.getUsername()).setAuthorities(user.getAuthorities()).setToken(jwt);
+            logger.debug("Populated IdentityContext: {}", identityContext);
 
-            logger.info("JWT: {} validated successfully", jwt);
+            logger.info("JWT of username: {} validated successfully", user.getUsername());
         }
         catch (RuntimeException e) {
 
@@ -127,11 +141,19 @@ public class JwtFilter extends OncePerRequestFilter {
         logger.debug("Not null check passed for request");
 
         Object attribute = request.getAttribute(ConstantValues.Jwt.REQUEST_ATTRIBUTE_TOKEN_KEY);
-        logger.debug("Extracted request attribute {} = {}", ConstantValues.Jwt.REQUEST_ATTRIBUTE_TOKEN_KEY, attribute);
+        logger.debug("Extracted request attribute {}", ConstantValues.Jwt.REQUEST_ATTRIBUTE_TOKEN_KEY);
 
         if (attribute instanceof Map.Entry entry && entry.getKey() instanceof String username && entry.getValue() instanceof String token) {
+
             jwtUtilities.blackListJwt(username, token);
-            logger.info("Token {} blacklisted for username {}", token, username);
+            logger.info("Token blacklisted for username {}", username);
+
+            String refreshToken = request.getHeader(ConstantValues.Jwt.REQUEST_HEADER_REFRESH_TOKEN);
+
+            if (refreshToken != null && !refreshToken.isBlank()) {
+                jwtUtilities.blackListJwt(username, refreshToken);
+                logger.info("Refresh token blacklisted for username {}", username);
+            }
         }
         else
             logger.info("No token was blacklisted");
@@ -0,0 +1,54 @@
+package com.example.todo.web.filter;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.EnvironmentValues;
+import com.example.todo.configuration.LogSamplingTurboFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A filter that samples a fraction of the requests, TODO_LOG_INFO_SAMPLE_RATE, whose info logs of the application are kept
+ * by {@link LogSamplingTurboFilter}. A request is sampled as a whole, so the info logs of a sampled request are all kept
+ * and can be followed from its start to its end. The decision is put in the MDC with the key of {@link ConstantValues.Logging}'s
+ * MDC_INFO_SAMPLED for the duration of the request. It runs before any other filter, including the security ones.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LogSamplingFilter extends OncePerRequestFilter {
+
+    private double sampleRate;
+
+    @Autowired
+    public void setEnvironmentValues(EnvironmentValues environmentValues) {
+        this.sampleRate = environmentValues.TODO_LOG_INFO_SAMPLE_RATE;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        // Every request is kept, so there is nothing to decide
+        if (sampleRate >= 1) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        MDC.put(ConstantValues.Logging.MDC_INFO_SAMPLED, String.valueOf(ThreadLocalRandom.current().nextDouble() < sampleRate));
+
+        try {
+            filterChain.doFilter(request, response);
+        }
+        finally {
+            MDC.remove(ConstantValues.Logging.MDC_INFO_SAMPLED);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.todo.web.filter;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.EnvironmentValues;
+import com.example.todo.utility.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A filter that limits the rate of the requests to a group of routes, per username and per client address, with the token
+ * buckets of the {@link RateLimiter}. The authentication group holds the requests that hash a password, like the logins and
+ * the sign ups, and the write group holds the requests that modify the todos. Every group has its own requests per minute,
+ * where 0 disables the limit, and a request is throttled if either its username or its address is over the limit of its group.
+ * <br>
+ * <br>
+ * This filter runs after {@link JwtFilter}, so the username of an authenticated request is the one of its JWT, and before
+ * the basic authentication, so the username of a login is taken from its Authorization header and a throttled login doesn't
+ * hash its password. The address is the remote address of the request, which is the one of the client if the forwarded
+ * headers of a proxy in front of the application are handled by the server.
+ * This filter will not run for the requests not in any group.
+ * <br>
+ * <br>
+ * A throttled request is responded with HttpStatus.TOO_MANY_REQUESTS, and the Retry-After header in seconds.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * A group of routes that are limited together.
+     */
+    private record RouteGroup(String name, RequestMatcher matcher, int usernamePerMinute, int addressPerMinute) {}
+
+    private static final String BASIC_AUTHORIZATION_PREFIX = "Basic ";
+
+    private final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private RateLimiter rateLimiter;
+    private List<RouteGroup> routeGroups;
+
+    @Autowired
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Autowired
+    public void setEnvironmentValues(EnvironmentValues environmentValues) {
+
+        String prefix = ConstantValues.RestApi.REST_API_ROUTE_PREFIX;
+
+        this.routeGroups = List.of(
+                new RouteGroup(
+                        "auth",
+                        new OrRequestMatcher(
+                                new AntPathRequestMatcher(prefix + "/auth/login", "POST"),
+                                new AntPathRequestMatcher(prefix + "/auth/refresh", "POST"),
+                                new AntPathRequestMatcher(prefix + "/users", "POST"),
+                                new AntPathRequestMatcher(prefix + "/users/password", "PATCH")
+                        ),
+                        environmentValues.TODO_RATE_LIMIT_AUTH_USERNAME_PER_MINUTE,
+                        environmentValues.TODO_RATE_LIMIT_AUTH_ADDRESS_PER_MINUTE
+                ),
+                new RouteGroup(
+                        "write",
+                        new OrRequestMatcher(
+                                new AntPathRequestMatcher(prefix + "/todos/**", "POST"),
+                                new AntPathRequestMatcher(prefix + "/todos/**", "PUT"),
+                                new AntPathRequestMatcher(prefix + "/todos/**", "PATCH"),
+                                new AntPathRequestMatcher(prefix + "/todos/**", "DELETE")
+                        ),
+                        environmentValues.TODO_RATE_LIMIT_WRITE_USERNAME_PER_MINUTE,
+                        environmentValues.TODO_RATE_LIMIT_WRITE_ADDRESS_PER_MINUTE
+                )
+        );
+    }
+
+    /**
+     * @return The username of the authenticated user, or else the one in the basic Authorization header, or null if
+     * there is neither.
+     */
+    private String usernameOf(HttpServletRequest request) {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken))
+            return authentication.getName();
+
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.regionMatches(true, 0, BASIC_AUTHORIZATION_PREFIX, 0, BASIC_AUTHORIZATION_PREFIX.length()))
+            return null;
+
+        try {
+
+            String credentials = new String(Base64.getDecoder().decode(authHeader.substring(BASIC_AUTHORIZATION_PREFIX.length()).trim()), StandardCharsets.UTF_8);
+            int separator = credentials.indexOf(':');
+
+            return separator > 0 ? credentials.substring(0, separator) : null;
+        }
+        catch (IllegalArgumentException e) {
+            // The basic authentication rejects it anyway
+            logger.debug("Invalid basic {} header: {}", HttpHeaders.AUTHORIZATION, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Takes a permit from the bucket of a key in a group, if the group limits it.
+     * @return 0 if a permit was taken, or else the number of nanoseconds until the bucket has one.
+     */
+    private long tryAcquire(RouteGroup group, String keyPrefix, String key, int permitsPerMinute) {
+
+        if (key == null || permitsPerMinute <= 0) return 0;
+
+        // The addresses are cheap to cycle through, so their buckets make room for the ones of the usernames
+        return rateLimiter.tryAcquire(group.name() + ":" + keyPrefix + key, permitsPerMinute, keyPrefix.equals(ConstantValues.RateLimit.ADDRESS_KEY_PREFIX));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        logger.debug("Parameter:: request: {}, response: {}, filterChain: {}", request, response, filterChain);
+
+        RouteGroup group = null;
+
+        for (RouteGroup routeGroup : routeGroups) {
+            if (routeGroup.matcher().matches(request)) {
+                group = routeGroup;
+                break;
+            }
+        }
+
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String address = request.getRemoteAddr();
+        String username = usernameOf(request);
+        logger.debug("Matched route group: {} with address: {} and username: {}", group.name(), address, username);
+
+        long waitNanos = tryAcquire(group, ConstantValues.RateLimit.ADDRESS_KEY_PREFIX, address, group.addressPerMinute());
+        if (waitNanos == 0)
+            waitNanos = tryAcquire(group, ConstantValues.RateLimit.USERNAME_KEY_PREFIX, username, group.usernamePerMinute());
+
+        if (waitNanos > 0) {
+
+            long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            // Not a warning, as a flood of throttled requests would flood the log as well. They are counted by the RateLimiter
+            logger.debug("Throttled request to route group: {} from address: {} and username: {}. Retry after: {} seconds", group.name(), address, username, retryAfter);
+
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.todo.web.filter;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.ShardDirectory;
+import com.example.todo.configuration.ShardRoutingDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A filter that rejects the writes of an authenticated user whose data is being migrated to another shard, as known by
+ * the {@link ShardDirectory}, before any transaction is started for them. The requests with a method other than GET,
+ * HEAD, OPTIONS or TRACE are writes. A write that passes this filter just before the migration starts is still rejected
+ * by the {@link ShardRoutingDataSource}, when its transaction gets a connection.
+ * <br>
+ * <br>
+ * This filter runs after {@link JwtFilter}, so the username is the one of the JWT. A rejected write is responded with
+ * HttpStatus.SERVICE_UNAVAILABLE, and the Retry-After header in seconds.
+ */
+@Component
+public class ShardMigrationFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name(), HttpMethod.TRACE.name());
+
+    private final Logger logger = LoggerFactory.getLogger(ShardMigrationFilter.class);
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    public void setShardDirectory(ShardDirectory shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return READ_METHODS.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        logger.debug("Parameter:: request: {}, response: {}, filterChain: {}", request, response, filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)
+                && shardDirectory.isMigrating(authentication.getName())) {
+
+            logger.info("Rejected a write of user with username: {} at request uri: {}, as it's being migrated", authentication.getName(), request.getRequestURI());
+
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(ConstantValues.DataSource.SHARD_MIGRATION_RETRY_AFTER_IN_SECONDS));
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
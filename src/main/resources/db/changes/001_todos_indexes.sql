@@ -0,0 +1,5 @@
+-- Composite indexes for the per-user queries on the todos table. Every list query matches the username
+-- and sorts by one of the indexed columns, see ConstantValues.Todo.INDEXED_SORTS.
+CREATE INDEX idx_todos_username_scheduled_at_id ON todos (username, scheduled_at, id);
+CREATE INDEX idx_todos_username_completed_scheduled_at ON todos (username, completed, scheduled_at);
+CREATE INDEX idx_todos_username_created_at ON todos (username, created_at);
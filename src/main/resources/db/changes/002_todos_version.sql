@@ -0,0 +1,2 @@
+-- Version column of the todos, used for optimistic concurrency control and entity tags.
+ALTER TABLE todos ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,6 @@
+-- Counts of the todos of every user, see TodoCounterServiceImpl. The revision and modified at columns are added by 004_todo_counters_revision.sql.
+CREATE TABLE todo_counters (
+    username VARCHAR(60) NOT NULL PRIMARY KEY,
+    total BIGINT NOT NULL,
+    completed BIGINT NOT NULL
+);
@@ -0,0 +1,3 @@
+-- Revision and modified at time of the todos of a user, used for conditional requests on the todo list.
+ALTER TABLE todo_counters ADD COLUMN revision BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE todo_counters ADD COLUMN modified_at DATETIME(6) NULL;
@@ -0,0 +1,5 @@
+-- The users that have been migrated away from the shard of their username on the hash ring. Only needed in the first shard.
+CREATE TABLE user_shards (
+    username VARCHAR(60) NOT NULL PRIMARY KEY,
+    shard INT NOT NULL
+);
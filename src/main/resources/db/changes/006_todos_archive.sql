@@ -0,0 +1,15 @@
+-- Completed todos that have been moved out of the todos table by the archival job, see TodoArchiveServiceImpl.
+CREATE TABLE todos_archive (
+    id BINARY(16) NOT NULL PRIMARY KEY,
+    username VARCHAR(60) NOT NULL,
+    title VARCHAR(300) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    scheduled_at DATETIME(6) NOT NULL,
+    completed BIT NOT NULL,
+    description VARCHAR(500) NOT NULL,
+    version BIGINT NOT NULL,
+    archived_at DATETIME(6) NOT NULL
+);
+CREATE INDEX idx_todos_archive_username_scheduled_at_id ON todos_archive (username, scheduled_at, id);
+CREATE INDEX idx_todos_archive_username_created_at ON todos_archive (username, created_at);
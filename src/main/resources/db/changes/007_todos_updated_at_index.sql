@@ -0,0 +1,2 @@
+-- Composite index for filtering the todos of a user by their updated at time, see ConstantValues.Todo.INDEXED_FILTERS.
+CREATE INDEX idx_todos_username_updated_at ON todos (username, updated_at);
@@ -0,0 +1,6 @@
+-- The JWT tokens revoked before they expire, by their ids, see TokenRevocationStoreImpl. Only needed in the first shard.
+CREATE TABLE revoked_tokens (
+    id VARCHAR(64) NOT NULL PRIMARY KEY,
+    expires_at DATETIME(6) NOT NULL
+);
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
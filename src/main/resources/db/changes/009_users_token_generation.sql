@@ -0,0 +1,2 @@
+-- The generation of the tokens of a user, changed to revoke all of them at once, see TokenGenerationStoreImpl.
+ALTER TABLE users ADD COLUMN token_generation BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,2 @@
+-- Marks the users that are being migrated, whose writes are rejected by every instance meanwhile, see ShardDirectory.
+ALTER TABLE user_shards ADD COLUMN migrating BIT NOT NULL DEFAULT 0;
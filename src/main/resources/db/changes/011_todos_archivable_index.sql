@@ -0,0 +1,2 @@
+-- Index for finding the completed todos of all the users that haven't been updated for a while, see TodoArchiveServiceImpl.
+CREATE INDEX idx_todos_completed_updated_at_id ON todos (completed, updated_at, id);
@@ -0,0 +1,8 @@
+-- Locks of the shard migrations that must run on a single instance at a time, see ShardMigrationServiceImpl. A lock is
+-- held by its owner until it expires, unless the owner renews it. Only needed in the first shard.
+CREATE TABLE shard_migration_locks (
+    name VARCHAR(60) NOT NULL PRIMARY KEY,
+    owner VARCHAR(60) NULL,
+    expires_at DATETIME(6) NULL
+);
+INSERT INTO shard_migration_locks (name) VALUES ('reshard');
@@ -0,0 +1,106 @@
+package com.example.todo;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.model.Role;
+import com.example.todo.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The base of the tests that run the application on an embedded database and call its REST API with {@link MockMvc},
+ * as signed up and logged in users. The subclasses share an application context and its database, unless they set
+ * properties of their own with {@link org.springframework.test.context.TestPropertySource}. These need to set a database
+ * of their own as well, as the schema of a database is dropped and created again by every context that uses it.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:rest-api;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public abstract class AbstractRestApiTests {
+
+    protected static final String PASSWORD = "password1";
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @BeforeAll
+    void createRole() {
+        if (!roleRepository.existsById("USER")) roleRepository.save(new Role().setName("USER"));
+    }
+
+    /**
+     * Signs up a user with {@link #PASSWORD}.
+     * @param username The username
+     */
+    protected void createUser(String username) throws Exception {
+
+        mockMvc.perform(post(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\",\"forename\":\"Test\",\"surname\":\"User\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    /**
+     * Logs a user in.
+     * @param username The username
+     * @return The value of the {@link HttpHeaders#AUTHORIZATION} header with the access token of the user
+     */
+    protected String login(String username) throws Exception {
+
+        return ConstantValues.Jwt.BEARER_TOKEN_PREFIX + " " + mockMvc.perform(post(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/auth/login").with(httpBasic(username, PASSWORD)))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getHeader(ConstantValues.Jwt.RESPONSE_HEADER_TOKEN);
+    }
+
+    /**
+     * Signs up a user and logs it in.
+     * @param username The username
+     * @return The value of the {@link HttpHeaders#AUTHORIZATION} header with the access token of the user
+     */
+    protected String createUserAndLogin(String username) throws Exception {
+
+        createUser(username);
+        return login(username);
+    }
+
+    /**
+     * Creates a todo, scheduled at the beginning of 2099, of the user of a token.
+     * @param token The value of the {@link HttpHeaders#AUTHORIZATION} header
+     * @param title The title of the todo
+     * @param completed Whether the todo is completed
+     * @return The {@link ResultActions} of the request
+     */
+    protected ResultActions createTodo(String token, String title, boolean completed) throws Exception {
+        return createTodo(token, title, completed, "2099-01-01T00:00:00");
+    }
+
+    /**
+     * Creates a todo of the user of a token.
+     * @param token The value of the {@link HttpHeaders#AUTHORIZATION} header
+     * @param title The title of the todo
+     * @param completed Whether the todo is completed
+     * @param scheduledAt The scheduled at time of the todo, as it's written in json
+     * @return The {@link ResultActions} of the request
+     */
+    protected ResultActions createTodo(String token, String title, boolean completed, String scheduledAt) throws Exception {
+
+        return mockMvc.perform(post(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"" + title + "\",\"description\":\"Description\",\"completed\":" + completed + ",\"scheduled_at\":\"" + scheduledAt + "\"}"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.todo;
+
+import com.example.todo.configuration.ConstantValues;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Measures the throughput of the request hot path, nine reads of the todos for every write, with the logs of the application
+ * at INFO and turned off. It takes a few minutes, so it's only run with -DloadTests=true, and the throughput is logged.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:logging-load;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "TODO_RATE_LIMIT_WRITE_USERNAME_PER_MINUTE=0",
+        "TODO_RATE_LIMIT_WRITE_ADDRESS_PER_MINUTE=0"
+})
+@EnabledIfSystemProperty(named = "loadTests", matches = "true")
+class LoggingLoadTests extends AbstractRestApiTests {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS = 10_000;
+    private static final int ROUNDS = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(LoggingLoadTests.class);
+
+    @Autowired
+    private LoggingSystem loggingSystem;
+
+    private void request(String token, int i) throws Exception {
+
+        if (i % 10 == 0)
+            createTodo(token, "Todo " + i, false).andExpect(status().isCreated());
+        else
+            mockMvc.perform(get(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos?limit=10").header(HttpHeaders.AUTHORIZATION, token))
+                    .andExpect(status().isOk());
+    }
+
+    /**
+     * @return The best throughput of the rounds, in requests per second
+     */
+    private double measure(ExecutorService executor, String token) throws Exception {
+
+        double best = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int thread = 0; thread < THREADS; thread++)
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < REQUESTS / THREADS; i++) request(token, i);
+                    return null;
+                }));
+
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+
+            best = Math.max(best, REQUESTS / ((System.nanoTime() - started) / 1e9));
+        }
+
+        return best;
+    }
+
+    @Test
+    void requests_throughputWithTheLogsOnAndOff() throws Exception {
+
+        String token = createUserAndLogin("load1");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            loggingSystem.setLogLevel("com.example.todo", LogLevel.INFO);
+            double on = measure(executor, token);
+
+            loggingSystem.setLogLevel("com.example.todo", LogLevel.OFF);
+            double off = measure(executor, token);
+
+            loggingSystem.setLogLevel("com.example.todo", null);
+            logger.info("Throughput with the logs on: {} requests/s, off: {} requests/s", Math.round(on), Math.round(off));
+        }
+        finally {
+            loggingSystem.setLogLevel("com.example.todo", null);
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.todo;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.utility.TokenRevocationStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Base64;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs two nodes of the application on one embedded database. The first one is the context of the test, and the second
+ * one is started next to it, without touching the schema, and is called over http.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + TokenRevocationAcrossNodesTests.URL,
+        "TODO_JWT_REVOCATION_REFRESH_INTERVAL_IN_MILLIS=3600000"
+})
+class TokenRevocationAcrossNodesTests extends AbstractRestApiTests {
+
+    static final String URL = "jdbc:h2:mem:revocation-nodes;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private ConfigurableApplicationContext otherNode;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeAll
+    void startOtherNode() {
+        otherNode = startNode();
+    }
+
+    /**
+     * Starts a node of the application on the database of the test. The properties are passed as arguments, as the
+     * properties of the builder are only the defaults, which the application.properties of the tests override.
+     */
+    private static ConfigurableApplicationContext startNode() {
+
+        return new SpringApplicationBuilder(TodoServer.class).run(
+                "--spring.datasource.url=" + URL,
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--server.port=0",
+                "--TODO_JWT_REVOCATION_REFRESH_INTERVAL_IN_MILLIS=3600000"
+        );
+    }
+
+    @AfterAll
+    void stopOtherNode() {
+        otherNode.close();
+    }
+
+    /**
+     * @return The status of listing the todos on the other node
+     */
+    private int listTodosOnOtherNode(String token) throws Exception {
+
+        int port = ((ServletWebServerApplicationContext) otherNode).getWebServer().getPort();
+
+        HttpRequest request = HttpRequest
+                .newBuilder(URI.create("http://localhost:" + port + ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos"))
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .GET()
+                .build();
+
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Test
+    void logout_revokesTheTokenOnTheOtherNodeOnceItRefreshes() throws Exception {
+
+        String token = createUserAndLogin("nodes1");
+
+        assertEquals(200, listTodosOnOtherNode(token));
+
+        mockMvc.perform(post(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/auth/logout").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().is2xxSuccessful());
+        mockMvc.perform(get(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isUnauthorized());
+
+        // Its filter has been loaded before the revocation, so it doesn't look the token up until it's reloaded
+        assertEquals(200, listTodosOnOtherNode(token));
+
+        otherNode.getBean(TokenRevocationStore.class).refresh();
+
+        assertEquals(401, listTodosOnOtherNode(token));
+    }
+
+    @Test
+    void revoke_isSeenByANodeThatStartsAfterwards() throws Exception {
+
+        String token = createUserAndLogin("nodes2");
+
+        mockMvc.perform(post(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/auth/logout").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().is2xxSuccessful());
+
+        ConfigurableApplicationContext restarted = startNode();
+
+        try {
+            assertTrue(restarted.getBean(TokenRevocationStore.class).isRevoked(tokenIdOf(token)));
+        }
+        finally {
+            restarted.close();
+        }
+    }
+
+    private static String tokenIdOf(String token) throws Exception {
+
+        String payload = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]));
+        return new ObjectMapper().readTree(payload).get("jti").asText();
+    }
+}
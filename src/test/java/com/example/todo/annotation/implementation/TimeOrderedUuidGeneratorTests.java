@@ -0,0 +1,72 @@
+package com.example.todo.annotation.implementation;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedUuidGeneratorTests {
+
+    private static final int IDS = 100_000;
+
+    /**
+     * @return The unix timestamp in milliseconds of a version 7 UUID
+     */
+    private static long timestampOf(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * Compares the ids the way the database does, i.e. their bytes as unsigned values.
+     */
+    private static int compare(UUID a, UUID b) {
+
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    @Test
+    void generate_returnsVersion7UuidsOfTheCurrentTime() {
+
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedUuidGenerator.generate();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        // The timestamp may be ahead by a millisecond if the sequence of the current one has overflowed
+        assertTrue(timestampOf(id) >= before && timestampOf(id) <= after + 1, "Timestamp: " + timestampOf(id));
+    }
+
+    @Test
+    void generate_returnsIdsThatIncreaseMonotonically() {
+
+        UUID previous = TimeOrderedUuidGenerator.generate();
+
+        for (int i = 0; i < IDS; i++) {
+
+            UUID id = TimeOrderedUuidGenerator.generate();
+            assertTrue(compare(previous, id) < 0, previous + " is not before " + id);
+            previous = id;
+        }
+    }
+
+    @Test
+    void generate_returnsUniqueIdsAcrossThreads() {
+
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> threads = new ArrayList<>();
+
+        for (int thread = 0; thread < 8; thread++)
+            threads.add(CompletableFuture.runAsync(() -> IntStream.range(0, IDS / 8).forEach(i -> ids.add(TimeOrderedUuidGenerator.generate()))));
+        threads.forEach(CompletableFuture::join);
+
+        assertEquals(IDS, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id.version() == 7));
+    }
+}
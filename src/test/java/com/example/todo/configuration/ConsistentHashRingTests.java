@@ -0,0 +1,57 @@
+package com.example.todo.configuration;
+
+import org.junit.jupiter.api.Test;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTests {
+
+    private static final int KEYS = 100_000;
+
+    private static String key(int i) {
+        return "user" + i;
+    }
+
+    @Test
+    void shardOf_placesTheKeysEvenlyAcrossTheShards() {
+
+        ConsistentHashRing ring = new ConsistentHashRing(4, ConstantValues.DataSource.SHARD_VIRTUAL_NODES);
+        int[] counts = new int[ring.size()];
+
+        IntStream.range(0, KEYS).forEach(i -> counts[ring.shardOf(key(i))]++);
+
+        for (int count : counts)
+            assertEquals(KEYS / 4.0, count, KEYS / 4.0 * 0.2, "Each shard has about a quarter of the keys");
+    }
+
+    @Test
+    void shardOf_movesOnlyTheKeysOfTheAddedShard() {
+
+        ConsistentHashRing before = new ConsistentHashRing(3, ConstantValues.DataSource.SHARD_VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(4, ConstantValues.DataSource.SHARD_VIRTUAL_NODES);
+        int moved = 0;
+
+        for (int i = 0; i < KEYS; i++) {
+
+            int shard = after.shardOf(key(i));
+
+            if (shard != before.shardOf(key(i))) {
+                assertEquals(3, shard, "A key only moves to the added shard");
+                moved++;
+            }
+        }
+
+        assertEquals(KEYS / 4.0, moved, KEYS / 4.0 * 0.2, "About a quarter of the keys move");
+    }
+
+    @Test
+    void shardOf_isTheSameForEveryRingOfTheSameSize() {
+
+        ConsistentHashRing ring = new ConsistentHashRing(2, ConstantValues.DataSource.SHARD_VIRTUAL_NODES);
+        ConsistentHashRing other = new ConsistentHashRing(2, ConstantValues.DataSource.SHARD_VIRTUAL_NODES);
+
+        IntStream.range(0, 1000).forEach(i -> assertEquals(ring.shardOf(key(i)), other.shardOf(key(i))));
+        assertEquals(0, new ConsistentHashRing(1, ConstantValues.DataSource.SHARD_VIRTUAL_NODES).shardOf(key(0)));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0, ConstantValues.DataSource.SHARD_VIRTUAL_NODES));
+    }
+}
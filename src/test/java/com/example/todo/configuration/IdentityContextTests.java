@@ -0,0 +1,85 @@
+package com.example.todo.configuration;
+
+import com.example.todo.AbstractRestApiTests;
+import com.example.todo.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Serves the requests of a user and checks, with the statistics of hibernate, that the user is only loaded when its
+ * existence can't be told from its todos.
+ */
+class IdentityContextTests extends AbstractRestApiTests {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void clearStatistics() {
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * @return The number of times the user has been read from the database, which is every read of it, as the second
+     * level cache is off in the tests
+     */
+    private long userReads() {
+
+        EntityStatistics user = statistics.getEntityStatistics(User.class.getName());
+        return user.getLoadCount() + user.getFetchCount();
+    }
+
+    @Test
+    void requests_doNotLoadTheUserOfTheToken() throws Exception {
+
+        String token = createUserAndLogin("identity1");
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++)
+            createTodo(token, "Todo " + i, false).andExpect(status().isCreated());
+
+        mockMvc.perform(get(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+
+        assertEquals(0, userReads());
+    }
+
+    @Test
+    void requests_loadTheUserOnceIfItHasNoTodos() throws Exception {
+
+        String token = createUserAndLogin("identity2");
+        statistics.clear();
+
+        mockMvc.perform(get(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+
+        assertEquals(1, userReads());
+    }
+
+    @Test
+    void isUserVerified_isOnlyTrueForTheUserOfTheRequest() {
+
+        IdentityContext identityContext = new IdentityContext().setUsername("identity3");
+
+        assertFalse(identityContext.isUserVerified("identity3"));
+
+        identityContext.setUserVerified(true);
+
+        assertTrue(identityContext.isUserVerified("identity3"));
+        assertFalse(identityContext.isUserVerified("identity4"));
+        assertFalse(identityContext.isUserVerified(null));
+    }
+}
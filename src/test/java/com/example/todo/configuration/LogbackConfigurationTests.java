@@ -0,0 +1,57 @@
+package com.example.todo.configuration;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Configures a logger context of its own with logback-spring.xml, so that the logging of the other tests is left as it is,
+ * with and without the LOG_FILE property that spring boot sets for logging.file.name and logging.file.path.
+ */
+class LogbackConfigurationTests {
+
+    private static LoggerContext configure(Path file) throws Exception {
+
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        if (file != null) context.putProperty("LOG_FILE", file.toString());
+
+        JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(LogbackConfigurationTests.class.getResource("/logback-spring.xml"));
+
+        return context;
+    }
+
+    @Test
+    void logbackSpring_writesTheLogsToTheFileOfLogFileInTheBackground(@TempDir Path directory) throws Exception {
+
+        Path file = directory.resolve("todo.log");
+        LoggerContext context = configure(file);
+
+        assertNotNull(context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("ASYNC_FILE"));
+        assertNotNull(context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("ASYNC_CONSOLE"));
+
+        context.getLogger(LogbackConfigurationTests.class).warn("Written to the file");
+        context.stop(); // Drains the queues of the async appenders
+
+        assertTrue(Files.readString(file).contains("Written to the file"));
+    }
+
+    @Test
+    void logbackSpring_writesTheLogsToTheConsoleOnlyWithoutLogFile() throws Exception {
+
+        LoggerContext context = configure(null);
+
+        assertNull(context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("ASYNC_FILE"));
+        assertNotNull(context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("ASYNC_CONSOLE"));
+
+        context.stop();
+    }
+}
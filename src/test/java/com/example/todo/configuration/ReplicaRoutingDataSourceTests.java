@@ -0,0 +1,89 @@
+package com.example.todo.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes the transactions between three embedded databases, a primary and two replicas, which are told apart by their names.
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private static DataSource database(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+    }
+
+    private final DataSource primary = database("routing-primary");
+    private final List<DataSource> replicas = List.of(database("routing-replica-0"), database("routing-replica-1"));
+
+    private static DataSource routing(DataSource primary, List<DataSource> replicas, long readYourWritesWindowInSeconds) {
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, readYourWritesWindowInSeconds);
+        routing.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * @return The name of the database that a transaction is routed to
+     */
+    private static String route(DataSource dataSource, String username, boolean readOnly) {
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+
+        return ShardContext.callAs(username, () -> transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT DATABASE()", String.class)));
+    }
+
+    @Test
+    void determineCurrentLookupKey_routesTheReadOnlyTransactionsToTheReplicasInTurn() {
+
+        DataSource dataSource = routing(primary, replicas, 5);
+
+        assertEquals(
+                List.of("ROUTING-REPLICA-0", "ROUTING-REPLICA-1", "ROUTING-REPLICA-0"),
+                List.of(route(dataSource, null, true), route(dataSource, "reader1", true), route(dataSource, null, true))
+        );
+        assertEquals("ROUTING-PRIMARY", route(dataSource, "writer1", false));
+        assertEquals("ROUTING-PRIMARY", route(dataSource, null, false));
+    }
+
+    @Test
+    void determineCurrentLookupKey_routesTheReadsOfAUserToThePrimaryAfterItsWrites() {
+
+        DataSource dataSource = routing(primary, replicas, 5);
+
+        route(dataSource, "writer1", false);
+
+        assertEquals("ROUTING-PRIMARY", route(dataSource, "writer1", true));
+        assertTrue(route(dataSource, "reader1", true).startsWith("ROUTING-REPLICA"));
+        assertTrue(route(dataSource, null, true).startsWith("ROUTING-REPLICA"));
+    }
+
+    @Test
+    void determineCurrentLookupKey_routesTheReadsOfAUserToTheReplicasOnceTheWindowHasPassed() {
+
+        DataSource dataSource = routing(primary, replicas, 0);
+
+        route(dataSource, "writer1", false);
+
+        assertTrue(route(dataSource, "writer1", true).startsWith("ROUTING-REPLICA"));
+    }
+
+    @Test
+    void determineCurrentLookupKey_routesEverythingToThePrimaryWithoutReplicas() {
+
+        DataSource dataSource = routing(primary, List.of(), 5);
+
+        assertEquals("ROUTING-PRIMARY", route(dataSource, null, true));
+        assertEquals("ROUTING-PRIMARY", route(dataSource, "reader1", true));
+        assertEquals("ROUTING-PRIMARY", route(dataSource, "writer1", false));
+    }
+}
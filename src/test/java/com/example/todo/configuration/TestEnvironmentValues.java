@@ -0,0 +1,33 @@
+package com.example.todo.configuration;
+
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Creates the {@link EnvironmentValues} for the tests that don't start an application context, with the required values
+ * set as in src/test/resources/config/application.properties.
+ */
+public final class TestEnvironmentValues {
+
+    private TestEnvironmentValues() {
+    }
+
+    /**
+     * @param properties The names and values of the properties to set along with the required ones, alternately
+     * @return The environment values
+     */
+    public static EnvironmentValues of(String... properties) {
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("TODO_CORS_ALLOWED_ORIGINS", "http://localhost")
+                .withProperty("TODO_CORS_ALLOWED_METHODS", "GET:POST:PATCH:DELETE")
+                .withProperty("TODO_CORS_ALLOWED_HEADERS", "*")
+                .withProperty("TODO_JWT_SIGNING_KEY", "0123456789abcdef0123456789abcdef0123456789abcdef")
+                .withProperty("TODO_JWT_EXPIRATION_TIME_IN_SECONDS", "3600")
+                .withProperty("TODO_USER_ROLES", "USER");
+
+        for (int i = 0; i + 1 < properties.length; i += 2)
+            environment.setProperty(properties[i], properties[i + 1]);
+
+        return new EnvironmentValues(environment);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.todo.repository;
+
+import com.example.todo.AbstractRestApiTests;
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoFilter;
+import com.example.todo.service.validation.TodoValidator;
+import jakarta.persistence.Column;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Explains the queries of every filter and sort that the {@link TodoValidator} allows, and checks that the database serves
+ * them with an index of the todos table that matches the username and the filter, and that is already in the order of the sort.
+ */
+class TodoIndexPlanTests extends AbstractRestApiTests {
+
+    private static final Pattern INDEX = Pattern.compile("/\\* PUBLIC\\.(\\w+)");
+
+    /**
+     * The conditions of the filter properties, as the repository writes them.
+     */
+    private static final Map<String, String> CONDITIONS = Map.of(
+            "completed", "completed = TRUE",
+            "scheduledAt", "scheduled_at >= TIMESTAMP '2030-01-01 00:00:00'",
+            "createdAt", "created_at > TIMESTAMP '2030-01-01 00:00:00'",
+            "updatedAt", "updated_at > TIMESTAMP '2030-01-01 00:00:00'"
+    );
+
+    @Autowired
+    private TodoValidator todoValidator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static String column(String property) throws NoSuchFieldException {
+        return Todo.class.getDeclaredField(property).getAnnotation(Column.class).name();
+    }
+
+    private static TodoFilter filter(List<String> properties) {
+
+        LocalDateTime time = LocalDateTime.of(2030, 1, 1, 0, 0);
+        TodoFilter filter = new TodoFilter();
+
+        for (String property : properties) {
+            switch (property) {
+                case "completed" -> filter.setCompleted(true);
+                case "scheduledAt" -> filter.setScheduledFrom(time);
+                case "createdAt" -> filter.setCreatedAfter(time);
+                case "updatedAt" -> filter.setUpdatedAfter(time);
+                default -> throw new IllegalArgumentException(property);
+            }
+        }
+
+        return filter;
+    }
+
+    /**
+     * @return The filters that the indexes serve, i.e. the prefixes of {@link ConstantValues.Todo}'s INDEXED_FILTERS, including no filter
+     */
+    private static List<List<String>> filters() {
+
+        List<List<String>> filters = new ArrayList<>();
+
+        for (List<String> indexed : ConstantValues.Todo.INDEXED_FILTERS)
+            for (int i = 0; i <= indexed.size(); i++)
+                if (!filters.contains(indexed.subList(0, i))) filters.add(indexed.subList(0, i));
+
+        return filters;
+    }
+
+    @BeforeAll
+    void createTodos() throws Exception {
+
+        String token = createUserAndLogin("planned1");
+
+        for (int i = 0; i < 50; i++)
+            createTodo(token, "Todo " + i, i % 2 == 0, "2099-01-01T00:00:" + String.format("%02d", i)).andExpect(status().isCreated());
+
+        // The plans are chosen with the statistics of the table
+        jdbcTemplate.execute("ANALYZE TABLE todos");
+    }
+
+    @Test
+    void indexedFiltersAndSorts_areServedByAnIndexInTheOrderOfTheSort() throws Exception {
+
+        Map<String, List<String>> indexes = new HashMap<>();
+
+        for (Index index : Todo.class.getAnnotation(Table.class).indexes())
+            indexes.put(index.name().toUpperCase(), List.of(index.columnList().split(",\\s*")));
+
+        List<List<String>> sorts = new ArrayList<>(ConstantValues.Todo.INDEXED_SORTS);
+        sorts.add(List.of());
+        int explained = 0;
+
+        for (List<String> properties : filters()) {
+            for (List<String> sort : sorts) {
+
+                List<Map.Entry<String, Sort.Direction>> orders = sort.stream().map(property -> Map.entry(property, Sort.Direction.ASC)).toList();
+
+                try {
+                    todoValidator.validateFilter(filter(properties), orders.isEmpty() ? null : orders);
+                }
+                catch (IllegalArgumentException e) {
+                    continue;
+                }
+
+                List<String> conditions = new ArrayList<>(List.of("username = 'planned1'"));
+                for (String property : properties) conditions.add(CONDITIONS.get(property));
+
+                List<String> filterColumns = new ArrayList<>(List.of("username"));
+                for (String property : properties) filterColumns.add(column(property));
+
+                List<String> sortColumns = new ArrayList<>();
+                for (String property : sort) sortColumns.add(column(property));
+
+                // Unlike MySQL, H2 only reads an index in order if the sort starts with its first column, so the columns of
+                // the equality conditions, which are constant, are sorted by first. H2 also doesn't end the secondary indexes
+                // with the primary key, as InnoDB does, so the id is left out of the sort of the indexes that don't list it
+                List<String> orderColumns = new ArrayList<>(List.of("username"));
+                if (properties.contains("completed") && !sortColumns.contains("completed")) orderColumns.add("completed");
+                orderColumns.addAll(sortColumns);
+                if (!sortColumns.isEmpty() && indexes.values().stream().noneMatch(orderColumns::equals))
+                    orderColumns.remove("id");
+
+                String sql = "SELECT id FROM todos WHERE " + String.join(" AND ", conditions) + " LIMIT 10";
+                String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+                Matcher matcher = INDEX.matcher(plan);
+                assertTrue(matcher.find() && indexes.containsKey(matcher.group(1)), "No index for: " + sql + "\n" + plan);
+                assertEquals(filterColumns, indexes.get(matcher.group(1)).subList(0, filterColumns.size()), "Index does not match the filter of: " + sql + "\n" + plan);
+
+                if (!sortColumns.isEmpty()) {
+
+                    // H2 doesn't weigh the sorting that an index saves, unlike MySQL, so the index of the sort is given
+                    String index = indexes.entrySet().stream()
+                            .filter(entry -> entry.getValue().size() >= orderColumns.size() && entry.getValue().subList(0, orderColumns.size()).equals(orderColumns))
+                            .map(Map.Entry::getKey)
+                            .findFirst()
+                            .orElseThrow(() -> new AssertionError("No index in the order of: " + orderColumns));
+
+                    assertEquals(filterColumns, indexes.get(index).subList(0, filterColumns.size()), "Index of the sort: " + orderColumns + " does not match the filter: " + filterColumns);
+
+                    sql = "SELECT id FROM todos USE INDEX (" + index + ") WHERE " + String.join(" AND ", conditions) + " ORDER BY " + String.join(", ", orderColumns) + " LIMIT 10";
+                    plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+                    assertTrue(plan.contains("index sorted"), "Sorted after the scan: " + sql + "\n" + plan);
+                }
+                explained++;
+            }
+        }
+
+        assertTrue(explained >= ConstantValues.Todo.INDEXED_SORTS.size() + ConstantValues.Todo.INDEXED_FILTERS.size());
+    }
+}
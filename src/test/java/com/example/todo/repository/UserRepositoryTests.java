@@ -0,0 +1,109 @@
+package com.example.todo.repository;
+
+import com.example.todo.AbstractRestApiTests;
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.model.Role;
+import com.example.todo.model.User;
+import com.example.todo.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Finds the users through the second level cache, which is disabled for the other tests, and checks that the cached
+ * users are updated or evicted along with the users in the database.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-cache;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true"
+})
+class UserRepositoryTests extends AbstractRestApiTests {
+
+    private static final String USERS = ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/users";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean isCached(String username) {
+        return entityManagerFactory.getCache().contains(User.class, username);
+    }
+
+    private User findCached(String username) {
+
+        User user = userRepository.findById(username).orElseThrow();
+        assertTrue(isCached(username));
+
+        return user;
+    }
+
+    @Test
+    void findById_findsTheUpdatedUser() throws Exception {
+
+        String token = createUserAndLogin("cached1");
+        assertEquals("Test", findCached("cached1").getForename());
+
+        mockMvc.perform(put(USERS).header(HttpHeaders.AUTHORIZATION, token).contentType(MediaType.APPLICATION_JSON).content("{\"forename\":\"Updated\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Updated", userRepository.findById("cached1").orElseThrow().getForename());
+    }
+
+    @Test
+    void findById_findsTheTokenGenerationOfTheChangedPassword() throws Exception {
+
+        String token = createUserAndLogin("cached2");
+        long generation = findCached("cached2").getTokenGeneration();
+
+        mockMvc.perform(patch(USERS + "/password").header(HttpHeaders.AUTHORIZATION, token).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"current\":{\"password\":\"" + PASSWORD + "\"},\"modified\":{\"password\":\"password2\"}}"))
+                .andExpect(status().isOk());
+
+        assertEquals(generation + 1, userRepository.findById("cached2").orElseThrow().getTokenGeneration());
+        assertEquals(generation + 1, jdbcTemplate.queryForObject("SELECT token_generation FROM users WHERE username = 'cached2'", Long.class));
+    }
+
+    @Test
+    void findById_doesNotFindTheDeletedUser() throws Exception {
+
+        String token = createUserAndLogin("cached3");
+        findCached("cached3");
+
+        mockMvc.perform(delete(USERS).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+
+        assertTrue(userRepository.findById("cached3").isEmpty());
+    }
+
+    @Test
+    void findUser_findsTheRolesInTheDatabaseRatherThanTheCache() throws Exception {
+
+        createUser("cached4");
+        assertEquals(List.of("USER"), findCached("cached4").getRoles().stream().map(Role::getName).toList());
+
+        // Changed by another node, or by hand
+        jdbcTemplate.update("MERGE INTO auth_roles (name) KEY (name) VALUES ('ADMIN')");
+        jdbcTemplate.update("INSERT INTO users_roles (username, role) VALUES ('cached4', 'ADMIN')");
+
+        assertEquals(List.of("USER", "ADMIN"), userService.findUser("cached4").getRoles().stream().map(Role::getName).toList());
+        assertEquals(List.of("USER", "ADMIN"), userRepository.findById("cached4").orElseThrow().getRoles().stream().map(Role::getName).toList());
+    }
+}
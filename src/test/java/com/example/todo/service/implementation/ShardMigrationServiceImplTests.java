@@ -0,0 +1,227 @@
+package com.example.todo.service.implementation;
+
+import com.example.todo.AbstractRestApiTests;
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.ConsistentHashRing;
+import com.example.todo.configuration.ShardDirectory;
+import com.example.todo.service.ShardMigrationService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Migrates users between two embedded databases, the first of which has the user_shards table made by the schema changes.
+ * All the users start in the first shard, as only it is on the hash ring.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migration-shard-0;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "TODO_DATASOURCE_SHARD_URLS=jdbc:h2:mem:migration-shard-1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "TODO_DATASOURCE_SHARD_RING_SIZE=1",
+        "TODO_DATASOURCE_SHARD_DIRECTORY_REFRESH_INTERVAL_IN_MILLIS=100",
+        "spring.jpa.defer-datasource-initialization=true",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/changes/005_user_shards.sql,classpath:db/changes/010_user_shards_migrating.sql,classpath:db/changes/012_shard_migration_locks.sql"
+})
+class ShardMigrationServiceImplTests extends AbstractRestApiTests {
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private ShardMigrationService shardMigrationService;
+
+    @BeforeAll
+    void createSecondShard() {
+
+        shard(0).execute("SCRIPT NODATA TO 'target/migration-shard-schema.sql' TABLE auth_roles, users, users_roles, todos, todo_counters, todos_archive");
+        shard(1).execute("RUNSCRIPT FROM 'target/migration-shard-schema.sql'");
+
+        shard(1).update("INSERT INTO auth_roles (name) VALUES ('USER')");
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(shardDirectory.getPrimary(shard));
+    }
+
+    private Map<String, Long> rows(int shard, String username) {
+
+        Map<String, Long> rows = new HashMap<>();
+
+        for (String table : ConstantValues.DataSource.SHARD_MIGRATION_TABLES)
+            rows.put(table, shard(shard).queryForObject("SELECT COUNT(*) FROM " + table + " WHERE username = ?", Long.class, username));
+
+        return rows;
+    }
+
+    private String createUser(String username, int todos) throws Exception {
+
+        String token = createUserAndLogin(username);
+
+        for (int i = 0; i < todos; i++)
+            createTodo(token, "Todo " + i, false).andExpect(status().isCreated());
+
+        return token;
+    }
+
+    @Test
+    void migrateUser_copiesAllRowsAndDeletesThemFromThePreviousShard() throws Exception {
+
+        String token = createUser("migrated1", 3);
+        Map<String, Long> before = rows(0, "migrated1");
+
+        assertTrue(shardMigrationService.migrateUser("migrated1", 1));
+
+        assertEquals(before, rows(1, "migrated1"));
+        assertTrue(rows(0, "migrated1").values().stream().allMatch(count -> count == 0));
+        assertEquals(1, shardDirectory.shardOf("migrated1"));
+        assertEquals(List.of(Map.of("SHARD", 1, "MIGRATING", false)),
+                shard(0).queryForList("SELECT shard, migrating FROM user_shards WHERE username = ?", "migrated1"));
+
+        mockMvc.perform(get(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+        createTodo(token, "Todo 3", false).andExpect(status().isCreated());
+        assertEquals(4, rows(1, "migrated1").get("todos"));
+
+        assertFalse(shardMigrationService.migrateUser("migrated1", 1));
+        assertTrue(shardMigrationService.migrateUser("migrated1", 0));
+
+        assertEquals(0, shardDirectory.shardOf("migrated1"));
+        assertEquals(4, rows(0, "migrated1").get("todos"));
+        assertEquals(0, shard(0).queryForObject("SELECT COUNT(*) FROM user_shards WHERE username = ?", Long.class, "migrated1"));
+    }
+
+    @Test
+    void setMigrating_rejectsTheWritesOnEveryInstance() throws Exception {
+
+        String token = createUser("migrating1", 1);
+        ShardDirectory otherInstance = new ShardDirectory(List.of(shardDirectory.getPrimary(0), shardDirectory.getPrimary(1)), new ConsistentHashRing(1, ConstantValues.DataSource.SHARD_VIRTUAL_NODES), 100);
+
+        assertFalse(otherInstance.isMigrating("migrating1"));
+
+        shardDirectory.setMigrating("migrating1", true);
+
+        try {
+            otherInstance.refresh();
+            assertTrue(otherInstance.isMigrating("migrating1"));
+
+            createTodo(token, "Todo 1", false)
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, String.valueOf(ConstantValues.DataSource.SHARD_MIGRATION_RETRY_AFTER_IN_SECONDS)));
+            // Rejected before the todo is looked for
+            mockMvc.perform(delete(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos/" + UUID.randomUUID()).header(HttpHeaders.AUTHORIZATION, token))
+                    .andExpect(status().isServiceUnavailable());
+            mockMvc.perform(get(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos").header(HttpHeaders.AUTHORIZATION, token))
+                    .andExpect(status().isOk());
+        }
+        finally {
+            shardDirectory.setMigrating("migrating1", false);
+        }
+
+        otherInstance.refresh();
+        assertFalse(otherInstance.isMigrating("migrating1"));
+        createTodo(token, "Todo 1", false).andExpect(status().isCreated());
+    }
+
+    @Test
+    void migrateUser_keepsTheRowsThatHaveChangedAfterTheyWereCopied() throws Exception {
+
+        createUser("changed1", 2);
+
+        CompletableFuture<Boolean> migration = CompletableFuture.supplyAsync(() -> shardMigrationService.migrateUser("changed1", 1));
+
+        while (shardDirectory.shardOf("changed1") != 1) Thread.sleep(10);
+        shard(0).update("UPDATE users SET forename = ? WHERE username = ?", "Changed", "changed1");
+
+        assertTrue(migration.get());
+        assertEquals(2, rows(1, "changed1").get("todos"));
+        assertEquals(2, rows(0, "changed1").get("todos"));
+        assertEquals("Test", shard(1).queryForObject("SELECT forename FROM users WHERE username = ?", String.class, "changed1"));
+    }
+
+    @Test
+    void migrateUser_skipsTheUserThatIsBeingMigratedByAnotherInstance() throws Exception {
+
+        createUser("skipped1", 1);
+        ShardDirectory otherInstance = new ShardDirectory(List.of(shardDirectory.getPrimary(0), shardDirectory.getPrimary(1)), new ConsistentHashRing(1, ConstantValues.DataSource.SHARD_VIRTUAL_NODES), 100);
+
+        assertTrue(otherInstance.tryMarkMigrating("skipped1"));
+
+        try {
+            assertFalse(shardDirectory.tryMarkMigrating("skipped1"));
+            assertFalse(shardMigrationService.migrateUser("skipped1", 1));
+            assertEquals(1, rows(0, "skipped1").get("todos"));
+            assertEquals(0, rows(1, "skipped1").get("users"));
+        }
+        finally {
+            otherInstance.setMigrating("skipped1", false);
+        }
+
+        assertTrue(shardMigrationService.migrateUser("skipped1", 1));
+    }
+
+    @Test
+    void reshard_isSkippedWhileAnotherInstanceHoldsTheLock() throws Exception {
+
+        ConsistentHashRing ring = new ConsistentHashRing(2, ConstantValues.DataSource.SHARD_VIRTUAL_NODES);
+        String username = IntStream.range(0, 100).mapToObj(i -> "locked" + i).filter(name -> ring.shardOf(name) == 1).findFirst().orElseThrow();
+        String lock = "UPDATE shard_migration_locks SET owner = ?, expires_at = ? WHERE name = ?";
+
+        createUser(username, 1);
+        shard(0).update(lock, "other", LocalDateTime.now().plusMinutes(1), ConstantValues.DataSource.RESHARD_LOCK);
+
+        assertEquals(0, shardMigrationService.reshard(2));
+        assertEquals(0, shardDirectory.shardOf(username));
+        assertEquals(1, rows(0, username).get("todos"));
+
+        // The lock of an instance that has failed expires
+        shard(0).update(lock, "other", LocalDateTime.now().minusMinutes(1), ConstantValues.DataSource.RESHARD_LOCK);
+
+        assertTrue(shardMigrationService.reshard(2) >= 1);
+        assertEquals(1, shardDirectory.shardOf(username));
+        assertEquals(1, rows(1, username).get("todos"));
+        assertNull(shard(0).queryForObject("SELECT owner FROM shard_migration_locks WHERE name = ?", String.class, ConstantValues.DataSource.RESHARD_LOCK));
+
+        shardMigrationService.reshard(1);
+    }
+
+    @Test
+    void reshard_migratesTheUsersToTheirShardsOnTheNewRing() throws Exception {
+
+        ConsistentHashRing ring = new ConsistentHashRing(2, ConstantValues.DataSource.SHARD_VIRTUAL_NODES);
+        List<String> usernames = List.of("resharded1", "resharded2", "resharded3", "resharded4", "resharded5", "resharded6");
+
+        for (String username : usernames) createUser(username, 2);
+
+        long moving = usernames.stream().filter(username -> ring.shardOf(username) == 1).count();
+        assertTrue(moving > 0);
+        assertTrue(shardMigrationService.reshard(2) >= moving);
+
+        for (String username : usernames) {
+            assertEquals(ring.shardOf(username), shardDirectory.shardOf(username));
+            assertEquals(2, rows(ring.shardOf(username), username).get("todos"));
+            assertEquals(0, rows(1 - ring.shardOf(username), username).get("users"));
+        }
+
+        shardMigrationService.reshard(1);
+
+        for (String username : usernames) {
+            assertEquals(0, shardDirectory.shardOf(username));
+            assertEquals(2, rows(0, username).get("todos"));
+        }
+    }
+}
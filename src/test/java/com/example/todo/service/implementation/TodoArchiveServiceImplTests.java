@@ -0,0 +1,63 @@
+package com.example.todo.service.implementation;
+
+import com.example.todo.AbstractRestApiTests;
+import com.example.todo.service.TodoArchiveService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Archives the todos in chunks of two, so that the archival continues after the key of the previous chunk several times,
+ * including between todos that have been updated at the same time.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:todo-archive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "TODO_ARCHIVE_CHUNK_SIZE=2",
+        "TODO_ARCHIVE_THROTTLE_IN_MILLIS=0"
+})
+class TodoArchiveServiceImplTests extends AbstractRestApiTests {
+
+    @Autowired
+    private TodoArchiveService todoArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long count(String table, String username) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE username = ?", Long.class, username);
+    }
+
+    @Test
+    void archiveTodos_movesEveryOldCompletedTodoAcrossTheChunks() throws Exception {
+
+        String first = createUserAndLogin("archived1");
+        String second = createUserAndLogin("archived2");
+
+        for (int i = 0; i < 4; i++) {
+            createTodo(first, "Todo " + i, true).andExpect(status().isCreated());
+            createTodo(second, "Todo " + i, i % 2 == 0).andExpect(status().isCreated());
+        }
+        createTodo(first, "Recent", true).andExpect(status().isCreated());
+
+        // Three of the old ones share their updated at time, so they are only told apart by their ids
+        LocalDateTime old = LocalDateTime.now().minusYears(1);
+        List<String> titles = List.of("Todo 0", "Todo 1", "Todo 2", "Todo 3");
+
+        for (int i = 0; i < titles.size(); i++)
+            jdbcTemplate.update("UPDATE todos SET updated_at = ? WHERE title = ?", i == 0 ? old.minusDays(1) : old, titles.get(i));
+
+        assertEquals(6, todoArchiveService.archiveTodos());
+
+        assertEquals(1, count("todos", "archived1"));
+        assertEquals(4, count("todos_archive", "archived1"));
+        assertEquals(2, count("todos", "archived2"));
+        assertEquals(2, count("todos_archive", "archived2"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos WHERE completed = false AND username = 'archived1'", Long.class));
+        assertEquals(0, todoArchiveService.archiveTodos());
+    }
+}
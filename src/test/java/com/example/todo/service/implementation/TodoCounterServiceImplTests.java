@@ -0,0 +1,75 @@
+package com.example.todo.service.implementation;
+
+import com.example.todo.AbstractRestApiTests;
+import com.example.todo.model.TodoCounter;
+import com.example.todo.service.TodoCounterService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Creates the counters of the users at sign up, and the absent ones of the users that have signed up before the counters,
+ * which are simulated by deleting the rows of the counters.
+ */
+class TodoCounterServiceImplTests extends AbstractRestApiTests {
+
+    @Autowired
+    private TodoCounterService todoCounterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Map<String, Object> findRow(String username) {
+        return jdbcTemplate.queryForMap("SELECT total, completed, revision FROM todo_counters WHERE username = ?", username);
+    }
+
+    private void deleteRow(String username) {
+        jdbcTemplate.update("DELETE FROM todo_counters WHERE username = ?", username);
+    }
+
+    @Test
+    void createUser_createsAnEmptyCounter() throws Exception {
+
+        createUser("counted1");
+
+        assertEquals(Map.of("TOTAL", 0L, "COMPLETED", 0L, "REVISION", 0L), findRow("counted1"));
+    }
+
+    @Test
+    void findCounter_createsAnAbsentCounterOnce() throws Exception {
+
+        String token = createUserAndLogin("counted2");
+        createTodo(token, "Completed", true).andExpect(status().isCreated());
+        createTodo(token, "Pending", false).andExpect(status().isCreated());
+        deleteRow("counted2");
+
+        TodoCounter counter = todoCounterService.findCounter("counted2");
+
+        assertEquals(List.of(2L, 1L, 0L), List.of(counter.getTotal(), counter.getCompleted(), counter.getRevision()));
+        assertEquals(Map.of("TOTAL", 2L, "COMPLETED", 1L, "REVISION", 0L), findRow("counted2"));
+
+        // Found rather than counted again, so a change of the table is not seen
+        jdbcTemplate.update("UPDATE todos SET completed = false WHERE username = ?", "counted2");
+        assertEquals(1L, todoCounterService.findCounter("counted2").getCompleted());
+    }
+
+    @Test
+    void updateCounter_createsAnAbsentCounterFromTheTodosOfItsTransaction() throws Exception {
+
+        String token = createUserAndLogin("counted3");
+        createTodo(token, "Completed", true).andExpect(status().isCreated());
+        deleteRow("counted3");
+
+        createTodo(token, "Pending", false).andExpect(status().isCreated());
+
+        assertEquals(Map.of("TOTAL", 2L, "COMPLETED", 1L, "REVISION", 1L), findRow("counted3"));
+
+        createTodo(token, "Completed", true).andExpect(status().isCreated());
+
+        assertEquals(Map.of("TOTAL", 3L, "COMPLETED", 2L, "REVISION", 2L), findRow("counted3"));
+    }
+}
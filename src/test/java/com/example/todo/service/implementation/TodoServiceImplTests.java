@@ -0,0 +1,172 @@
+package com.example.todo.service.implementation;
+
+import com.example.todo.AbstractRestApiTests;
+import com.example.todo.exception.NotFoundException;
+import com.example.todo.exception.PreconditionFailedException;
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoFilter;
+import com.example.todo.model.TodoView;
+import com.example.todo.model.User;
+import com.example.todo.service.TodoCounterService;
+import com.example.todo.service.TodoService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads the todos of a user through the service and checks, with the statistics of hibernate, that the user is never loaded,
+ * and that the pages are read as views rather than as todo entities.
+ */
+class TodoServiceImplTests extends AbstractRestApiTests {
+
+    private static final String USERNAME = "reader1";
+    private static final int TODOS = 5;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoCounterService todoCounterService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeAll
+    void createTodos() throws Exception {
+
+        String token = createUserAndLogin(USERNAME);
+
+        for (int i = 0; i < TODOS; i++)
+            createTodo(token, "Todo " + i, i % 2 == 0, "2099-01-0" + (i + 1) + "T00:00:00").andExpect(status().isCreated());
+    }
+
+    @BeforeEach
+    void clearStatistics() {
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private long loads(Class<?> entity) {
+        return statistics.getEntityStatistics(entity.getName()).getLoadCount() + statistics.getEntityStatistics(entity.getName()).getFetchCount();
+    }
+
+    @Test
+    void findTodosByUsername_readsThePagesWithoutLoadingTheTodosOrTheUser() {
+
+        Page<TodoView> page = todoService.findTodosByUsername(USERNAME, new TodoFilter(), 1, 2, List.of(Map.entry("scheduledAt", Sort.Direction.ASC)));
+
+        assertEquals(List.of("Todo 0", "Todo 1"), page.getContent().stream().map(TodoView::getTitle).toList());
+        assertEquals(TODOS, page.getTotalElements());
+
+        Page<TodoView> filtered = todoService.findTodosByUsername(USERNAME, new TodoFilter().setCompleted(true), 1, 10, null);
+
+        assertEquals(3, filtered.getTotalElements());
+        assertTrue(filtered.getContent().stream().allMatch(TodoView::getCompleted));
+
+        assertEquals(page.getContent().get(0).getTitle(), todoService.findTodo(USERNAME, page.getContent().get(0).getId()).getTitle());
+        assertEquals(0, loads(Todo.class));
+        assertEquals(0, loads(User.class));
+    }
+
+    @Test
+    void findTodosByUsername_scrollsWithoutLoadingTheUser() {
+
+        List<String> titles = new ArrayList<>();
+        Window<TodoView> window = todoService.findTodosByUsername(USERNAME, new TodoFilter(), ScrollPosition.keyset(), 2, List.of(Map.entry("createdAt", Sort.Direction.ASC)));
+
+        while (true) {
+
+            window.forEach(todo -> titles.add(todo.getTitle()));
+            if (!window.hasNext()) break;
+
+            window = todoService.findTodosByUsername(USERNAME, new TodoFilter(), (KeysetScrollPosition) window.positionAt(window.size() - 1), 2, List.of(Map.entry("createdAt", Sort.Direction.ASC)));
+        }
+
+        assertEquals(List.of("Todo 0", "Todo 1", "Todo 2", "Todo 3", "Todo 4"), titles);
+        assertEquals(0, loads(User.class));
+    }
+
+    @Test
+    void findTodosByUsername_scrollsInTheOrderOfAnIndexWithoutASort() {
+
+        Window<TodoView> window = todoService.findTodosByUsername(USERNAME, new TodoFilter(), ScrollPosition.keyset(), 2, null);
+        KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+
+        assertEquals(Set.of("scheduledAt", "id"), position.getKeys().keySet());
+        assertEquals(List.of("Todo 2", "Todo 3"), todoService.findTodosByUsername(USERNAME, new TodoFilter(), position, 2, null).stream().map(TodoView::getTitle).toList());
+
+        Window<TodoView> completed = todoService.findTodosByUsername(USERNAME, new TodoFilter().setCompleted(true), ScrollPosition.keyset(), 2, null);
+
+        assertEquals(Set.of("scheduledAt", "id"), ((KeysetScrollPosition) completed.positionAt(completed.size() - 1)).getKeys().keySet());
+
+        Window<TodoView> updated = todoService.findTodosByUsername(USERNAME, new TodoFilter().setUpdatedAfter(LocalDateTime.now().minusYears(1)), ScrollPosition.keyset(), 2, null);
+
+        assertEquals(Set.of("updatedAt", "id"), ((KeysetScrollPosition) updated.positionAt(updated.size() - 1)).getKeys().keySet());
+    }
+
+    @Test
+    void updateTodo_updatesTheCompletedCountOnlyWhenTheCompletedFieldChanges() throws Exception {
+
+        String token = createUserAndLogin("writer1");
+        createTodo(token, "Todo", false).andExpect(status().isCreated());
+        TodoView todo = todoService.findTodosByUsername("writer1", new TodoFilter(), 1, 1, null).getContent().get(0);
+
+        TodoView completed = todoService.updateTodo("writer1", todo.getId(), todo.getVersion(), new Todo().setCompleted(true));
+
+        assertTrue(completed.getCompleted());
+        assertEquals(todo.getVersion() + 1, completed.getVersion());
+        assertEquals(1, todoCounterService.findCounter("writer1").getCompleted());
+
+        TodoView renamed = todoService.updateTodo("writer1", todo.getId(), null, new Todo().setTitle("Renamed").setCompleted(true));
+
+        assertEquals("Renamed", renamed.getTitle());
+        assertTrue(renamed.getCompleted());
+        assertEquals(todo.getVersion() + 2, renamed.getVersion());
+        assertEquals(1, todoCounterService.findCounter("writer1").getCompleted());
+
+        assertThrows(PreconditionFailedException.class, () -> todoService.updateTodo("writer1", todo.getId(), todo.getVersion(), new Todo().setCompleted(false)));
+        assertThrows(PreconditionFailedException.class, () -> todoService.updateTodo("writer1", todo.getId(), todo.getVersion(), new Todo()));
+        assertThrows(NotFoundException.class, () -> todoService.updateTodo("writer1", UUID.randomUUID(), null, new Todo().setCompleted(false)));
+        assertThrows(NotFoundException.class, () -> todoService.updateTodo(USERNAME, todo.getId(), null, new Todo().setCompleted(false)));
+        assertEquals(1, todoCounterService.findCounter("writer1").getCompleted());
+    }
+
+    @Test
+    void deleteTodo_updatesTheCountsOfTheDeletedTodo() throws Exception {
+
+        String token = createUserAndLogin("writer2");
+        createTodo(token, "Completed", true).andExpect(status().isCreated());
+        createTodo(token, "Pending", false).andExpect(status().isCreated());
+        List<TodoView> todos = todoService.findTodosByUsername("writer2", new TodoFilter(), 1, 2, List.of(Map.entry("createdAt", Sort.Direction.ASC))).getContent();
+
+        assertThrows(PreconditionFailedException.class, () -> todoService.deleteTodo("writer2", todos.get(0).getId(), todos.get(0).getVersion() + 1));
+
+        todoService.deleteTodo("writer2", todos.get(0).getId(), todos.get(0).getVersion());
+        assertEquals(List.of(1L, 0L), List.of(todoCounterService.findCounter("writer2").getTotal(), todoCounterService.findCounter("writer2").getCompleted()));
+
+        todoService.deleteTodo("writer2", todos.get(1).getId(), null);
+        assertEquals(List.of(0L, 0L), List.of(todoCounterService.findCounter("writer2").getTotal(), todoCounterService.findCounter("writer2").getCompleted()));
+
+        assertThrows(NotFoundException.class, () -> todoService.deleteTodo("writer2", todos.get(1).getId(), null));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.todo.service.validation.implementation;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.model.Todo;
+import com.example.todo.model.TodoFilter;
+import com.example.todo.utility.implementation.JsonUtilitiesImpl;
+import jakarta.persistence.Column;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TodoValidatorImplTests {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private TodoValidatorImpl todoValidator;
+
+    @BeforeEach
+    void createValidator() {
+
+        todoValidator = new TodoValidatorImpl();
+        todoValidator.setJsonUtility(new JsonUtilitiesImpl());
+    }
+
+    private List<Map.Entry<String, Sort.Direction>> orders(String... properties) {
+        return List.of(properties).stream().map(property -> Map.entry(property, Sort.Direction.ASC)).toList();
+    }
+
+    @Test
+    void validateFilter_allowsTheFiltersThatArePrefixesOfAnIndex() {
+
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter(), null));
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter().setCompleted(true), null));
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter().setCompleted(true).setScheduledBefore(TIME), null));
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter().setCreatedAfter(TIME), null));
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter().setUpdatedAfter(TIME), null));
+    }
+
+    @Test
+    void validateFilter_rejectsTheFiltersThatAreNotPrefixesOfAnIndex() {
+
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateFilter(new TodoFilter().setCompleted(true).setCreatedAfter(TIME), null));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateFilter(new TodoFilter().setScheduledAfter(TIME).setUpdatedAfter(TIME), null));
+    }
+
+    @Test
+    void validateFilter_allowsTheSortsThatFollowTheFilterInTheSameIndex() {
+
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter(), orders("createdAt")));
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter().setCompleted(false), orders("scheduledAt")));
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter().setCompleted(false), orders("completed", "scheduledAt", "id")));
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter().setCompleted(false).setScheduledFrom(TIME), orders("scheduledAt", "id")));
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter().setScheduledTo(TIME), orders("scheduledAt")));
+        assertDoesNotThrow(() -> todoValidator.validateFilter(new TodoFilter().setCreatedAfter(TIME), orders("createdAt", "id")));
+    }
+
+    @Test
+    void validateFilter_rejectsTheSortsThatNeedAnotherIndexThanTheFilter() {
+
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateFilter(new TodoFilter().setCompleted(true), orders("createdAt")));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateFilter(new TodoFilter().setCompleted(true), orders("updatedAt")));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateFilter(new TodoFilter().setScheduledAfter(TIME), orders("completed", "scheduledAt")));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateFilter(new TodoFilter().setCreatedAfter(TIME), orders("scheduledAt")));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateFilter(new TodoFilter().setUpdatedAfter(TIME), orders("createdAt")));
+    }
+
+    @Test
+    void validateAndCreateSortOrders_allowsTheIndexedSorts() {
+
+        assertNull(todoValidator.validateAndCreateSortOrders(null, null));
+        assertEquals(List.of(Map.entry("scheduledAt", Sort.Direction.ASC)),
+                todoValidator.validateAndCreateSortOrders(List.of("scheduled_at"), List.of("asc")));
+        assertEquals(List.of(Map.entry("completed", Sort.Direction.DESC), Map.entry("scheduledAt", Sort.Direction.DESC)),
+                todoValidator.validateAndCreateSortOrders(List.of("completed", "scheduled_at"), List.of("DESC", "desc")));
+        assertEquals(List.of(Map.entry("createdAt", Sort.Direction.ASC), Map.entry("id", Sort.Direction.ASC)),
+                todoValidator.validateAndCreateSortOrders(List.of("created_at", "id"), List.of("asc", "asc")));
+    }
+
+    @Test
+    void validateAndCreateSortOrders_rejectsTheSortsThatNoIndexServes() {
+
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateAndCreateSortOrders(List.of("title"), List.of("asc")));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateAndCreateSortOrders(List.of("scheduled_at", "completed"), List.of("asc", "asc")));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateAndCreateSortOrders(List.of("completed", "scheduled_at"), List.of("asc", "desc")));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateAndCreateSortOrders(List.of("scheduled_at"), List.of("up")));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateAndCreateSortOrders(List.of("scheduled_at"), null));
+        assertThrows(IllegalArgumentException.class, () -> todoValidator.validateAndCreateSortOrders(List.of("scheduled_at", "id"), List.of("asc")));
+    }
+
+    @Test
+    void indexedSorts_areServedByTheIndexesOfTheTodosTable() throws Exception {
+
+        List<List<String>> indexes = new ArrayList<>();
+
+        for (Index index : Todo.class.getAnnotation(Table.class).indexes())
+            indexes.add(List.of(index.columnList().split(",\\s*")));
+
+        for (List<String> sort : ConstantValues.Todo.INDEXED_SORTS) {
+
+            List<String> columns = new ArrayList<>(List.of("username"));
+            for (String property : sort) columns.add(Todo.class.getDeclaredField(property).getAnnotation(Column.class).name());
+
+            // The secondary indexes implicitly end with the primary key
+            assertTrue(indexes.contains(columns) || indexes.contains(columns.subList(0, columns.size() - 1)), "No index for the sort: " + sort);
+        }
+    }
+}
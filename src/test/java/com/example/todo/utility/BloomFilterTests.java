@@ -0,0 +1,59 @@
+package com.example.todo.utility;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTests {
+
+    private static final int INSERTIONS = 10_000;
+
+    @Test
+    void mightContain_isTrueForEveryStringThatHasBeenPut() {
+
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+
+        IntStream.range(0, INSERTIONS).forEach(i -> filter.put("token" + i));
+
+        IntStream.range(0, INSERTIONS).forEach(i -> assertTrue(filter.mightContain("token" + i)));
+    }
+
+    @Test
+    void mightContain_hasFalsePositivesAtAboutTheGivenRate() {
+
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+
+        IntStream.range(0, INSERTIONS).forEach(i -> filter.put("token" + i));
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("other" + i)).count();
+
+        assertTrue(falsePositives < 100_000 * 0.02, "False positive rate: " + falsePositives / 100_000.0);
+        assertFalse(new BloomFilter(INSERTIONS, 0.01).mightContain("token0"));
+    }
+
+    @Test
+    void put_isThreadSafe() {
+
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        List<CompletableFuture<Void>> threads = new ArrayList<>();
+
+        for (int thread = 0; thread < 8; thread++) {
+
+            int offset = thread * INSERTIONS / 8;
+            threads.add(CompletableFuture.runAsync(() -> IntStream.range(offset, offset + INSERTIONS / 8).forEach(i -> filter.put("token" + i))));
+        }
+        threads.forEach(CompletableFuture::join);
+
+        IntStream.range(0, INSERTIONS).forEach(i -> assertTrue(filter.mightContain("token" + i)));
+    }
+
+    @Test
+    void constructor_rejectsTheInvalidArguments() {
+
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(INSERTIONS, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(INSERTIONS, 1));
+    }
+}
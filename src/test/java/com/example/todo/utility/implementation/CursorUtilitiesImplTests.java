@@ -0,0 +1,68 @@
+package com.example.todo.utility.implementation;
+
+import com.example.todo.model.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorUtilitiesImplTests {
+
+    private CursorUtilitiesImpl cursorUtilities;
+
+    @BeforeEach
+    void createCursorUtilities() {
+
+        cursorUtilities = new CursorUtilitiesImpl();
+        cursorUtilities.setObjectMapper(Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    private static String cursorOf(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decode_returnsThePositionThatHasBeenEncodedWithTheTypesOfTheFields() {
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("scheduledAt", LocalDateTime.of(2099, 1, 1, 12, 30, 15));
+        keys.put("completed", true);
+        keys.put("id", UUID.randomUUID());
+
+        String cursor = cursorUtilities.encode(ScrollPosition.forward(keys));
+        KeysetScrollPosition position = cursorUtilities.decode(cursor, Todo.class);
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), "Cursor is url safe: " + cursor);
+        assertEquals(keys, position.getKeys());
+        assertEquals(List.copyOf(keys.keySet()), List.copyOf(position.getKeys().keySet()));
+        assertTrue(position.scrollsForward());
+    }
+
+    @Test
+    void decode_returnsTheInitialPositionForABlankCursor() {
+
+        assertTrue(cursorUtilities.decode(null, Todo.class).isInitial());
+        assertTrue(cursorUtilities.decode("", Todo.class).isInitial());
+        assertTrue(cursorUtilities.decode("  ", Todo.class).isInitial());
+    }
+
+    @Test
+    void decode_rejectsTheMalformedCursors() {
+
+        assertThrows(IllegalArgumentException.class, () -> cursorUtilities.decode("not base64!", Todo.class));
+        assertThrows(IllegalArgumentException.class, () -> cursorUtilities.decode(cursorOf("not json"), Todo.class));
+        assertThrows(IllegalArgumentException.class, () -> cursorUtilities.decode(cursorOf("{}"), Todo.class));
+        assertThrows(IllegalArgumentException.class, () -> cursorUtilities.decode(cursorOf("{\"unknown\":\"value\"}"), Todo.class));
+        assertThrows(IllegalArgumentException.class, () -> cursorUtilities.decode(cursorOf("{\"id\":\"not an uuid\"}"), Todo.class));
+        assertThrows(RuntimeException.class, () -> cursorUtilities.decode("", null));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.todo.utility.implementation;
+
+import com.example.todo.configuration.TestEnvironmentValues;
+import com.example.todo.utility.TokenGenerationStore;
+import com.example.todo.utility.TokenRevocationStore;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilitiesImplTests {
+
+    private static final long GENERATION = 1;
+
+    private final Set<String> revokedTokenIds = new HashSet<>();
+    private final Set<String> revokedUsernames = new HashSet<>();
+    private JwtUtilitiesImpl jwtUtilities;
+
+    @BeforeEach
+    void createJwtUtilities() {
+
+        jwtUtilities = new JwtUtilitiesImpl();
+        jwtUtilities.setEnvironmentValues(TestEnvironmentValues.of());
+        jwtUtilities.setTokenRevocationStore(new TokenRevocationStore() {
+
+            @Override
+            public void revoke(String tokenId, Instant expiresAt) {
+                revokedTokenIds.add(tokenId);
+            }
+
+            @Override
+            public boolean isRevoked(String tokenId) {
+                return revokedTokenIds.contains(tokenId);
+            }
+
+            @Override
+            public int sweep() {
+                return 0;
+            }
+
+            @Override
+            public void refresh() {
+            }
+
+            @Override
+            public Statistics getStatistics() {
+                return null;
+            }
+        });
+        jwtUtilities.setTokenGenerationStore(new TokenGenerationStore() {
+
+            @Override
+            public boolean isCurrent(String username, long generation) {
+                return !revokedUsernames.contains(username) && generation == GENERATION;
+            }
+
+            @Override
+            public void update(String username, Long generation) {
+            }
+        });
+    }
+
+    private UserDetails user(String username) {
+        return User.builder().username(username).password("").roles("USER").build();
+    }
+
+    @Test
+    void getUser_returnsTheUserAndRolesOfAnAccessToken() {
+
+        UserDetails user = jwtUtilities.getUser(jwtUtilities.createJwt(user("jwt1"), GENERATION));
+
+        assertEquals("jwt1", user.getUsername());
+        assertEquals(user("jwt1").getAuthorities(), user.getAuthorities());
+    }
+
+    @Test
+    void getUser_servesTheRepeatedLookupsOfATokenFromTheCache() {
+
+        String token = jwtUtilities.createJwt(user("jwt2"), GENERATION);
+
+        assertSame(jwtUtilities.getUser(token), jwtUtilities.getUser(token));
+        assertNotSame(jwtUtilities.getUser(token), jwtUtilities.getUser(jwtUtilities.createJwt(user("jwt2"), GENERATION)));
+    }
+
+    @Test
+    void getUser_rejectsACachedTokenOnceItIsRevoked() {
+
+        String token = jwtUtilities.createJwt(user("jwt3"), GENERATION);
+        String other = jwtUtilities.createJwt(user("jwt4"), GENERATION);
+
+        jwtUtilities.getUser(token);
+        jwtUtilities.getUser(other);
+
+        jwtUtilities.blackListJwt("jwt3", token);
+        revokedUsernames.add("jwt4");
+
+        assertThrows(JwtException.class, () -> jwtUtilities.getUser(token));
+        assertThrows(JwtException.class, () -> jwtUtilities.getUser(other));
+    }
+
+    @Test
+    void getUser_rejectsTheTokensThatAreNotValidAccessTokens() {
+
+        String token = jwtUtilities.createJwt(user("jwt5"), GENERATION);
+        String tampered = token.substring(0, token.lastIndexOf('.') + 1) + "x" + token.substring(token.lastIndexOf('.') + 2);
+
+        assertThrows(JwtException.class, () -> jwtUtilities.getUser(tampered));
+        assertThrows(JwtException.class, () -> jwtUtilities.getUser(jwtUtilities.createRefreshJwt(user("jwt5"), GENERATION)));
+        assertThrows(JwtException.class, () -> jwtUtilities.getUser(jwtUtilities.createJwt(user("jwt5"), GENERATION + 1)));
+        assertDoesNotThrow(() -> jwtUtilities.getUser(token));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.todo.utility.implementation;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.configuration.TestEnvironmentValues;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterImplTests {
+
+    private static final String USERNAME_KEY = "AUTH:" + ConstantValues.RateLimit.USERNAME_KEY_PREFIX + "target";
+
+    /**
+     * @param maxBuckets The maximum number of buckets, below the number of stripes of which every stripe holds a single bucket
+     */
+    private RateLimiterImpl rateLimiter(int maxBuckets) {
+
+        RateLimiterImpl rateLimiter = new RateLimiterImpl();
+        rateLimiter.setEnvironmentValues(TestEnvironmentValues.of("TODO_RATE_LIMIT_MAX_BUCKETS", String.valueOf(maxBuckets)));
+
+        return rateLimiter;
+    }
+
+    private String addressKey(int i) {
+        return "AUTH:" + ConstantValues.RateLimit.ADDRESS_KEY_PREFIX + "10.0." + (i / 256) + "." + (i % 256);
+    }
+
+    @Test
+    void tryAcquire_throttlesOnceTheBucketIsEmpty() {
+
+        RateLimiterImpl rateLimiter = rateLimiter(ConstantValues.RateLimit.MAX_BUCKETS);
+
+        for (int i = 0; i < 3; i++) assertEquals(0, rateLimiter.tryAcquire(USERNAME_KEY, 3, false));
+
+        long waitNanos = rateLimiter.tryAcquire(USERNAME_KEY, 3, false);
+        assertTrue(waitNanos > 0 && waitNanos <= TimeUnit.SECONDS.toNanos(20), "Waits about a third of a minute: " + waitNanos);
+        assertEquals(0, rateLimiter.tryAcquire("other", 3, false));
+
+        assertEquals(4, rateLimiter.getStatistics().getAcquiredCount());
+        assertEquals(1, rateLimiter.getStatistics().getThrottledCount());
+    }
+
+    @Test
+    void tryAcquire_keepsTheUsernameBucketsWhileTheAddressesFloodTheStripes() {
+
+        RateLimiterImpl rateLimiter = rateLimiter(1);
+
+        for (int i = 0; i < 2; i++) assertEquals(0, rateLimiter.tryAcquire(USERNAME_KEY, 2, false));
+
+        for (int i = 0; i < 10_000; i++) assertEquals(0, rateLimiter.tryAcquire(addressKey(i), 2, true));
+
+        assertTrue(rateLimiter.tryAcquire(USERNAME_KEY, 2, false) > 0);
+        assertTrue(rateLimiter.getStatistics().getSize() <= ConstantValues.RateLimit.STRIPES);
+        assertTrue(rateLimiter.getStatistics().getEvictedCount() > 0);
+    }
+
+    @Test
+    void tryAcquire_evictsTheUsernameBucketsOnlyForOtherUsernames() {
+
+        RateLimiterImpl rateLimiter = rateLimiter(1);
+
+        for (int i = 0; i < 2; i++) assertEquals(0, rateLimiter.tryAcquire(USERNAME_KEY, 2, false));
+
+        for (int i = 0; i < 10_000; i++) rateLimiter.tryAcquire("AUTH:" + ConstantValues.RateLimit.USERNAME_KEY_PREFIX + "user" + i, 2, false);
+
+        assertEquals(0, rateLimiter.tryAcquire(USERNAME_KEY, 2, false), "The bucket has been evicted and is full again");
+    }
+
+    @Test
+    void evictIdle_evictsOnlyTheBucketsThatAreFullAgain() {
+
+        RateLimiterImpl rateLimiter = rateLimiter(ConstantValues.RateLimit.MAX_BUCKETS);
+
+        rateLimiter.tryAcquire(USERNAME_KEY, 2, false);
+        rateLimiter.tryAcquire(addressKey(0), 2, true);
+        rateLimiter.tryAcquire(addressKey(1), Integer.MAX_VALUE, true);
+
+        assertEquals(1, rateLimiter.evictIdle());
+        assertEquals(2, rateLimiter.getStatistics().getSize());
+        assertEquals(1, rateLimiter.getStatistics().getIdleEvictedCount());
+    }
+}
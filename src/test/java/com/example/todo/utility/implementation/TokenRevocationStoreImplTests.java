@@ -0,0 +1,114 @@
+package com.example.todo.utility.implementation;
+
+import com.example.todo.configuration.TestEnvironmentValues;
+import com.example.todo.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every test has a store of its own, all of which share the revoked_tokens table of an embedded database, as the nodes do.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:revocation-store;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class TokenRevocationStoreImplTests {
+
+    private static final int MAX_SIZE = 8;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TokenRevocationStoreImpl store() {
+
+        TokenRevocationStoreImpl store = new TokenRevocationStoreImpl();
+        store.setEnvironmentValues(TestEnvironmentValues.of("TODO_JWT_REVOCATION_STORE_MAX_SIZE", String.valueOf(MAX_SIZE)));
+        store.setRevokedTokenRepository(revokedTokenRepository);
+        store.setTransactionManager(transactionManager);
+        store.refresh();
+
+        return store;
+    }
+
+    @Test
+    void isRevoked_isTrueOnlyForTheRevokedTokensThatHaveNotExpired() {
+
+        TokenRevocationStoreImpl store = store();
+
+        store.revoke("revoked1", Instant.now().plus(1, ChronoUnit.HOURS));
+        store.revoke("expired1", Instant.now().minusSeconds(1));
+
+        assertTrue(store.isRevoked("revoked1"));
+        assertFalse(store.isRevoked("expired1"));
+        assertFalse(store.isRevoked("unknown1"));
+        assertFalse(store.isRevoked(null));
+        assertFalse(revokedTokenRepository.existsById("expired1"));
+        assertEquals(1, store.getStatistics().getSize());
+    }
+
+    @Test
+    void revoke_evictsTheTokensThatExpireTheSoonestWhenTheStoreIsFull() {
+
+        TokenRevocationStoreImpl store = store();
+        Instant now = Instant.now();
+
+        for (int i = 0; i < 2 * MAX_SIZE; i++) store.revoke("bounded" + i, now.plus(1, ChronoUnit.HOURS).plusSeconds(i));
+
+        assertEquals(MAX_SIZE, store.getStatistics().getSize());
+        assertEquals(MAX_SIZE, store.getStatistics().getEvictedCount());
+
+        // The evicted ones are still revoked in the database
+        for (int i = 0; i < MAX_SIZE; i++) assertTrue(store.isRevoked("bounded" + i));
+
+        assertEquals(MAX_SIZE, store.getStatistics().getDatabaseLookupCount());
+        assertEquals(MAX_SIZE, store.getStatistics().getSize());
+    }
+
+    @Test
+    void sweep_removesTheTokensOnceTheyExpire() throws InterruptedException {
+
+        TokenRevocationStoreImpl store = store();
+
+        store.revoke("swept1", Instant.now().plusMillis(300));
+        store.revoke("kept1", Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertTrue(store.isRevoked("swept1"));
+        Thread.sleep(400);
+        assertFalse(store.isRevoked("swept1"));
+
+        assertEquals(1, store.sweep());
+        assertEquals(1, store.getStatistics().getSize());
+        assertEquals(1, store.getStatistics().getExpiredCount());
+        assertFalse(revokedTokenRepository.existsById("swept1"));
+        assertTrue(store.isRevoked("kept1"));
+    }
+
+    @Test
+    void revoke_staysBoundedUnderConcurrentRevocations() {
+
+        TokenRevocationStoreImpl store = store();
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+        List<CompletableFuture<Void>> threads = new ArrayList<>();
+
+        for (int thread = 0; thread < 8; thread++) {
+
+            int offset = thread * 50;
+            threads.add(CompletableFuture.runAsync(() -> IntStream.range(offset, offset + 50).forEach(i -> store.revoke("concurrent" + i, expiresAt.plusMillis(i)))));
+        }
+        threads.forEach(CompletableFuture::join);
+
+        assertTrue(store.getStatistics().getSize() <= MAX_SIZE);
+        assertEquals(400, store.getStatistics().getEvictedCount() + store.getStatistics().getSize());
+        IntStream.range(0, 400).forEach(i -> assertTrue(store.isRevoked("concurrent" + i)));
+        assertFalse(store.isRevoked("concurrent400"));
+    }
+}
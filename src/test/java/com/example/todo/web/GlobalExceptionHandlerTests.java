@@ -0,0 +1,28 @@
+package com.example.todo.web;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalExceptionHandlerTests {
+
+    private final GlobalExceptionHandler globalExceptionHandler = new GlobalExceptionHandler();
+
+    @Test
+    void handleServiceUnavailableException_setsTheRetryAfterOfTheException() {
+
+        ResponseEntity<?> migrating = globalExceptionHandler.handleServiceUnavailableException(new ServiceUnavailableException(
+                ConstantValues.DataSource.Error.USER_IS_BEING_MIGRATED, ConstantValues.DataSource.SHARD_MIGRATION_RETRY_AFTER_IN_SECONDS));
+        ResponseEntity<?> hashing = globalExceptionHandler.handleServiceUnavailableException(new ServiceUnavailableException(
+                ConstantValues.User.Error.PASSWORD_HASHING_IS_BUSY, ConstantValues.User.PASSWORD_HASHING_RETRY_AFTER_IN_SECONDS));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, migrating.getStatusCode());
+        assertEquals(String.valueOf(ConstantValues.DataSource.SHARD_MIGRATION_RETRY_AFTER_IN_SECONDS), migrating.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, hashing.getStatusCode());
+        assertEquals(String.valueOf(ConstantValues.User.PASSWORD_HASHING_RETRY_AFTER_IN_SECONDS), hashing.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.todo.web.controller;
+
+import com.example.todo.AbstractRestApiTests;
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.model.TodoCounter;
+import com.example.todo.service.TodoCounterService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Calls the batch, bulk and conditional endpoints of the todos on the embedded database, and checks their statuses along
+ * with the counters of the users, which the conditional reads of the todo list are answered from.
+ */
+class TodoControllerRestApiTests extends AbstractRestApiTests {
+
+    private static final String TODOS = ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos";
+
+    @Autowired
+    private TodoCounterService todoCounterService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private List<Long> counts(String username) {
+
+        TodoCounter counter = todoCounterService.findCounter(username);
+        return List.of(counter.getTotal(), counter.getCompleted());
+    }
+
+    private JsonNode createTodoAndRead(String token, String title) throws Exception {
+        return objectMapper.readTree(createTodo(token, title, false).andExpect(status().isCreated()).andReturn().getResponse().getContentAsString());
+    }
+
+    private String batch(int valid, boolean invalid) {
+
+        StringBuilder content = new StringBuilder("[");
+        for (int i = 0; i < valid; i++)
+            content.append(i == 0 ? "" : ",").append("{\"title\":\"Todo ").append(i).append("\",\"description\":\"Description\",\"completed\":").append(i < 4).append(",\"scheduled_at\":\"2099-01-01T00:00:00\"}");
+        if (invalid) content.append(",{\"description\":\"Description\",\"completed\":false,\"scheduled_at\":\"2099-01-01T00:00:00\"}");
+
+        return content.append("]").toString();
+    }
+
+    private String listETag(String token) throws Exception {
+
+        return mockMvc.perform(get(TODOS).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void createTodos_respondsWithTheStatusOfEveryTodoAndInsertsTheValidOnesInOneBatch() throws Exception {
+
+        String token = createUserAndLogin("batched1");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        mockMvc.perform(post(TODOS + "/batch").header(HttpHeaders.AUTHORIZATION, token).contentType(MediaType.APPLICATION_JSON).content(batch(1, false)))
+                .andExpect(status().isMultiStatus());
+        long statements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        mockMvc.perform(post(TODOS + "/batch").header(HttpHeaders.AUTHORIZATION, token).contentType(MediaType.APPLICATION_JSON).content(batch(10, true)))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.length()").value(11))
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].todo.title").value("Todo 0"))
+                .andExpect(jsonPath("$[9].status").value(201))
+                .andExpect(jsonPath("$[9].todo.title").value("Todo 9"))
+                .andExpect(jsonPath("$[10].status").value(400))
+                .andExpect(jsonPath("$[10].todo").doesNotExist())
+                .andExpect(jsonPath("$[10].messages[0]").value(ConstantValues.Todo.Error.TITLE_NEEDED));
+
+        // The inserts share a single prepared statement, which is executed as a batch, so there are no more statements than for one todo
+        assertEquals(10, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= statements);
+        assertEquals(List.of(11L, 5L), counts("batched1"));
+    }
+
+    @Test
+    void updateAndDeleteTodos_respondWithTheNumberOfMatchedTodosAndUpdateTheCounter() throws Exception {
+
+        String token = createUserAndLogin("bulk1");
+        String other = createUserAndLogin("bulk2");
+
+        for (int i = 0; i < 5; i++) createTodo(token, "Todo " + i, i < 2).andExpect(status().isCreated());
+        createTodo(token, "Later", false, "2100-01-01T00:00:00").andExpect(status().isCreated());
+        createTodo(other, "Other", false).andExpect(status().isCreated());
+
+        mockMvc.perform(patch(TODOS).param("completed", "false").param("scheduledBefore", "2099-06-01T00:00:00")
+                        .header(HttpHeaders.AUTHORIZATION, token).contentType(MediaType.APPLICATION_JSON).content("{\"completed\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3));
+
+        assertEquals(List.of(6L, 5L), counts("bulk1"));
+
+        // Matches no todo, so the counts don't change
+        mockMvc.perform(patch(TODOS).param("completed", "false").param("scheduledBefore", "2099-06-01T00:00:00")
+                        .header(HttpHeaders.AUTHORIZATION, token).contentType(MediaType.APPLICATION_JSON).content("{\"completed\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(0));
+
+        assertEquals(List.of(6L, 5L), counts("bulk1"));
+
+        mockMvc.perform(delete(TODOS).param("completed", "true").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(5));
+
+        assertEquals(List.of(1L, 0L), counts("bulk1"));
+        assertEquals(List.of(1L, 0L), counts("bulk2"));
+    }
+
+    @Test
+    void updateAndDeleteTodo_areConditionalOnTheStrongEntityTagOfIfMatch() throws Exception {
+
+        String token = createUserAndLogin("conditional1");
+        JsonNode todo = createTodoAndRead(token, "Todo");
+        String uri = TODOS + "/" + todo.get(ConstantValues.Todo.Json.ID).asText();
+
+        String etag = mockMvc.perform(get(uri).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(uri).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        String updated = mockMvc.perform(put(uri).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Updated\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Updated"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(etag, updated);
+
+        // The stale tag, the weak tag of the current version, and a tag that is not a version don't match, as If-Match compares strongly
+        for (String ifMatch : List.of(etag, "W/" + updated, "\"current\"")) {
+
+            mockMvc.perform(put(uri).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_MATCH, ifMatch)
+                            .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Overwritten\"}"))
+                    .andExpect(status().isPreconditionFailed());
+
+            mockMvc.perform(delete(uri).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_MATCH, ifMatch))
+                    .andExpect(status().isPreconditionFailed());
+        }
+
+        // Writes without If-Match are unconditional rather than rejected with 428, and "*" matches any version of the todo
+        String unconditional = mockMvc.perform(put(uri).header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Unconditional\"}"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(updated, unconditional);
+
+        mockMvc.perform(delete(uri).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(delete(uri).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findTodosByUsername_isNotModifiedUntilTheRevisionOfTheCounterChanges() throws Exception {
+
+        String token = createUserAndLogin("revised1");
+        createTodo(token, "First", false).andExpect(status().isCreated());
+
+        String etag = listETag(token);
+        assertEquals(todoCounterService.findCounter("revised1").getETag(), etag);
+
+        mockMvc.perform(get(TODOS).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // Changed within the same second as the previous change, which a Last-Modified time could not tell apart
+        createTodo(token, "Second", false).andExpect(status().isCreated());
+
+        String modifiedSince = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusMinutes(1));
+
+        mockMvc.perform(get(TODOS).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag).header(HttpHeaders.IF_MODIFIED_SINCE, modifiedSince))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(get(TODOS).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_MODIFIED_SINCE, modifiedSince))
+                .andExpect(status().isOk());
+
+        String changed = listETag(token);
+        assertNotEquals(etag, changed);
+
+        mockMvc.perform(get(TODOS).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, changed))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.todo.web.controller;
+
+import com.example.todo.configuration.ConstantValues;
+import com.example.todo.model.TodoView;
+import com.example.todo.service.TodoService;
+import com.example.todo.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exports the todos of a mocked service, as the streaming query of the export is specific to MySQL.
+ */
+class TodoControllerTests {
+
+    private static final String USERNAME = "export1";
+    private static final Principal PRINCIPAL = () -> USERNAME;
+    private static final UUID ID = UUID.fromString("018b2f6e-7c3a-7000-8000-000000000001");
+    private static final LocalDateTime TIME = LocalDateTime.of(2099, 1, 1, 12, 30);
+
+    private TodoService todoService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void createMockMvc() {
+
+        todoService = mock(TodoService.class);
+
+        TodoController todoController = new TodoController();
+        todoController.setTodoService(todoService);
+        todoController.setUserService(mock(UserService.class));
+        todoController.setObjectMapper(Jackson2ObjectMapperBuilder.json().build());
+
+        mockMvc = MockMvcBuilders.standaloneSetup(todoController).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private String export(String format, TodoView... todos) throws Exception {
+
+        when(todoService.exportTodos(eq(USERNAME), any())).thenAnswer(invocation -> {
+            List.of(todos).forEach(invocation.getArgument(1, Consumer.class));
+            return (long) todos.length;
+        });
+
+        MvcResult result = mockMvc.perform(get(ConstantValues.RestApi.REST_API_ROUTE_PREFIX + "/todos/export").param("format", format).principal(PRINCIPAL))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private static TodoView todo(String title, String description) {
+        return new TodoView(ID, title, TIME, TIME, TIME, false, description, 0L);
+    }
+
+    @Test
+    void exportTodos_writesTheFieldsOfEveryTodoAsALineOfCsv() throws Exception {
+
+        String csv = export(ConstantValues.Todo.Export.CSV, todo("Title", "Description"), todo("Title", null));
+
+        assertEquals("""
+                id,title,created_at,updated_at,scheduled_at,completed,description\r
+                018b2f6e-7c3a-7000-8000-000000000001,Title,2099-01-01T12:30:00,2099-01-01T12:30:00,2099-01-01T12:30:00,false,Description\r
+                018b2f6e-7c3a-7000-8000-000000000001,Title,2099-01-01T12:30:00,2099-01-01T12:30:00,2099-01-01T12:30:00,false,\r
+                """, csv);
+    }
+
+    @Test
+    void exportTodos_quotesTheCsvFieldsThatContainSeparatorsQuotesOrLineBreaks() throws Exception {
+
+        String csv = export(ConstantValues.Todo.Export.CSV, todo("Buy milk, eggs", "Say \"hi\"\nThen leave\r"));
+
+        assertTrue(csv.endsWith(",\"Buy milk, eggs\",2099-01-01T12:30:00,2099-01-01T12:30:00,2099-01-01T12:30:00,false,\"Say \"\"hi\"\"\nThen leave\r\"\r\n"), csv);
+    }
+
+    @Test
+    void exportTodos_writesEveryTodoAsALineOfJson() throws Exception {
+
+        String ndjson = export(ConstantValues.Todo.Export.NDJSON, todo("Buy milk, eggs", "Say \"hi\"\nThen leave"));
+
+        assertEquals(1, ndjson.lines().count());
+        assertTrue(ndjson.contains("\"description\":\"Say \\\"hi\\\"\\nThen leave\""), ndjson);
+        assertTrue(ndjson.endsWith("}\n"), ndjson);
+    }
+}